@@ -1,8 +1,12 @@
 package proyecto.lenguaje.codegen;
 
 import proyecto.lenguaje.parser.AstNode;
+import proyecto.lenguaje.parser.AstVisitor;
+import proyecto.lenguaje.parser.BinaryOpNode;
+import proyecto.lenguaje.parser.IdentifierNode;
+import proyecto.lenguaje.parser.LiteralNode;
+import proyecto.lenguaje.parser.TupleNode;
 import java.util.*;
-import java.lang.reflect.Field;
 
 /**
  * Generador de código intermedio que convierte expresiones aritméticas 
@@ -88,42 +92,31 @@ public class ArithmeticExpressionConverter {
      */
     public String convertToPrefix(AstNode node) {
         if (node == null) return "";
-        
-        // Usar reflexión para acceder a las clases del parser
-        String className = node.getClass().getSimpleName();
-        
-        try {
-            if ("LiteralNode".equals(className)) {
-                Field tokenField = node.getClass().getField("token");
-                Object token = tokenField.get(node);
-                return token.getClass().getMethod("getValue").invoke(token).toString();
-            }
-            
-            if ("IdentifierNode".equals(className)) {
-                Field nameField = node.getClass().getField("name");
-                return (String) nameField.get(node);
-            }
-            
-            if ("BinaryOpNode".equals(className)) {
-                Field opField = node.getClass().getField("op");
-                Field leftField = node.getClass().getField("left");
-                Field rightField = node.getClass().getField("right");
-                
-                String op = (String) opField.get(node);
-                AstNode left = (AstNode) leftField.get(node);
-                AstNode right = (AstNode) rightField.get(node);
-                
-                String leftPrefix = convertToPrefix(left);
-                String rightPrefix = convertToPrefix(right);
-                return op + leftPrefix + rightPrefix;
+        // Preorden con pila explícita (sin límite de profundidad): operador, izquierda, derecha
+        StringBuilder prefix = new StringBuilder();
+        Deque<AstNode> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            AstNode next = pending.pop();
+            if (next instanceof BinaryOpNode) {
+                BinaryOpNode op = (BinaryOpNode) next;
+                prefix.append(op.getOp());
+                if (op.getRight() != null) pending.push(op.getRight());
+                if (op.getLeft() != null) pending.push(op.getLeft());
+            } else {
+                prefix.append(next.accept(OPERAND));
             }
-        } catch (Exception e) {
-            System.err.println("Error accediendo a campos del nodo: " + e.getMessage());
         }
-        
-        return "";
+        return prefix.toString();
     }
     
+    // Texto de un operando: literal o identificador; cualquier otro nodo da ""
+    private static final AstVisitor<String> OPERAND = new AstVisitor<String>() {
+        @Override public String visitNode(AstNode node) { return ""; }
+        @Override public String visitLiteral(LiteralNode node) { return node.getToken().getValue(); }
+        @Override public String visitIdentifier(IdentifierNode node) { return node.getName(); }
+    };
+    
     /**
      * Convierte expresión AST a lista de tripletas (código intermedio)
      * @param node nodo del AST
@@ -131,55 +124,11 @@ public class ArithmeticExpressionConverter {
      */
     public ConversionResult convertToTriplets(AstNode node) {
         List<Triplet> triplets = new ArrayList<>();
-        String result = convertToTripletsRecursive(node, triplets);
+        String result = convertToThreeAddress(node,
+            (op, left, right, temporal) -> triplets.add(new Triplet(op, left, right, temporal)));
         return new ConversionResult(triplets, null, result);
     }
     
-    private String convertToTripletsRecursive(AstNode node, List<Triplet> triplets) {
-        if (node == null) return "";
-        
-        String className = node.getClass().getSimpleName();
-        
-        try {
-            if ("LiteralNode".equals(className)) {
-                Field tokenField = node.getClass().getField("token");
-                Object token = tokenField.get(node);
-                return token.getClass().getMethod("getValue").invoke(token).toString();
-            }
-            
-            if ("IdentifierNode".equals(className)) {
-                Field nameField = node.getClass().getField("name");
-                return (String) nameField.get(node);
-            }
-            
-            if ("BinaryOpNode".equals(className)) {
-                Field opField = node.getClass().getField("op");
-                Field leftField = node.getClass().getField("left");
-                Field rightField = node.getClass().getField("right");
-                
-                String op = (String) opField.get(node);
-                AstNode left = (AstNode) leftField.get(node);
-                AstNode right = (AstNode) rightField.get(node);
-                
-                // Procesar operandos recursivamente
-                String leftResult = convertToTripletsRecursive(left, triplets);
-                String rightResult = convertToTripletsRecursive(right, triplets);
-                
-                // Generar temporal para esta operación
-                String temporal = getNextTemporal();
-                
-                // Crear tripleta: (op, left, right, result)
-                triplets.add(new Triplet(op, leftResult, rightResult, temporal));
-                
-                return temporal;
-            }
-        } catch (Exception e) {
-            System.err.println("Error accediendo a campos en tripletas: " + e.getMessage());
-        }
-        
-        return "";
-    }
-    
     /**
      * Convierte expresión AST a lista de cuádruplos (código intermedio)
      * @param node nodo del AST
@@ -187,55 +136,54 @@ public class ArithmeticExpressionConverter {
      */
     public ConversionResult convertToQuadruples(AstNode node) {
         List<Quadruple> quadruples = new ArrayList<>();
-        String result = convertToQuadruplesRecursive(node, quadruples);
+        String result = convertToThreeAddress(node,
+            (op, left, right, temporal) -> quadruples.add(new Quadruple(op, left, right, temporal)));
         return new ConversionResult(null, quadruples, result);
     }
     
-    private String convertToQuadruplesRecursive(AstNode node, List<Quadruple> quadruples) {
+    // Destino de cada operación generada: (op, operando1, operando2, temporal_resultado)
+    private interface Emitter {
+        void emit(String op, String operand1, String operand2, String temporal);
+    }
+    
+    // Código de 3 direcciones: devuelve el operando o temporal con el resultado del nodo
+    private String convertToThreeAddress(AstNode node, Emitter emitter) {
         if (node == null) return "";
-        
-        String className = node.getClass().getSimpleName();
-        
-        try {
-            if ("LiteralNode".equals(className)) {
-                Field tokenField = node.getClass().getField("token");
-                Object token = tokenField.get(node);
-                return token.getClass().getMethod("getValue").invoke(token).toString();
+        // Postorden con pila explícita: cada operación se emite después de sus operandos
+        Deque<AstNode> pending = new ArrayDeque<>();
+        Set<AstNode> expanded = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<String> results = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            AstNode next = pending.peek();
+            if (!(next instanceof BinaryOpNode)) {
+                pending.pop();
+                results.push(next.accept(OPERAND));
+                continue;
             }
-            
-            if ("IdentifierNode".equals(className)) {
-                Field nameField = node.getClass().getField("name");
-                return (String) nameField.get(node);
+            BinaryOpNode op = (BinaryOpNode) next;
+            if (expanded.add(op)) {
+                // Procesar operandos primero (la izquierda queda arriba)
+                pending.push(op.getRight() != null ? op.getRight() : EMPTY);
+                pending.push(op.getLeft() != null ? op.getLeft() : EMPTY);
+                continue;
             }
+            pending.pop();
+            expanded.remove(op);
+            String rightResult = results.pop();
+            String leftResult = results.pop();
             
-            if ("BinaryOpNode".equals(className)) {
-                Field opField = node.getClass().getField("op");
-                Field leftField = node.getClass().getField("left");
-                Field rightField = node.getClass().getField("right");
-                
-                String op = (String) opField.get(node);
-                AstNode left = (AstNode) leftField.get(node);
-                AstNode right = (AstNode) rightField.get(node);
-                
-                // Procesar operandos recursivamente
-                String leftResult = convertToQuadruplesRecursive(left, quadruples);
-                String rightResult = convertToQuadruplesRecursive(right, quadruples);
-                
-                // Generar temporal para esta operación
-                String temporal = getNextTemporal();
-                
-                // Crear cuádruple: (op, operand1, operand2, result)
-                quadruples.add(new Quadruple(op, leftResult, rightResult, temporal));
-                
-                return temporal;
-            }
-        } catch (Exception e) {
-            System.err.println("Error accediendo a campos en cuádruplos: " + e.getMessage());
+            // Generar temporal para esta operación
+            String temporal = getNextTemporal();
+            emitter.emit(op.getOp(), leftResult, rightResult, temporal);
+            results.push(temporal);
         }
-        
-        return "";
+        return results.pop();
     }
     
+    // Operando ausente (da "")
+    private static final AstNode EMPTY = new TupleNode(Collections.emptyList());
+    
     /**
      * Convierte una cadena de expresión infijo a prefijo usando el algoritmo original
      * (Integración directa del algoritmo de InfijoAPrefijo.java)
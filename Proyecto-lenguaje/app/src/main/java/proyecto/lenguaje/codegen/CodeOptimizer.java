@@ -1,5 +1,6 @@
 package proyecto.lenguaje.codegen;
 
+import proyecto.lenguaje.lexer.VectorScan;
 import java.util.*;
 import java.util.regex.*;
 
@@ -112,18 +113,31 @@ public class CodeOptimizer {
     }
     
     /**
-     * Elimina todos los comentarios del código
+     * Elimina todos los comentarios del código.
+     * Copia de una vez los tramos que no pueden iniciar un comentario y dentro
+     * de los bloques {- -} salta hasta el próximo '{', '-' o salto de línea,
+     * buscando con VectorScan (varios caracteres por comparación).
      */
     private String removeComments(String code) {
-        StringBuilder result = new StringBuilder();
+        StringBuilder result = new StringBuilder(code.length());
+        char[] chars = code.toCharArray();
+        int length = chars.length;
         int pos = 0;
         
-        while (pos < code.length()) {
+        while (pos < length) {
+            // Copiar todo lo que no puede ser inicio de comentario
+            int next = VectorScan.indexOfAny(chars, '-', '{', pos, length);
+            result.append(chars, pos, next - pos);
+            pos = next;
+            if (pos >= length) {
+                break;
+            }
+            
             // Comentarios de línea --
-            if (pos < code.length() - 1 && code.charAt(pos) == '-' && code.charAt(pos + 1) == '-') {
+            if (pos < length - 1 && chars[pos] == '-' && chars[pos + 1] == '-') {
                 // Saltar hasta el final de la línea
-                int endLine = code.indexOf('\n', pos);
-                if (endLine == -1) {
+                int endLine = VectorScan.indexOf(chars, '\n', pos, length);
+                if (endLine == length) {
                     break; // Comentario hasta el final del archivo
                 }
                 pos = endLine + 1;
@@ -132,18 +146,23 @@ public class CodeOptimizer {
             }
             
             // Comentarios multilínea {- -}
-            if (pos < code.length() - 1 && code.charAt(pos) == '{' && code.charAt(pos + 1) == '-') {
+            if (pos < length - 1 && chars[pos] == '{' && chars[pos + 1] == '-') {
                 pos += 2;
                 int depth = 1;
-                while (pos < code.length() - 1 && depth > 0) {
-                    if (code.charAt(pos) == '{' && code.charAt(pos + 1) == '-') {
+                while (pos < length - 1 && depth > 0) {
+                    // Lo que no sea '{', '-' ni salto de línea no afecta al comentario
+                    pos = VectorScan.indexOfAny(chars, '{', '-', '\n', pos, length - 1);
+                    if (pos >= length - 1) {
+                        break;
+                    }
+                    if (chars[pos] == '{' && chars[pos + 1] == '-') {
                         depth++;
                         pos += 2;
-                    } else if (code.charAt(pos) == '-' && code.charAt(pos + 1) == '}') {
+                    } else if (chars[pos] == '-' && chars[pos + 1] == '}') {
                         depth--;
                         pos += 2;
                     } else {
-                        if (code.charAt(pos) == '\n') {
+                        if (chars[pos] == '\n') {
                             result.append('\n'); // Mantener saltos de línea
                         }
                         pos++;
@@ -152,7 +171,7 @@ public class CodeOptimizer {
                 continue;
             }
             
-            result.append(code.charAt(pos));
+            result.append(chars[pos]);
             pos++;
         }
         
@@ -137,7 +137,7 @@ public class ExpressionConverterDemo {
             List<Token> tokens = lexer.tokenize(sourceCode);
             
             // Usar el parser existente
-            Parser parser = new Parser(tokens);
+            Parser parser = new Parser(tokens, new LineIndex(sourceCode));
             AstNode ast = parser.parseProgram();
             
             // Buscar expresiones aritméticas en el AST y convertirlas
@@ -150,36 +150,11 @@ public class ExpressionConverterDemo {
     }
     
     private void extractAndConvertExpressions(AstNode node, ArithmeticExpressionConverter converter) {
-        if (node == null) return;
-        
-        String className = node.getClass().getSimpleName();
-        
-        if ("BinaryOpNode".equals(className)) {
-            System.out.println("Expresión aritmética encontrada:");
-            converter.demonstrateConversions(node, null);
-        }
-        
-        // Recursivamente buscar en subnodos (usando reflexión)
-        try {
-            java.lang.reflect.Field[] fields = node.getClass().getFields();
-            for (java.lang.reflect.Field field : fields) {
-                if (AstNode.class.isAssignableFrom(field.getType())) {
-                    AstNode subNode = (AstNode) field.get(node);
-                    extractAndConvertExpressions(subNode, converter);
-                } else if (List.class.isAssignableFrom(field.getType())) {
-                    Object listObj = field.get(node);
-                    if (listObj instanceof List) {
-                        List<?> list = (List<?>) listObj;
-                        for (Object item : list) {
-                            if (item instanceof AstNode) {
-                                extractAndConvertExpressions((AstNode) item, converter);
-                            }
-                        }
-                    }
-                }
+        AstWalker.preOrder(node, n -> {
+            if (n instanceof BinaryOpNode) {
+                System.out.println("Expresión aritmética encontrada:");
+                converter.demonstrateConversions(n, null);
             }
-        } catch (Exception e) {
-            // Ignorar errores de reflexión
-        }
+        });
     }
 }
\ No newline at end of file
@@ -23,6 +23,10 @@ public class IDEFrame extends JFrame {
     private JFileChooser fileChooser;
     private File currentFile;
     private JScrollPane mainScrollPane; // Nuevo scroll pane principal
+    private final transient IncrementalLexer incrementalLexer = new IncrementalLexer(); // Tokens del editor, actualizados en cada edición
+    private final transient IncrementalParser incrementalParser = new IncrementalParser(); // Reutiliza las declaraciones no editadas
+    private final transient SemanticValidator semanticValidator = new SemanticValidator(); // Sin estado: cada validación usa su propio contexto
+    private int gutterLines = -1; // Líneas mostradas actualmente en lineNumbers
 
     public IDEFrame() {
         setTitle("Mini IDE - Evaluación de Lenguaje Haskell");
@@ -55,9 +59,23 @@ public class IDEFrame extends JFrame {
         // Configurar actualizaciones de números de línea
         codeEditor.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
             @Override
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { updateLineNumbers(); }
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                try {
+                    String inserted = e.getDocument().getText(e.getOffset(), e.getLength());
+                    incrementalLexer.applyEdit(e.getOffset(), 0, inserted);
+                    incrementalParser.applyEdit(e.getOffset(), 0, inserted.length());
+                } catch (javax.swing.text.BadLocationException ex) {
+                    incrementalLexer.reset(codeEditor.getText());
+                    incrementalParser.reset();
+                }
+                updateLineNumbers();
+            }
             @Override
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { updateLineNumbers(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                incrementalLexer.applyEdit(e.getOffset(), e.getLength(), "");
+                incrementalParser.applyEdit(e.getOffset(), e.getLength(), 0);
+                updateLineNumbers();
+            }
             @Override
             public void changedUpdate(javax.swing.event.DocumentEvent e) { updateLineNumbers(); }
         });
@@ -117,9 +135,12 @@ public class IDEFrame extends JFrame {
 
     // Método para actualizar los números de línea
     private void updateLineNumbers() {
-        String text = codeEditor.getText();
-        int lines = text.split("\n", -1).length;
-        if (text.isEmpty()) lines = 1;
+        // La cantidad de líneas sale del índice del lexer incremental, sin volver a dividir el texto
+        int lines = incrementalLexer.getLineIndex().getLineCount();
+        if (lines == gutterLines) {
+            return;
+        }
+        gutterLines = lines;
         StringBuilder numbers = new StringBuilder();
         for (int i = 1; i <= lines; i++) {
             numbers.append(i).append("\n");
@@ -149,10 +170,18 @@ public class IDEFrame extends JFrame {
     private void runSemanticCycleValidation() {
         long startTime = System.currentTimeMillis();
         
-        HaskellLexer lexer = new HaskellLexer();
-        String code = codeEditor.getText();
-        List<Token> tokens = lexer.tokenize(code);
-        String result = SemanticValidator.validateCycles(tokens);
+        List<Token> tokens = incrementalLexer.getTokens();
+        String result;
+        try {
+            // Si el programa se puede analizar, las variables se validan por ámbito sobre el AST
+            AstNode program = incrementalParser.parse(incrementalLexer);
+            result = semanticValidator.validateCycles(tokens, false);
+            result += "\n" + semanticValidator.validateScopes(program);
+            result += "\n" + semanticValidator.validateTypes(program);
+        } catch (Parser.ParseException e) {
+            // Sin AST, las variables no definidas se buscan token por token
+            result = semanticValidator.validateCycles(tokens);
+        }
         
         long endTime = System.currentTimeMillis();
         long executionTime = endTime - startTime;
@@ -180,9 +209,9 @@ public class IDEFrame extends JFrame {
     private void runLexicalAnalysis() {
         long startTime = System.currentTimeMillis();
         
-        HaskellLexer lexer = new HaskellLexer();
         String code = codeEditor.getText();
-        List<Token> tokens = lexer.tokenize(code);
+        List<Token> tokens = incrementalLexer.getTokens();
+        LineIndex lineIndex = incrementalLexer.getLineIndex();
         
         long endTime = System.currentTimeMillis();
         long executionTime = endTime - startTime;
@@ -235,7 +264,8 @@ public class IDEFrame extends JFrame {
                 if (t.getType() == Token.Type.ERROR) {
                     sb.append("<span style='color: red;'>ERROR: Carácter inválido '")
                       .append(escapeHtml(t.getValue()))
-                      .append("' en línea ").append(t.getLine())
+                      .append("' en línea ").append(lineIndex.lineOf(t.getPosition()))
+                      .append(", columna ").append(lineIndex.columnOf(t.getPosition()))
                       .append(", posición ").append(t.getPosition()).append("</span><br>");
                 }
             }
@@ -250,7 +280,6 @@ public class IDEFrame extends JFrame {
         long startTime = System.currentTimeMillis();
         
         try {
-            HaskellLexer lexer = new HaskellLexer();
             String code = codeEditor.getText();
             
             ArithmeticExpressionConverter converter = new ArithmeticExpressionConverter();
@@ -271,8 +300,8 @@ public class IDEFrame extends JFrame {
             if (foundExpressions.isEmpty()) {
                 // Si no encontramos expresiones, intentar con el parser
                 try {
-                    List<Token> tokens = lexer.tokenize(code);
-                    Parser parser = new Parser(tokens);
+                    List<Token> tokens = incrementalLexer.getTokens();
+                    Parser parser = new Parser(tokens, incrementalLexer.getLineIndex());
                     AstNode program = parser.parseProgram();
                     
                     List<ExpressionResult> expressions = findArithmeticExpressions(program, converter);
@@ -290,7 +319,7 @@ public class IDEFrame extends JFrame {
                 result.append("<span style='color: green; font-weight: bold;'>🔍 EXPRESIONES ENCONTRADAS: ").append(foundExpressions.size()).append("</span><br><br>");
                 
                 // Construir mapa de variables con sus valores
-                java.util.Map<String, Double> variableValues = buildVariableMap(code);
+                java.util.Map<String, Double> variableValues = buildVariableMap(incrementalLexer.getTokens());
                 
                 int count = 1;
                 for (ExpressionWithVariable exprWithVar : foundExpressions) {
@@ -391,63 +420,132 @@ public class IDEFrame extends JFrame {
         return expressions;
     }
     
-    // Método para construir un mapa de variables con sus valores numéricos
-    private java.util.Map<String, Double> buildVariableMap(String code) {
+    // Método para construir un mapa de variables con sus valores numéricos.
+    // Usa los tokens del editor: el valor de cada literal ya viene decodificado por el lexer.
+    private java.util.Map<String, Double> buildVariableMap(List<Token> tokens) {
         java.util.Map<String, Double> variables = new java.util.HashMap<>();
-        String[] lines = code.split("\n");
+        int start = 0;
         
-        for (String line : lines) {
-            line = line.trim();
-            
-            // Ignorar comentarios y líneas vacías
-            if (line.startsWith("--") || line.isEmpty()) {
-                continue;
+        while (start < tokens.size()) {
+            // Tokens de una misma línea: [start, end)
+            int line = tokens.get(start).getLine();
+            int end = start;
+            while (end < tokens.size() && tokens.get(end).getLine() == line) {
+                end++;
             }
             
-            // Buscar patrón: variable = número
-            if (line.contains("=")) {
-                int equalsIndex = line.indexOf("=");
-                if (equalsIndex > 0 && equalsIndex < line.length() - 1) {
-                    String leftSide = line.substring(0, equalsIndex).trim();
-                    String rightSide = line.substring(equalsIndex + 1).trim();
-                    
-                    // Extraer solo el nombre de la variable (primera palabra)
-                    String varName = leftSide.split("\\s+")[0];
-                    
-                    // Intentar parsear el valor como número
-                    try {
-                        // Eliminar espacios y verificar si es un número
-                        String cleanValue = rightSide.trim();
-                        if (cleanValue.matches("-?\\d+(\\.\\d+)?")) {
-                            double value = Double.parseDouble(cleanValue);
-                            variables.put(varName, value);
-                        }
-                    } catch (NumberFormatException e) {
-                        // No es un número, ignorar
-                    }
+            // Buscar patrón: variable = número (el número es lo único después del '=')
+            int equals = start + 1;
+            while (equals < end && !tokens.get(equals).getValue().equals("=")) {
+                equals++;
+            }
+            if (equals < end) {
+                Double value = numberValue(tokens, equals + 1, end);
+                if (value != null) {
+                    variables.put(tokens.get(start).getValue(), value);
                 }
             }
+            start = end;
         }
         
         return variables;
     }
     
+    // Valor del número formado por los tokens [from, to), o null si no son un número.
+    // Un decimal como 1.5 llega del lexer como INTEGER '.' INTEGER (sin espacios entre ellos).
+    private Double numberValue(List<Token> tokens, int from, int to) {
+        if (to - from == 1 && tokens.get(from).getType() == Token.Type.INTEGER) {
+            return tokens.get(from).getDoubleValue();
+        }
+        if (to - from != 3) {
+            return null;
+        }
+        Token whole = tokens.get(from);
+        Token dot = tokens.get(from + 1);
+        Token fraction = tokens.get(from + 2);
+        if (whole.getType() != Token.Type.INTEGER || !dot.getValue().equals(".") || fraction.getType() != Token.Type.INTEGER
+                || dot.getPosition() != whole.getPosition() + whole.getValue().length()
+                || fraction.getPosition() != dot.getPosition() + 1
+                || !isDecimalDigits(whole.getValue()) || !isDecimalDigits(fraction.getValue())) {
+            return null;
+        }
+        try {
+            Double value = exactDecimal(whole.getLongValue(), whole.getValue().startsWith("-"),
+                fraction.getLongValue(), fraction.getValue().length());
+            if (value != null) {
+                return value;
+            }
+        } catch (ArithmeticException e) {
+            // Una parte no cabe en un long
+        }
+        // Más de 2^53 o de 22 decimales: no hay un valor decodificado exacto y se
+        // vuelve a leer el texto, como hace Literals con los enteros que no caben
+        return Double.parseDouble(whole.getValue() + "." + fraction.getValue());
+    }
+    
+    // Valor de entero.fracción (digits dígitos decimales) a partir de las partes ya
+    // decodificadas: (|entero| * 10^d + fracción) / 10^d, con una sola división
+    // redondeada. Devuelve null si el resultado no sería exacto.
+    private static Double exactDecimal(long whole, boolean negative, long fraction, int digits) {
+        if (digits > 22) {
+            return null;
+        }
+        try {
+            long scale = 1;
+            for (int i = 0; i < digits; i++) {
+                scale = Math.multiplyExact(scale, 10L);
+            }
+            long magnitude = Math.addExact(Math.multiplyExact(Math.absExact(whole), scale), fraction);
+            if (magnitude >= (1L << 53)) {
+                return null;
+            }
+            double value = (double) magnitude / scale;
+            return negative ? -value : value;
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+    
+    // -?[0-9]+ (sin prefijos 0x, 0o ni 0b)
+    private boolean isDecimalDigits(String value) {
+        int i = value.startsWith("-") ? 1 : 0;
+        if (i == value.length()) {
+            return false;
+        }
+        for (; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     // Método para evaluar una expresión aritmética con valores reales
     private String evaluateExpression(String expr, java.util.Map<String, Double> variables) {
         try {
-            // Reemplazar variables por sus valores
-            String evaluatedExpr = expr;
-            for (java.util.Map.Entry<String, Double> entry : variables.entrySet()) {
-                String varName = entry.getKey();
-                Double value = entry.getValue();
-                
-                // Reemplazar la variable con su valor (asegurarse de reemplazar palabras completas)
-                evaluatedExpr = evaluatedExpr.replaceAll("\\b" + varName + "\\b", 
-                    value % 1 == 0 ? String.valueOf(value.intValue()) : String.valueOf(value));
+            // Texto con las variables reemplazadas por sus valores (solo para mostrarlo);
+            // el evaluador lee los valores directamente del mapa
+            StringBuilder shown = new StringBuilder(expr.length());
+            int i = 0;
+            while (i < expr.length()) {
+                int wordEnd = i;
+                while (wordEnd < expr.length() && isWordChar(expr.charAt(wordEnd))) {
+                    wordEnd++;
+                }
+                if (wordEnd == i) {
+                    shown.append(expr.charAt(i++));
+                    continue;
+                }
+                String word = expr.substring(i, wordEnd);
+                Double value = variables.get(word);
+                shown.append(value == null ? word
+                    : value % 1 == 0 ? String.valueOf(value.intValue()) : String.valueOf(value));
+                i = wordEnd;
             }
+            String evaluatedExpr = shown.toString();
             
-            // Evaluar la expresión resultante
-            double result = evaluateArithmeticExpression(evaluatedExpr);
+            // Evaluar la expresión
+            double result = evaluateArithmeticExpression(expr, variables);
             
             // Formatear el resultado
             if (result % 1 == 0) {
@@ -460,8 +558,12 @@ public class IDEFrame extends JFrame {
         }
     }
     
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+    
     // Método para evaluar expresiones aritméticas simples
-    private double evaluateArithmeticExpression(String expr) throws Exception {
+    private double evaluateArithmeticExpression(String expr, java.util.Map<String, Double> variables) throws Exception {
         // Eliminar espacios
         final String expression = expr.replaceAll("\\s+", "");
         
@@ -518,11 +620,13 @@ public class IDEFrame extends JFrame {
                     x = parseExpression();
                     eat(')');
                 } else if ((ch >= '0' && ch <= '9') || ch == '.') {
-                    while ((ch >= '0' && ch <= '9') || ch == '.') nextChar();
-                    x = Double.parseDouble(expression.substring(startPos, this.pos));
-                } else if (ch >= 'a' && ch <= 'z') {
-                    while (ch >= 'a' && ch <= 'z') nextChar();
-                    throw new Exception("Variable not substituted: " + expression.substring(startPos, this.pos));
+                    x = parseNumber(startPos);
+                } else if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || ch == '_') {
+                    while (ch != -1 && isWordChar((char) ch)) nextChar();
+                    String name = expression.substring(startPos, this.pos);
+                    Double value = variables.get(name);
+                    if (value == null) throw new Exception("Variable not substituted: " + name);
+                    x = value;
                 } else {
                     throw new Exception("Unexpected: " + (char)ch);
                 }
@@ -531,6 +635,31 @@ public class IDEFrame extends JFrame {
                 
                 return x;
             }
+            
+            // [0-9]*(.[0-9]*)? desde start. Las partes se decodifican con Literals, igual
+            // que los literales del lexer; solo un decimal sin valor exacto vuelve al texto.
+            double parseNumber(int start) throws Exception {
+                while (ch >= '0' && ch <= '9') nextChar();
+                int dot = this.pos;
+                if (ch != '.') {
+                    return Literals.integerToDouble(expression, start, dot);
+                }
+                nextChar();
+                while (ch >= '0' && ch <= '9') nextChar();
+                int end = this.pos;
+                if (dot == start && end == dot + 1) throw new Exception("Unexpected: .");
+                try {
+                    long whole = dot == start ? 0 : Literals.parseInteger(expression, start, dot);
+                    long fraction = end == dot + 1 ? 0 : Literals.parseInteger(expression, dot + 1, end);
+                    Double value = exactDecimal(whole, false, fraction, end - dot - 1);
+                    if (value != null) {
+                        return value;
+                    }
+                } catch (ArithmeticException e) {
+                    // Una parte no cabe en un long
+                }
+                return Double.parseDouble(expression.substring(start, end));
+            }
         }.parse();
     }
     
@@ -717,111 +846,74 @@ public class IDEFrame extends JFrame {
     // Método para buscar expresiones aritméticas en el AST
     private List<ExpressionResult> findArithmeticExpressions(AstNode node, ArithmeticExpressionConverter converter) {
         List<ExpressionResult> results = new ArrayList<>();
-        findArithmeticExpressionsRecursive(node, converter, results);
+        // Todas las operaciones binarias, en preorden (también las anidadas en otras)
+        AstWalker.preOrder(node, n -> {
+            if (n instanceof BinaryOpNode) {
+                addArithmeticExpression(n, converter, results);
+            }
+        });
         return results;
     }
     
-    private void findArithmeticExpressionsRecursive(AstNode node, ArithmeticExpressionConverter converter, List<ExpressionResult> results) {
-        if (node == null) return;
-        
-        String className = node.getClass().getSimpleName();
-        
-        // Si encontramos una expresión binaria (aritmética)
-        if ("BinaryOpNode".equals(className)) {
-            try {
-                // Obtener la representación original de la expresión
-                String original = getExpressionString(node);
-                
-                // Convertir a prefijo
-                String prefix = converter.convertToPrefix(node);
-                
-                // Generar tripletas
-                converter.resetTemporals();
-                ArithmeticExpressionConverter.ConversionResult triplets = converter.convertToTriplets(node);
-                
-                results.add(new ExpressionResult(original, prefix, triplets));
-                
-            } catch (Exception e) {
-                // Si hay error al procesar una expresión, continuar con las otras
-                System.err.println("Error procesando expresión: " + e.getMessage());
-            }
-        }
-        
-        // Buscar recursivamente en subnodos usando reflexión
+    private void addArithmeticExpression(AstNode node, ArithmeticExpressionConverter converter, List<ExpressionResult> results) {
         try {
-            java.lang.reflect.Field[] fields = node.getClass().getFields();
-            for (java.lang.reflect.Field field : fields) {
-                if (AstNode.class.isAssignableFrom(field.getType())) {
-                    AstNode subNode = (AstNode) field.get(node);
-                    findArithmeticExpressionsRecursive(subNode, converter, results);
-                } else if (List.class.isAssignableFrom(field.getType())) {
-                    Object listObj = field.get(node);
-                    if (listObj instanceof List) {
-                        List<?> list = (List<?>) listObj;
-                        for (Object item : list) {
-                            if (item instanceof AstNode) {
-                                findArithmeticExpressionsRecursive((AstNode) item, converter, results);
-                            }
-                        }
-                    }
-                }
-            }
+            // Obtener la representación original de la expresión
+            String original = getExpressionString(node);
+            
+            // Convertir a prefijo
+            String prefix = converter.convertToPrefix(node);
+            
+            // Generar tripletas
+            converter.resetTemporals();
+            ArithmeticExpressionConverter.ConversionResult triplets = converter.convertToTriplets(node);
+            
+            results.add(new ExpressionResult(original, prefix, triplets));
+            
         } catch (Exception e) {
-            // Ignorar errores de reflexión
+            // Si hay error al procesar una expresión, continuar con las otras
+            System.err.println("Error procesando expresión: " + e.getMessage());
         }
     }
     
     // Método para obtener representación string de una expresión
     private String getExpressionString(AstNode node) {
         if (node == null) return "";
-        
-        String className = node.getClass().getSimpleName();
-        
-        try {
-            if ("LiteralNode".equals(className)) {
-                java.lang.reflect.Field tokenField = node.getClass().getField("token");
-                Object token = tokenField.get(node);
-                return token.getClass().getMethod("getValue").invoke(token).toString();
-            }
-            
-            if ("IdentifierNode".equals(className)) {
-                java.lang.reflect.Field nameField = node.getClass().getField("name");
-                return (String) nameField.get(node);
-            }
-            
-            if ("BinaryOpNode".equals(className)) {
-                java.lang.reflect.Field opField = node.getClass().getField("op");
-                java.lang.reflect.Field leftField = node.getClass().getField("left");
-                java.lang.reflect.Field rightField = node.getClass().getField("right");
-                
-                String op = (String) opField.get(node);
-                AstNode left = (AstNode) leftField.get(node);
-                AstNode right = (AstNode) rightField.get(node);
-                
-                String leftStr = getExpressionString(left);
-                String rightStr = getExpressionString(right);
-                
+        // Pila explícita de pendientes (texto o nodo), sin límite de profundidad
+        StringBuilder sb = new StringBuilder();
+        java.util.Deque<Object> pending = new java.util.ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Object next = pending.pop();
+            if (next instanceof BinaryOpNode) {
+                BinaryOpNode op = (BinaryOpNode) next;
                 // Determinar si necesita paréntesis (simplificado)
-                return "(" + leftStr + " " + op + " " + rightStr + ")";
+                pending.push(")");
+                pending.push(op.getRight());
+                pending.push(" " + op.getOp() + " ");
+                pending.push(op.getLeft());
+                sb.append("(");
+            } else if (next instanceof AstNode) {
+                sb.append(((AstNode) next).accept(OPERAND_STRING));
+            } else {
+                sb.append((String) next);
             }
-        } catch (Exception e) {
-            return "expresión";
         }
-        
-        return "";
+        return sb.toString();
     }
+    
+    private static final AstVisitor<String> OPERAND_STRING = new AstVisitor<String>() {
+        @Override public String visitNode(AstNode node) { return ""; }
+        @Override public String visitLiteral(LiteralNode node) { return node.getToken().getValue(); }
+        @Override public String visitIdentifier(IdentifierNode node) { return node.getName(); }
+    };
 
     // Nuevo: ejecutar lexer + parser y mostrar árbol o errores
     private void runParser() {
         long startTime = System.currentTimeMillis();
         
-        HaskellLexer lexer = new HaskellLexer();
-        String code = codeEditor.getText();
-        List<Token> tokens = lexer.tokenize(code);
-        Parser parser = new Parser(tokens);
-        
         try {
-            AstNode program = parser.parseProgram();
+            // Solo se analizan de nuevo las declaraciones afectadas por las ediciones
+            AstNode program = incrementalParser.parse(incrementalLexer);
             String tree = program.toTreeString();
             
             long endTime = System.currentTimeMillis();
@@ -0,0 +1,92 @@
+package proyecto.lenguaje.lexer;
+
+import java.util.Arrays;
+
+/**
+ * Pares de paréntesis y de llaves de un TokenBuffer, calculados en una sola
+ * pasada con una pila por tipo de delimitador.
+ *
+ * match guarda, para cada apertura, el índice de su cierre y, para cada
+ * cierre, el de su apertura (-1 si no tiene par). Los paréntesis y las llaves
+ * se emparejan por separado, como al contar el balance de cada uno: un cierre
+ * sin apertura pendiente se ignora. También se guardan, en orden, los índices
+ * de las aperturas, para encontrar la siguiente a partir de una posición con
+ * una búsqueda binaria en lugar de recorrer los tokens.
+ */
+final class BracketIndex {
+    private final int[] match;
+    private final int[] parens;   // tokens TUPLE_START "("
+    private final int[] braces;   // tokens SYMBOL "{"
+
+    BracketIndex(TokenBuffer tokens) {
+        int size = tokens.size();
+        match = new int[size];
+        Arrays.fill(match, -1);
+        int[] parenStack = new int[16];
+        int parenDepth = 0;
+        int[] braceStack = new int[16];
+        int braceDepth = 0;
+        int[] parenOpens = new int[16];
+        int parenCount = 0;
+        int[] braceOpens = new int[16];
+        int braceCount = 0;
+
+        for (int i = 0; i < size; i++) {
+            Token.Type type = tokens.getType(i);
+            if (type == Token.Type.TUPLE_START || tokens.valueEquals(i, "(")) {
+                if (parenDepth == parenStack.length) parenStack = Arrays.copyOf(parenStack, parenDepth * 2);
+                parenStack[parenDepth++] = i;
+                if (type == Token.Type.TUPLE_START && tokens.valueEquals(i, "(")) {
+                    if (parenCount == parenOpens.length) parenOpens = Arrays.copyOf(parenOpens, parenCount * 2);
+                    parenOpens[parenCount++] = i;
+                }
+            } else if (type == Token.Type.TUPLE_END || tokens.valueEquals(i, ")")) {
+                if (parenDepth > 0) {
+                    pair(parenStack[--parenDepth], i);
+                }
+            }
+            if (tokens.valueEquals(i, "{")) {
+                if (braceDepth == braceStack.length) braceStack = Arrays.copyOf(braceStack, braceDepth * 2);
+                braceStack[braceDepth++] = i;
+                if (type == Token.Type.SYMBOL) {
+                    if (braceCount == braceOpens.length) braceOpens = Arrays.copyOf(braceOpens, braceCount * 2);
+                    braceOpens[braceCount++] = i;
+                }
+            } else if (tokens.valueEquals(i, "}")) {
+                if (braceDepth > 0) {
+                    pair(braceStack[--braceDepth], i);
+                }
+            }
+        }
+        parens = Arrays.copyOf(parenOpens, parenCount);
+        braces = Arrays.copyOf(braceOpens, braceCount);
+    }
+
+    private void pair(int open, int close) {
+        match[open] = close;
+        match[close] = open;
+    }
+
+    /** El otro extremo del paréntesis o llave index, o -1 si no tiene par. */
+    int matchOf(int index) {
+        return match[index];
+    }
+
+    /** Primer "(" (TUPLE_START) en from o después, o -1. */
+    int nextParen(int from) {
+        return next(parens, from);
+    }
+
+    /** Primer "{" (SYMBOL) en from o después, o -1. */
+    int nextBrace(int from) {
+        return next(braces, from);
+    }
+
+    private static int next(int[] opens, int from) {
+        int index = Arrays.binarySearch(opens, from);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < opens.length ? opens[index] : -1;
+    }
+}
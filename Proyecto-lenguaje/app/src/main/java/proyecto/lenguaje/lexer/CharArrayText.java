@@ -0,0 +1,11 @@
+package proyecto.lenguaje.lexer;
+
+/**
+ * Texto respaldado por un arreglo de chars, con índices absolutos: el carácter
+ * i está en array()[i - base()]. El lexer lo usa para las búsquedas
+ * vectorizadas de VectorScan.
+ */
+interface CharArrayText extends CharSequence {
+    char[] array();
+    int base();
+}
@@ -1,183 +1,389 @@
 package proyecto.lenguaje.lexer;
 
 import java.util.*;
-import java.util.regex.*;
 
+/**
+ * Analizador léxico de una sola pasada.
+ *
+ * Recorre la entrada con desplazamientos sobre el String original (sin copiar
+ * el resto de la entrada en cada token), por lo que el tiempo es lineal.
+ * Cada rama reproduce exactamente la semántica de los patrones regulares que
+ * usaba la versión anterior, en el mismo orden de prioridad:
+ * KEYWORD, BOOLEAN, IDENTIFIER_VAR, IDENTIFIER_TYPE, INTEGER, FLOAT, STRING,
+ * CHAR, OPERATOR, LIST_START/END, TUPLE_START/END y SYMBOL.
+ */
 public class HaskellLexer {
-    private static final Map<Token.Type, Pattern> patterns = new LinkedHashMap<>();
+    // Keywords de Haskell (incluye tipos básicos y ciclos hipotéticos)
+    private static final String[] KEYWORDS = {
+        "let", "in", "if", "then", "else", "case", "of", "data", "type", "where", "module", "import",
+        "deriving", "class", "instance", "newtype", "do", "default", "foreign", "forall", "hiding",
+        "qualified", "as", "family", "role", "pattern", "static", "stock", "anyclass", "via",
+        "Int", "Integer", "Float", "Double", "Bool", "Char", "String", "while", "for", "loop", "ciclo"
+    };
+
+    // Booleanos
+    private static final String[] BOOLEANS = { "True", "False" };
+
+    // Palabras reservadas: ids [0, KEYWORDS.length) son keywords y los siguientes, booleanos.
+    // Solo se consulta (nunca se modifica), así que puede compartirse entre lexers.
+    private static final SymbolTable RESERVED = new SymbolTable(KEYWORDS.length + BOOLEANS.length);
     static {
-        // Keywords de Haskell (incluye tipos básicos y ciclos hipotéticos)
-        patterns.put(Token.Type.KEYWORD, Pattern.compile("\\b(let|in|if|then|else|case|of|data|type|where|module|import|deriving|class|instance|newtype|do|default|foreign|forall|hiding|qualified|as|family|role|pattern|static|stock|anyclass|via|Int|Integer|Float|Double|Bool|Char|String|while|for|loop|ciclo)\\b"));
-        
-        // Booleanos
-        patterns.put(Token.Type.BOOLEAN, Pattern.compile("\\b(True|False)\\b"));
-        
-        // Identificadores de variables y funciones (comienzan con minúscula)
-        patterns.put(Token.Type.IDENTIFIER_VAR, Pattern.compile("\\b[a-z][a-zA-Z0-9_']*\\b"));
-        
-        // Identificadores de tipos y constructores (comienzan con mayúscula)
-        patterns.put(Token.Type.IDENTIFIER_TYPE, Pattern.compile("\\b[A-Z][a-zA-Z0-9_']*\\b"));
-        
-        // Números enteros (incluye negativos, hexadecimal, octal y binario)
-        patterns.put(Token.Type.INTEGER, Pattern.compile("-?\\b\\d+\\b|\\b0[xX][0-9a-fA-F]+\\b|\\b0[oO][0-7]+\\b|\\b0[bB][01]+\\b"));
-        
-        // Números decimales (incluye notación científica)
-        patterns.put(Token.Type.FLOAT, Pattern.compile("-?\\b\\d+\\.\\d+(?:[eE][-+]?\\d+)?\\b"));
-        
-        // Strings (con escape sequences)
-        patterns.put(Token.Type.STRING, Pattern.compile("\"([^\"\\\\]|\\\\.)*\""));
-        
-        // Caracteres (con escape sequences)
-        patterns.put(Token.Type.CHAR, Pattern.compile("'([^'\\\\]|\\\\.)'"));
-        // Operadores válidos en Haskell
-        patterns.put(Token.Type.OPERATOR, Pattern.compile("(\\+\\+|\\.|::|->|<-|<=|>=|==|/=|&&|\\|\\||\\$|[-+*/=<>:|&!])+"));
-        
-        // Símbolos para listas y tuplas
-        patterns.put(Token.Type.LIST_START, Pattern.compile("\\["));
-        patterns.put(Token.Type.LIST_END, Pattern.compile("\\]"));
-        patterns.put(Token.Type.TUPLE_START, Pattern.compile("\\("));
-        patterns.put(Token.Type.TUPLE_END, Pattern.compile("\\)"));
-        
-        // Otros símbolos de separación
-        patterns.put(Token.Type.SYMBOL, Pattern.compile("[,;{}]"));
+        for (String keyword : KEYWORDS) {
+            RESERVED.intern(keyword);
+        }
+        for (String bool : BOOLEANS) {
+            RESERVED.intern(bool);
+        }
     }
 
+    // Nombres de identificadores vistos por este lexer (una instancia por nombre)
+    private final SymbolTable symbols = new SymbolTable();
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    // A partir de este tamaño conviene copiar la entrada a un char[] para usar VectorScan
+    private static final int VECTOR_THRESHOLD = 4096;
+
     public List<Token> tokenize(String input) {
         List<Token> tokens = new ArrayList<>();
-        int pos = 0;
-        int line = 1;
-        
-        while (pos < input.length()) {
-            boolean matched = false;
+        CharSequence text = asScanInput(input);
+        Cursor cursor = new Cursor(0, 1);
+        Token token;
+        while ((token = nextToken(text, cursor)) != null) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Igual que tokenize, pero guarda los tokens en un TokenBuffer (arreglos
+     * primitivos) sin crear un objeto Token ni un String por token.
+     */
+    public TokenBuffer tokenizeToBuffer(String input) {
+        return scanInto(new TokenBuffer(input, symbols), asScanInput(input));
+    }
+
+    /** Igual que tokenizeToBuffer, pero con los tokens fuera del heap, en el almacén dado. */
+    public TokenBuffer tokenizeToBuffer(String input, OffHeapStore store) {
+        return scanInto(new TokenBuffer(input, symbols, store), asScanInput(input));
+    }
+
+    /**
+     * Analiza un texto UTF-8 (p. ej. un archivo mapeado con Utf8Text.map) sin
+     * decodificarlo a un String. Las posiciones de los tokens son índices de
+     * chars, como con un String; Utf8Text.byteOffset las convierte a bytes.
+     * El texto debe seguir abierto mientras se use el buffer.
+     */
+    public TokenBuffer tokenizeToBuffer(Utf8Text input) {
+        return scanInto(new TokenBuffer(input, symbols), input);
+    }
+
+    public TokenBuffer tokenizeToBuffer(Utf8Text input, OffHeapStore store) {
+        return scanInto(new TokenBuffer(input, symbols, store), input);
+    }
+
+    private TokenBuffer scanInto(TokenBuffer buffer, CharSequence text) {
+        Cursor cursor = new Cursor(0, 1);
+        Token.Type type;
+        while ((type = scan(text, cursor)) != null) {
+            buffer.add(type, cursor.tokenStart, cursor.pos, cursor.tokenLine, cursor.tokenSymbol);
+        }
+        return buffer;
+    }
+
+    private static CharSequence asScanInput(String input) {
+        if (VectorScan.isEnabled() && input.length() >= VECTOR_THRESHOLD) {
+            return new ArrayInput(input.toCharArray());
+        }
+        return input;
+    }
+
+    // Copia de la entrada en un arreglo, para las búsquedas vectorizadas
+    private static final class ArrayInput implements CharArrayText {
+        private final char[] chars;
+
+        ArrayInput(char[] chars) {
+            this.chars = chars;
+        }
+
+        @Override public char[] array() { return chars; }
+        @Override public int base() { return 0; }
+        @Override public int length() { return chars.length; }
+        @Override public char charAt(int index) { return chars[index]; }
+        @Override public CharSequence subSequence(int start, int end) { return new String(chars, start, end - start); }
+        @Override public String toString() { return new String(chars); }
+    }
+
+    /**
+     * Estado del lexer entre dos tokens: desplazamiento actual, línea actual y
+     * alcance (el índice más lejano que se ha leído hasta ahora, incluyendo la
+     * anticipación de cada token). Como el reconocimiento no mira nada anterior
+     * a la posición actual, el lexer puede reanudarse desde cualquier par
+     * (posición, línea) que haya alcanzado antes.
+     */
+    public static final class Cursor {
+        private int pos;
+        private int line;
+        private int reach;
+        // Inicio, línea y texto compartido (si lo hay) del último token reconocido
+        private int tokenStart;
+        private int tokenLine;
+        private String tokenText;
+        private int tokenSymbol = -1;
+
+        public Cursor(int pos, int line) {
+            this.pos = pos;
+            this.line = line;
+            this.reach = pos - 1;
+        }
+
+        public int getPosition() { return pos; }
+        public int getLine() { return line; }
+        public int getReach() { return reach; }
+
+        private void touch(int index) {
+            if (index > reach) reach = index;
+        }
+    }
+
+    /**
+     * Reconoce el siguiente token a partir del cursor y lo avanza.
+     * Devuelve null al llegar al final de la entrada.
+     * Los índices de la entrada son absolutos: solo se leen posiciones a partir
+     * de la del cursor (ver StreamingLexer, que pasa una ventana deslizante).
+     */
+    public Token nextToken(CharSequence input, Cursor cursor) {
+        Token.Type type = scan(input, cursor);
+        if (type == null) {
+            return null;
+        }
+        String value = cursor.tokenText != null
+            ? cursor.tokenText : input.subSequence(cursor.tokenStart, cursor.pos).toString();
+        return new Token(type, value, cursor.tokenStart, cursor.tokenLine);
+    }
+
+    /**
+     * Reconoce el siguiente token y devuelve su tipo (null al final de la
+     * entrada). El token ocupa [cursor.tokenStart, cursor.pos). Para keywords,
+     * booleanos e identificadores deja además en el cursor el String compartido
+     * (y el id de símbolo de los identificadores).
+     */
+    Token.Type scan(CharSequence input, Cursor cursor) {
+        final int length = input.length();
+        // Con un texto respaldado por arreglo, los espacios y comentarios se saltan con VectorScan
+        final char[] chars = input instanceof CharArrayText && VectorScan.isEnabled() ? ((CharArrayText) input).array() : null;
+        final int base = chars != null ? ((CharArrayText) input).base() : 0;
+        int pos = cursor.pos;
+        int line = cursor.line;
+        Token.Type found = null;
+        int tokenStart = pos;
+        String text = null;
+        int symbol = -1;
+
+        while (found == null && pos < length) {
             char currentChar = input.charAt(pos);
-            
+            // '-' y '{' miran el carácter siguiente para detectar comentarios
+            cursor.touch(currentChar == '-' || currentChar == '{' ? pos + 1 : pos);
+
             // Manejar espacios en blanco y saltos de línea
             if (Character.isWhitespace(currentChar)) {
+                if (chars != null) {
+                    int end = VectorScan.skipSpaces(chars, pos - base, length - base) + base;
+                    if (end > pos) {
+                        line += VectorScan.countNewlines(chars, pos - base, end - base);
+                        cursor.touch(end - 1);
+                        pos = end;
+                        continue;
+                    }
+                }
                 if (currentChar == '\n') {
                     line++;
                 }
                 pos++;
                 continue;
             }
-            
+
             // Manejar comentarios de línea (prioridad alta para evitar conflictos con operadores)
-            if (pos < input.length() - 1 && input.charAt(pos) == '-' && input.charAt(pos + 1) == '-') {
-                // Verificar que no sea parte de un operador más largo (como -->)
-                // En Haskell, -- siempre es comentario, no necesita verificación adicional
-                
-                // Buscar el final de la línea
-                int endComment = input.indexOf('\n', pos);
-                if (endComment == -1) {
-                    // Si no hay más saltos de línea, el comentario va hasta el final
-                    pos = input.length();
-                } else {
-                    // Posicionar en el salto de línea (será procesado en la siguiente iteración)
-                    pos = endComment;
+            if (pos < length - 1 && currentChar == '-' && input.charAt(pos + 1) == '-') {
+                // En Haskell, -- siempre es comentario: saltar hasta el salto de línea
+                // (el salto será procesado en la siguiente iteración)
+                if (chars != null) {
+                    pos = VectorScan.indexOf(chars, '\n', pos - base, length - base) + base;
                 }
+                while (pos < length && input.charAt(pos) != '\n') {
+                    pos++;
+                }
+                cursor.touch(pos);
                 continue;
             }
-            
-            // Manejar comentarios multilínea
-            if (pos < input.length() - 1 && input.charAt(pos) == '{' && input.charAt(pos + 1) == '-') {
+
+            // Manejar comentarios multilínea (anidables)
+            if (pos < length - 1 && currentChar == '{' && input.charAt(pos + 1) == '-') {
                 pos += 2;
                 int depth = 1;
-                while (pos < input.length() - 1 && depth > 0) {
-                    if (input.charAt(pos) == '{' && input.charAt(pos + 1) == '-') {
+                while (pos < length - 1 && depth > 0) {
+                    if (chars != null) {
+                        // Saltar hasta el próximo carácter que pueda abrir o cerrar un bloque, o cambiar de línea
+                        pos = VectorScan.indexOfAny(chars, '{', '-', '\n', pos - base, length - 1 - base) + base;
+                        if (pos >= length - 1) {
+                            break;
+                        }
+                    }
+                    char c = input.charAt(pos);
+                    if (c == '{' && input.charAt(pos + 1) == '-') {
                         depth++;
                         pos += 2;
-                    } else if (input.charAt(pos) == '-' && input.charAt(pos + 1) == '}') {
+                    } else if (c == '-' && input.charAt(pos + 1) == '}') {
                         depth--;
                         pos += 2;
                     } else {
-                        if (input.charAt(pos) == '\n') {
+                        if (c == '\n') {
                             line++;
                         }
                         pos++;
                     }
                 }
+                cursor.touch(depth > 0 ? length : pos - 1);
                 continue;
             }
-            
-            // NUEVA LÓGICA: Detectar secuencias que parecen identificadores pero con caracteres inválidos
+
+            // Detectar secuencias que parecen identificadores pero con caracteres inválidos
             if (Character.isLetter(currentChar) || currentChar == '_') {
-                String sequence = extractIdentifierSequence(input, pos);
-                
-                // Verificar si la secuencia contiene caracteres inválidos
-                if (containsInvalidChars(sequence)) {
-                    tokens.add(new Token(Token.Type.ERROR, sequence, pos, line));
-                    pos += sequence.length();
+                int sequenceEnd = scanSequenceEnd(input, pos);
+                cursor.touch(sequenceEnd);
+                if (containsInvalidChars(input, pos, sequenceEnd)) {
+                    found = Token.Type.ERROR;
+                    tokenStart = pos;
+                    pos = sequenceEnd;
                     continue;
                 }
-                
-                // Si la secuencia es válida, continuar con el matching normal
-                // (el bucle de patrones la procesará)
-            }
-            
-            // Intentar hacer match con los patrones regulares
-            for (Map.Entry<Token.Type, Pattern> entry : patterns.entrySet()) {
-                Matcher m = entry.getValue().matcher(input.substring(pos));
-                if (m.lookingAt()) {
-                    String tokenValue = m.group();
-                    tokens.add(new Token(entry.getKey(), tokenValue, pos, line));
-                    pos += m.end();
-                    matched = true;
-                    break;
+                // Si la secuencia es válida, continuar con el reconocimiento normal
+            }
+
+            int end = -1;
+            Token.Type type = null;
+
+            if (isAsciiLetter(currentChar)) {
+                // Palabras reservadas y booleanos tienen prioridad sobre identificadores
+                int wordEnd = scanAsciiWord(input, pos);
+                cursor.touch(wordEnd + 1);
+                if (!isWordAt(input, wordEnd, pos)) {
+                    int reserved = RESERVED.find(input, pos, wordEnd);
+                    if (reserved != -1) {
+                        type = reserved < KEYWORDS.length ? Token.Type.KEYWORD : Token.Type.BOOLEAN;
+                        end = wordEnd;
+                        text = RESERVED.name(reserved);
+                    }
+                }
+                if (type == null) {
+                    end = scanIdentifier(input, pos, cursor);
+                    if (end != -1) {
+                        type = currentChar >= 'a' && currentChar <= 'z'
+                            ? Token.Type.IDENTIFIER_VAR : Token.Type.IDENTIFIER_TYPE;
+                        symbol = symbols.intern(input, pos, end);
+                        text = symbols.name(symbol);
+                    }
+                }
+            } else if (isDigit(currentChar) || (currentChar == '-' && pos + 1 < length && isDigit(input.charAt(pos + 1)))) {
+                // Números enteros (incluye negativos, hexadecimal, octal y binario).
+                // Un decimal "1.5" se reconoce como INTEGER, OPERATOR(.) e INTEGER,
+                // igual que con la prioridad de patrones original.
+                end = scanInteger(input, pos, cursor);
+                if (end != -1) {
+                    type = Token.Type.INTEGER;
+                }
+            } else if (currentChar == '"') {
+                end = scanQuoted(input, pos, cursor);
+                if (end != -1) {
+                    type = Token.Type.STRING;
+                }
+            } else if (currentChar == '\'') {
+                end = scanChar(input, pos, cursor);
+                if (end != -1) {
+                    type = Token.Type.CHAR;
+                }
+            }
+
+            if (type == null) {
+                if (isOperatorChar(currentChar)) {
+                    // Operadores válidos en Haskell (secuencia maximal)
+                    end = pos + 1;
+                    while (end < length && isOperatorChar(input.charAt(end))) {
+                        end++;
+                    }
+                    cursor.touch(end);
+                    type = Token.Type.OPERATOR;
+                } else if (currentChar == '[') {
+                    type = Token.Type.LIST_START;
+                    end = pos + 1;
+                } else if (currentChar == ']') {
+                    type = Token.Type.LIST_END;
+                    end = pos + 1;
+                } else if (currentChar == '(') {
+                    type = Token.Type.TUPLE_START;
+                    end = pos + 1;
+                } else if (currentChar == ')') {
+                    type = Token.Type.TUPLE_END;
+                    end = pos + 1;
+                } else if (currentChar == ',' || currentChar == ';' || currentChar == '{' || currentChar == '}') {
+                    type = Token.Type.SYMBOL;
+                    end = pos + 1;
                 }
             }
-            
-            // Si no se encontró match, tratar como secuencia de caracteres inválidos
-            if (!matched) {
-                String invalidSequence = extractInvalidSequence(input, pos, line);
-                tokens.add(new Token(Token.Type.ERROR, invalidSequence, pos, line));
-                pos += invalidSequence.length();
+
+            if (type == null) {
+                // Si no se encontró match, tratar como secuencia de caracteres inválidos
+                type = Token.Type.ERROR;
+                end = extractInvalidSequence(input, pos);
+                cursor.touch(end);
             }
+            found = type;
+            tokenStart = pos;
+            pos = end;
         }
-        return tokens;
+
+        cursor.pos = pos;
+        cursor.line = line;
+        cursor.tokenStart = tokenStart;
+        cursor.tokenLine = line;
+        cursor.tokenText = text;
+        cursor.tokenSymbol = symbol;
+        return found;
     }
-    
-    // Método para extraer una secuencia que parece un identificador
-    private String extractIdentifierSequence(String input, int startPos) {
-        StringBuilder sequence = new StringBuilder();
+
+    // Fin de la secuencia que parece un identificador (hasta espacio o separador definitivo)
+    private int scanSequenceEnd(CharSequence input, int startPos) {
         int pos = startPos;
-        
         while (pos < input.length()) {
             char c = input.charAt(pos);
-            
-            // Parar en espacios en blanco
-            if (Character.isWhitespace(c)) {
-                break;
-            }
-            
-            // Parar en operadores y separadores válidos específicos
-            if (isDefinitiveSeparator(c)) {
+            if (Character.isWhitespace(c) || isDefinitiveSeparator(c)) {
                 break;
             }
-            
-            sequence.append(c);
             pos++;
         }
-        
-        return sequence.toString();
+        return pos;
     }
-    
+
     // Método para verificar separadores definitivos (que claramente terminan un identificador)
     private boolean isDefinitiveSeparator(char c) {
         return c == '(' || c == ')' || c == '[' || c == ']' || c == '{' || c == '}' ||
                c == ',' || c == ';' || c == '=' || c == ':' || c == '|' || c == '\\' ||
                c == '"' || c == '\''|| c == '\n' || c == '\r' || c == '\t';
     }
-    
-    // Método mejorado para verificar si un token contiene caracteres inválidos
-    private boolean containsInvalidChars(String token) {
-        for (int i = 0; i < token.length(); i++) {
-            char c = token.charAt(i);
+
+    // Verifica si la secuencia [start, end) contiene caracteres inválidos para un identificador
+    private boolean containsInvalidChars(CharSequence input, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
             // Para el primer carácter, debe ser letra o underscore
-            if (i == 0 && !Character.isLetter(c) && c != '_') {
+            if (i == start && !Character.isLetter(c) && c != '_') {
                 return true;
             }
             // Para el resto, verificar caracteres inválidos específicos
-            if (c == '@' || c == '#' || c == '$' || c == '%' || c == '&' || 
-                c == '*' || c == '+' || c == '-' || c == '/' || c == '?' || 
+            if (c == '@' || c == '#' || c == '$' || c == '%' || c == '&' ||
+                c == '*' || c == '+' || c == '-' || c == '/' || c == '?' ||
                 c == '!' || c == '^' || c == '~' || c == '`' || c == '|' ||
                 c == '<' || c == '>' || c == '=' || c == '{' || c == '}' ||
                 c == '[' || c == ']' || c == '(' || c == ')' || c == '\\' ||
@@ -187,30 +393,186 @@ public class HaskellLexer {
         }
         return false;
     }
-    
-    // Método para extraer secuencia completa de caracteres inválidos
-    private String extractInvalidSequence(String input, int startPos, int line) {
-        StringBuilder invalidSeq = new StringBuilder();
+
+    // Fin de la secuencia de caracteres inválidos (al menos un carácter)
+    private int extractInvalidSequence(CharSequence input, int startPos) {
         int pos = startPos;
-        
+
         // Continuar mientras encontremos caracteres que forman una secuencia problemática
         while (pos < input.length()) {
             char c = input.charAt(pos);
-            
-            // Parar en espacios en blanco o saltos de línea
-            if (Character.isWhitespace(c)) {
+            if (Character.isWhitespace(c) || isDefinitiveSeparator(c)) {
                 break;
             }
-            
-            // Parar en separadores válidos definitivos
-            if (isDefinitiveSeparator(c)) {
-                break;
+            pos++;
+        }
+
+        return pos > startPos ? pos : startPos + 1;
+    }
+
+    // --- reconocedores de tokens: devuelven el desplazamiento final o -1 ---
+
+    // [a-z][a-zA-Z0-9_']* o [A-Z][a-zA-Z0-9_']* terminando en frontera de palabra
+    private int scanIdentifier(CharSequence input, int start, Cursor cursor) {
+        int end = start + 1;
+        while (end < input.length() && isIdentifierPart(input.charAt(end))) {
+            end++;
+        }
+        cursor.touch(end + 1);
+        // Retroceder hasta una frontera de palabra (p. ej. "x'" termina en "x")
+        for (; end > start; end--) {
+            if (isAsciiWordChar(input.charAt(end - 1)) != isWordAt(input, end, start)) {
+                return end;
+            }
+        }
+        return -1;
+    }
+
+    // -?\d+ | 0[xX][0-9a-fA-F]+ | 0[oO][0-7]+ | 0[bB][01]+, seguidos de frontera de palabra
+    private int scanInteger(CharSequence input, int start, Cursor cursor) {
+        int length = input.length();
+        int digitsStart = input.charAt(start) == '-' ? start + 1 : start;
+        int end = digitsStart;
+        while (end < length && isDigit(input.charAt(end))) {
+            end++;
+        }
+        cursor.touch(end + 1);
+        if (!isWordAt(input, end, start)) {
+            return end;
+        }
+        if (digitsStart != start || input.charAt(start) != '0' || start + 1 >= length) {
+            return -1;
+        }
+        int radix;
+        switch (input.charAt(start + 1)) {
+            case 'x': case 'X': radix = 16; break;
+            case 'o': case 'O': radix = 8; break;
+            case 'b': case 'B': radix = 2; break;
+            default: return -1;
+        }
+        end = start + 2;
+        while (end < length && Character.digit(input.charAt(end), radix) != -1 && input.charAt(end) < 128) {
+            end++;
+        }
+        cursor.touch(end + 1);
+        if (end == start + 2 || isWordAt(input, end, start)) {
+            return -1;
+        }
+        return end;
+    }
+
+    // Strings (con escape sequences): "([^"\\]|\\.)*"
+    private int scanQuoted(CharSequence input, int start, Cursor cursor) {
+        int pos = start + 1;
+        while (pos < input.length()) {
+            char c = input.charAt(pos);
+            if (c == '"') {
+                cursor.touch(pos);
+                return pos + 1;
+            }
+            if (c == '\\') {
+                if (pos + 1 >= input.length() || isLineTerminator(input.charAt(pos + 1))) {
+                    cursor.touch(pos + 1);
+                    return -1;
+                }
+                pos += 2;
+            } else {
+                pos++;
             }
-            
-            invalidSeq.append(c);
+        }
+        cursor.touch(input.length());
+        return -1;
+    }
+
+    // Caracteres (con escape sequences): '([^'\\]|\\.)'
+    private int scanChar(CharSequence input, int start, Cursor cursor) {
+        int length = input.length();
+        int pos = start + 1;
+        // Como máximo se leen: comilla, escape, carácter (posible par sustituto) y comilla
+        cursor.touch(start + 4);
+        if (pos >= length) {
+            return -1;
+        }
+        int cp = Character.codePointAt(input, pos);
+        if (cp == '\\') {
             pos++;
+            if (pos >= length) {
+                return -1;
+            }
+            cp = Character.codePointAt(input, pos);
+            if (isLineTerminator(cp)) {
+                return -1;
+            }
+        } else if (cp == '\'') {
+            return -1;
+        }
+        pos += Character.charCount(cp);
+        return pos < length && input.charAt(pos) == '\'' ? pos + 1 : -1;
+    }
+
+    // --- clases de caracteres ---
+
+    private int scanAsciiWord(CharSequence input, int start) {
+        int end = start;
+        while (end < input.length() && isAsciiWordChar(input.charAt(end))) {
+            end++;
         }
-        
-        return invalidSeq.length() > 0 ? invalidSeq.toString() : String.valueOf(input.charAt(startPos));
+        return end;
+    }
+
+    // Carácter de palabra para las fronteras \b (ASCII, o marca no espaciadora tras letra/dígito).
+    // 'from' es el inicio del token: no se mira nada anterior a él.
+    private static boolean isWordAt(CharSequence input, int i, int from) {
+        if (i >= input.length()) {
+            return false;
+        }
+        int cp = Character.codePointAt(input, i);
+        if (cp < 128) {
+            return isAsciiWordChar((char) cp);
+        }
+        if (Character.getType(cp) != Character.NON_SPACING_MARK) {
+            return false;
+        }
+        for (int x = i; x >= from; x--) {
+            int base = Character.codePointAt(input, x);
+            if (Character.isLetterOrDigit(base)) {
+                return true;
+            }
+            if (Character.getType(base) != Character.NON_SPACING_MARK) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAsciiWordChar(char c) {
+        return isAsciiLetter(c) || isDigit(c) || c == '_';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isAsciiWordChar(c) || c == '\'';
+    }
+
+    // Caracteres que forman operadores: ++ . :: -> <- <= >= == /= && || $ y [-+*/=<>:|&!]
+    private static boolean isOperatorChar(char c) {
+        switch (c) {
+            case '-': case '+': case '*': case '/': case '=': case '<': case '>':
+            case ':': case '|': case '&': case '!': case '.': case '$':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isLineTerminator(int c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
     }
 }
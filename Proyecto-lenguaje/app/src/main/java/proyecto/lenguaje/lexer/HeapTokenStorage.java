@@ -0,0 +1,56 @@
+package proyecto.lenguaje.lexer;
+
+import java.util.Arrays;
+
+// Arreglos paralelos en el heap (el almacenamiento por defecto de TokenBuffer)
+final class HeapTokenStorage implements TokenStorage {
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    private byte[] types;
+    private int[] starts;
+    private int[] ends;
+    private int[] lines;
+    private int[] symbols;
+    private long[] literals;
+
+    HeapTokenStorage(int capacity) {
+        types = new byte[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+        lines = new int[capacity];
+        symbols = new int[capacity];
+        literals = new long[capacity];
+    }
+
+    @Override
+    public int capacity() {
+        return types.length;
+    }
+
+    @Override
+    public void grow(int capacity, int size) {
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        symbols = Arrays.copyOf(symbols, capacity);
+        literals = Arrays.copyOf(literals, capacity);
+    }
+
+    @Override
+    public void set(int index, Token.Type type, int start, int end, int line, int symbol, long literal) {
+        types[index] = (byte) type.ordinal();
+        starts[index] = start;
+        ends[index] = end;
+        lines[index] = line;
+        symbols[index] = symbol;
+        literals[index] = literal;
+    }
+
+    @Override public Token.Type type(int index) { return TYPES[types[index]]; }
+    @Override public int start(int index) { return starts[index]; }
+    @Override public int end(int index) { return ends[index]; }
+    @Override public int line(int index) { return lines[index]; }
+    @Override public int symbol(int index) { return symbols[index]; }
+    @Override public long literal(int index) { return literals[index]; }
+}
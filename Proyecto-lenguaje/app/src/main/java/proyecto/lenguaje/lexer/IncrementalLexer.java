@@ -0,0 +1,324 @@
+package proyecto.lenguaje.lexer;
+
+import java.util.*;
+
+/**
+ * Lexer incremental para el editor del IDE.
+ *
+ * Conserva el texto y la lista de tokens del documento y, ante cada edición
+ * (desplazamiento, longitud eliminada, texto insertado), vuelve a analizar
+ * solo la región afectada:
+ * - Reanuda desde el último token cuyo alcance de lectura (incluida la
+ *   anticipación) termina antes de la edición. Un punto así nunca está dentro
+ *   de un comentario {- -} ni de un string, porque es un límite entre tokens.
+ * - Se detiene en cuanto un token nuevo comienza, después de la edición, en la
+ *   misma posición (desplazada) que un token anterior: a partir de ahí el texto
+ *   es idéntico y el resto de tokens solo se desplaza en posición y línea.
+ * También mantiene el LineIndex del documento, que se actualiza con la misma
+ * edición sin volver a recorrer el texto.
+ *
+ * Para que una edición no cueste en proporción al documento, el texto se
+ * guarda en un buffer con hueco en el punto de edición, y los tokens también:
+ * los que siguen al hueco guardan su posición relativa al final del texto, que
+ * no cambia al editar antes de ellos, y comparten un desplazamiento de línea.
+ * El Token con la posición nueva se crea recién cuando se consulta. Así, editar
+ * cerca de la edición anterior solo toca la región que se analiza de nuevo.
+ */
+public final class IncrementalLexer {
+    private final HaskellLexer lexer = new HaskellLexer();
+    private final GapText text = new GapText();
+    private LineIndex lineIndex = new LineIndex("");
+    // Tokens con un hueco en [gapStart, gapEnd). Los de antes del hueco tienen
+    // posición, línea y alcance absolutos; los de después guardan en tokenEnd y
+    // reach la distancia (negativa) al final del texto y en tokenLine su línea
+    // menos tailLineShift, y su Token puede tener una posición vieja.
+    private Token[] tokens = new Token[16];
+    private int[] tokenEnd = new int[16];
+    private int[] tokenLine = new int[16];
+    // Alcance acumulado del lexer después de reconocer cada token
+    private int[] reach = new int[16];
+    private int gapStart = 0;
+    private int gapEnd = 16;
+    // Desplazamiento de línea de los tokens después del hueco (el lexer no
+    // cuenta los saltos de línea de todos los tokens, p. ej. de un string sin cerrar)
+    private int tailLineShift = 0;
+    private final List<Token> view = new TokenView();
+
+    public IncrementalLexer() {
+    }
+
+    public IncrementalLexer(String text) {
+        reset(text);
+    }
+
+    /** Analiza el documento completo desde cero. */
+    public List<Token> reset(String newText) {
+        text.set(newText);
+        lineIndex = new LineIndex(newText);
+        Arrays.fill(tokens, null);
+        gapStart = 0;
+        gapEnd = tokens.length;
+        tailLineShift = 0;
+        HaskellLexer.Cursor cursor = new HaskellLexer.Cursor(0, 1);
+        Token token;
+        while ((token = lexer.nextToken(text, cursor)) != null) {
+            append(token, cursor.getReach());
+        }
+        return getTokens();
+    }
+
+    /**
+     * Aplica una edición al documento y actualiza los tokens.
+     * @param offset desplazamiento donde comienza la edición
+     * @param removedLength cantidad de caracteres eliminados
+     * @param insertedText texto insertado (vacío si solo se eliminó)
+     * @return la lista de tokens del documento editado
+     */
+    public List<Token> applyEdit(int offset, int removedLength, String insertedText) {
+        if (offset < 0 || removedLength < 0 || offset + removedLength > text.length()) {
+            throw new IllegalArgumentException("Edición fuera del documento: offset " + offset
+                + ", eliminados " + removedLength + ", longitud " + text.length());
+        }
+        // Punto de reanudación: último token cuyo alcance no llega a la edición.
+        // Los tokens siguientes pasan detrás del hueco antes de editar el texto.
+        int keep = countTokensBefore(offset);
+        moveGap(keep);
+        text.replace(offset, removedLength, insertedText);
+        lineIndex.applyEdit(offset, removedLength, insertedText);
+        int length = text.length();
+        int editEndNew = offset + insertedText.length();
+
+        HaskellLexer.Cursor cursor;
+        if (keep == 0) {
+            cursor = new HaskellLexer.Cursor(0, 1);
+        } else {
+            Token last = tokens[keep - 1];
+            cursor = new HaskellLexer.Cursor(last.getPosition() + last.getValue().length(), last.getLine());
+        }
+
+        // El alcance se acumula (no decreciente): incluye lo leído antes del punto de reanudación
+        int maxReach = keep > 0 ? reach[keep - 1] : -1;
+        Token token;
+        while ((token = lexer.nextToken(text, cursor)) != null) {
+            int position = token.getPosition();
+            if (position >= editEndNew) {
+                // Los tokens anteriores que comenzaban antes de este ya no existen
+                while (gapEnd < tokens.length && tokenEnd[gapEnd] + length < position) {
+                    tokens[gapEnd++] = null;
+                }
+                if (gapEnd < tokens.length && tokenEnd[gapEnd] + length == position) {
+                    tailLineShift = token.getLine() - tokenLine[gapEnd];
+                    // Lo omitido antes del token (comentarios) pudo leer más allá que antes
+                    maxReach = Math.max(maxReach, cursor.getReach());
+                    // El resto se conserva detrás del hueco; como el alcance es
+                    // acumulado, solo se corrigen los primeros que quedaron por debajo
+                    for (int i = gapEnd; i < tokens.length && reach[i] + length < maxReach; i++) {
+                        reach[i] = maxReach - length;
+                    }
+                    return getTokens();
+                }
+            }
+            maxReach = Math.max(maxReach, cursor.getReach());
+            append(token, maxReach);
+        }
+        // Se llegó al final del texto: no queda ningún token anterior
+        Arrays.fill(tokens, gapEnd, tokens.length, null);
+        gapEnd = tokens.length;
+        return getTokens();
+    }
+
+    /**
+     * Tokens del documento actual. Es una vista que refleja las ediciones
+     * siguientes; los tokens desplazados por una edición se crean al consultarlos.
+     */
+    public List<Token> getTokens() {
+        return view;
+    }
+
+    public String getText() {
+        return text.toString();
+    }
+
+    /** Índice de líneas del documento actual (se actualiza en cada edición). */
+    public LineIndex getLineIndex() {
+        return lineIndex;
+    }
+
+    /**
+     * Último índice del texto que leyó el lexer hasta reconocer el token index
+     * (incluidos los tokens anteriores): el token no cambia con ediciones
+     * posteriores a ese índice.
+     */
+    public int getReach(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Índice " + index + ", tamaño " + size());
+        }
+        return index < gapStart ? reach[index] : reach[index + gapEnd - gapStart] + text.length();
+    }
+
+    private int size() {
+        return gapStart + tokens.length - gapEnd;
+    }
+
+    private Token tokenAt(int index) {
+        if (index < gapStart) {
+            return tokens[index];
+        }
+        int i = index + gapEnd - gapStart;
+        int position = tokenEnd[i] + text.length();
+        int line = tokenLine[i] + tailLineShift;
+        Token token = tokens[i];
+        if (token.getPosition() != position || token.getLine() != line) {
+            // Se guarda el token desplazado para no volver a crearlo
+            token = token.moveTo(position, line);
+            tokens[i] = token;
+        }
+        return token;
+    }
+
+    // Cantidad de tokens iniciales que no dependen de ningún carácter en o después de offset
+    private int countTokensBefore(int offset) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getReach(mid) < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Mueve el hueco de los tokens a index (en coordenadas del texto actual)
+    private void moveGap(int index) {
+        int length = text.length();
+        while (gapStart > index) {
+            Token token = tokens[--gapStart];
+            tokens[gapStart] = null;
+            tokens[--gapEnd] = token;
+            tokenEnd[gapEnd] = token.getPosition() - length;
+            tokenLine[gapEnd] = token.getLine() - tailLineShift;
+            reach[gapEnd] = reach[gapStart] - length;
+        }
+        while (gapStart < index) {
+            // Con el hueco vacío, origen y destino son la misma celda
+            Token token = tokenAt(gapStart);
+            int tokenReach = reach[gapEnd] + length;
+            tokens[gapEnd++] = null;
+            tokens[gapStart] = token;
+            reach[gapStart++] = tokenReach;
+        }
+    }
+
+    private void append(Token token, int tokenReach) {
+        if (gapStart == gapEnd) {
+            int capacity = tokens.length * 2;
+            int tail = tokens.length - gapEnd;
+            tokens = grow(tokens, capacity, tail);
+            tokenEnd = grow(tokenEnd, capacity, tail);
+            tokenLine = grow(tokenLine, capacity, tail);
+            reach = grow(reach, capacity, tail);
+            gapEnd = capacity - tail;
+        }
+        tokens[gapStart] = token;
+        reach[gapStart++] = tokenReach;
+    }
+
+    // Copia el arreglo a uno de la capacidad dada, con los tail elementos finales al final
+    private static Token[] grow(Token[] array, int capacity, int tail) {
+        Token[] grown = Arrays.copyOf(array, capacity);
+        System.arraycopy(array, array.length - tail, grown, capacity - tail, tail);
+        Arrays.fill(grown, array.length - tail, capacity - tail, null);
+        return grown;
+    }
+
+    private static int[] grow(int[] array, int capacity, int tail) {
+        int[] grown = Arrays.copyOf(array, capacity);
+        System.arraycopy(array, array.length - tail, grown, capacity - tail, tail);
+        return grown;
+    }
+
+    private final class TokenView extends AbstractList<Token> implements RandomAccess {
+        @Override
+        public Token get(int index) {
+            Objects.checkIndex(index, size());
+            return tokenAt(index);
+        }
+
+        @Override
+        public int size() {
+            return IncrementalLexer.this.size();
+        }
+    }
+
+    // Texto del documento con un hueco en el punto de la última edición
+    private static final class GapText implements CharSequence {
+        private char[] chars = new char[16];
+        private int gapStart = 0;
+        private int gapEnd = 16;
+
+        void set(String text) {
+            chars = new char[Math.max(16, text.length() * 2)];
+            text.getChars(0, text.length(), chars, 0);
+            gapStart = text.length();
+            gapEnd = chars.length;
+        }
+
+        void replace(int offset, int removedLength, String inserted) {
+            if (offset < gapStart) {
+                int count = gapStart - offset;
+                System.arraycopy(chars, offset, chars, gapEnd - count, count);
+                gapStart -= count;
+                gapEnd -= count;
+            } else if (offset > gapStart) {
+                int count = offset - gapStart;
+                System.arraycopy(chars, gapEnd, chars, gapStart, count);
+                gapStart += count;
+                gapEnd += count;
+            }
+            gapEnd += removedLength;
+            int n = inserted.length();
+            if (gapEnd - gapStart < n) {
+                int tail = chars.length - gapEnd;
+                char[] grown = new char[Math.max(chars.length * 2, length() + n + 16)];
+                System.arraycopy(chars, 0, grown, 0, gapStart);
+                System.arraycopy(chars, gapEnd, grown, grown.length - tail, tail);
+                chars = grown;
+                gapEnd = grown.length - tail;
+            }
+            inserted.getChars(0, n, chars, gapStart);
+            gapStart += n;
+        }
+
+        @Override
+        public int length() {
+            return chars.length - (gapEnd - gapStart);
+        }
+
+        @Override
+        public char charAt(int index) {
+            return index < gapStart ? chars[index] : chars[index + gapEnd - gapStart];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (end <= gapStart) {
+                return new String(chars, start, end - start);
+            }
+            if (start >= gapStart) {
+                return new String(chars, start + gapEnd - gapStart, end - start);
+            }
+            return new StringBuilder(end - start)
+                .append(chars, start, gapStart - start)
+                .append(chars, gapEnd, end - gapStart)
+                .toString();
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package proyecto.lenguaje.lexer;
+
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * TokenSource perezoso: reconoce cada token recién cuando el parser lo pide.
+ *
+ * Solo guarda los tokens de la anticipación pendiente en un buffer circular,
+ * por lo que la memoria depende de cuánto mira hacia adelante el parser y no
+ * del tamaño del archivo. Puede leer de un String (con HaskellLexer), de un
+ * Reader (con StreamingLexer, sin cargar el texto completo) o de cualquier
+ * iterador de tokens. Sin el texto, el índice de líneas para los errores se
+ * deduce de los tokens a medida que se leen (un int por línea).
+ */
+public class LazyTokenSource implements TokenSource {
+    private final Iterator<Token> tokens;
+    // Texto de entrada (null si se lee de un Reader o un iterador) y su índice de líneas
+    private final String input;
+    private LineIndex lineIndex;
+    private Token[] ring = new Token[4];
+    private int head;    // índice en ring del token actual
+    private int count;   // tokens ya reconocidos y aún no consumidos
+
+    public LazyTokenSource(String input) {
+        this(input, new Iterator<Token>() {
+            private final HaskellLexer lexer = new HaskellLexer();
+            private final HaskellLexer.Cursor cursor = new HaskellLexer.Cursor(0, 1);
+            private Token next = lexer.nextToken(input, cursor);
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Token next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Token token = next;
+                next = lexer.nextToken(input, cursor);
+                return token;
+            }
+        });
+    }
+
+    private LazyTokenSource(String input, Iterator<Token> tokens) {
+        this.tokens = tokens;
+        this.input = input;
+        this.lineIndex = input != null ? null : new LineIndex();
+    }
+
+    public LazyTokenSource(Reader reader) {
+        this(new StreamingLexer(reader));
+    }
+
+    public LazyTokenSource(Iterator<Token> tokens) {
+        this(null, tokens);
+    }
+
+    @Override
+    public Token.Type peekType(int k) {
+        Token token = fill(k);
+        return token != null ? token.getType() : null;
+    }
+
+    @Override
+    public String peekValue(int k) {
+        return require(k).getValue();
+    }
+
+    @Override
+    public boolean peekValueEquals(int k, String value) {
+        Token token = fill(k);
+        return token != null && token.getValue().equals(value);
+    }
+
+    @Override
+    public int peekPosition(int k) {
+        return require(k).getPosition();
+    }
+
+    @Override
+    public int peekLine(int k) {
+        return require(k).getLine();
+    }
+
+    @Override
+    public Token peekToken(int k) {
+        return require(k);
+    }
+
+    @Override
+    public void advance() {
+        require(0);
+        ring[head] = null;
+        head = (head + 1) & (ring.length - 1);
+        count--;
+    }
+
+    @Override
+    public LineIndex getLineIndex() {
+        if (lineIndex == null) {
+            lineIndex = new LineIndex(input);
+        }
+        return lineIndex;
+    }
+
+    // Token k posiciones adelante, reconociendo los que falten; null si la entrada termina antes
+    private Token fill(int k) {
+        if (k < 0) {
+            throw new IndexOutOfBoundsException("Anticipación negativa: " + k);
+        }
+        while (count <= k && tokens.hasNext()) {
+            if (count == ring.length) {
+                grow();
+            }
+            Token token = tokens.next();
+            if (input == null) {
+                lineIndex.addToken(token.getPosition(), token.getValue(), token.getLine());
+            }
+            ring[(head + count) & (ring.length - 1)] = token;
+            count++;
+        }
+        return k < count ? ring[(head + k) & (ring.length - 1)] : null;
+    }
+
+    private Token require(int k) {
+        Token token = fill(k);
+        if (token == null) {
+            throw new NoSuchElementException("No hay token " + k + " posiciones adelante");
+        }
+        return token;
+    }
+
+    private void grow() {
+        Token[] larger = new Token[ring.length * 2];
+        for (int i = 0; i < count; i++) {
+            larger[i] = ring[(head + i) & (ring.length - 1)];
+        }
+        ring = larger;
+        head = 0;
+    }
+}
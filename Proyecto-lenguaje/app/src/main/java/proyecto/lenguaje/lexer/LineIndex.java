@@ -0,0 +1,157 @@
+package proyecto.lenguaje.lexer;
+
+import java.util.Arrays;
+
+/**
+ * Índice de inicios de línea de un texto.
+ *
+ * Guarda en un arreglo ordenado el desplazamiento donde comienza cada línea
+ * (el primero es 0 y los demás siguen a un '\n', igual que cuenta las líneas
+ * el lexer). Se construye en una pasada y responde en O(log n) la línea y
+ * columna de un desplazamiento y el desplazamiento de una línea. Las líneas y
+ * columnas empiezan en 1, como las de Token.
+ *
+ * applyEdit actualiza el índice ante una edición sin recorrer el texto: solo
+ * se revisa el texto insertado y se desplazan los inicios posteriores.
+ *
+ * Si no se tiene el texto (tokens de una lista o de un Reader), el índice se
+ * deduce de los tokens con addToken, de modo que las líneas y columnas se
+ * calculan siempre de la misma forma.
+ */
+public final class LineIndex {
+    private int[] starts = new int[16];
+    private int lineCount = 1;
+    private int length;
+    // Línea según el lexer del último token agregado con addToken
+    private int tokenLine = 1;
+
+    public LineIndex(CharSequence text) {
+        length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == '\n') {
+                addLineStart(i + 1);
+            }
+        }
+    }
+
+    /** Índice vacío, que se extiende con addToken. */
+    LineIndex() {
+    }
+
+    /**
+     * Extiende el índice hasta el final del token siguiente (en orden). Los
+     * saltos de línea dentro del token están en su texto; los del espacio
+     * anterior se cuentan por la diferencia con la línea del token previo (el
+     * lexer no cuenta los de un string) y se ubican justo después de ese token.
+     * La columna es exacta si no hay espacios ni un comentario al final de la
+     * línea anterior.
+     */
+    void addToken(int start, CharSequence value, int line) {
+        for (int i = 1; i <= line - tokenLine; i++) {
+            addLineStart(Math.min(length + i, start));
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '\n') {
+                addLineStart(start + i + 1);
+            }
+        }
+        tokenLine = line;
+        length = start + value.length();
+    }
+
+    private void addLineStart(int offset) {
+        if (lineCount == starts.length) {
+            starts = Arrays.copyOf(starts, lineCount * 2);
+        }
+        starts[lineCount++] = offset;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /** Longitud del texto indexado. */
+    public int getLength() {
+        return length;
+    }
+
+    /** Línea (desde 1) que contiene el desplazamiento dado; length pertenece a la última línea. */
+    public int lineOf(int offset) {
+        if (offset < 0 || offset > length) {
+            throw new IndexOutOfBoundsException("Desplazamiento " + offset + ", longitud " + length);
+        }
+        // Última línea cuyo inicio es <= offset
+        int low = 0;
+        int high = lineCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low + 1;
+    }
+
+    /** Columna (desde 1) del desplazamiento dado dentro de su línea. */
+    public int columnOf(int offset) {
+        return offset - starts[lineOf(offset) - 1] + 1;
+    }
+
+    /** Desplazamiento donde comienza la línea dada (desde 1). */
+    public int lineStart(int line) {
+        if (line < 1 || line > lineCount) {
+            throw new IndexOutOfBoundsException("Línea " + line + ", líneas " + lineCount);
+        }
+        return starts[line - 1];
+    }
+
+    /** Desplazamiento donde termina la línea dada, sin incluir su '\n'. */
+    public int lineEnd(int line) {
+        return line < lineCount ? lineStart(line + 1) - 1 : length;
+    }
+
+    /**
+     * Actualiza el índice tras una edición del texto.
+     * @param offset desplazamiento donde comienza la edición
+     * @param removedLength cantidad de caracteres eliminados
+     * @param insertedText texto insertado (vacío si solo se eliminó)
+     */
+    public void applyEdit(int offset, int removedLength, CharSequence insertedText) {
+        if (offset < 0 || removedLength < 0 || offset + removedLength > length) {
+            throw new IllegalArgumentException("Edición fuera del texto: offset " + offset
+                + ", eliminados " + removedLength + ", longitud " + length);
+        }
+        int delta = insertedText.length() - removedLength;
+
+        // Líneas que comenzaban después de un '\n' eliminado: [first, last)
+        int first = lineOf(offset);
+        int last = lineOf(offset + removedLength);
+        int added = 0;
+        for (int i = 0; i < insertedText.length(); i++) {
+            if (insertedText.charAt(i) == '\n') {
+                added++;
+            }
+        }
+
+        int newCount = lineCount - (last - first) + added;
+        if (newCount > starts.length) {
+            starts = Arrays.copyOf(starts, Math.max(newCount, starts.length * 2));
+        }
+        // Mover y desplazar los inicios posteriores a la edición
+        System.arraycopy(starts, last, starts, first + added, lineCount - last);
+        for (int i = first + added; i < newCount; i++) {
+            starts[i] += delta;
+        }
+        // Inicios de las líneas nuevas del texto insertado
+        int at = first;
+        for (int i = 0; i < insertedText.length(); i++) {
+            if (insertedText.charAt(i) == '\n') {
+                starts[at++] = offset + i + 1;
+            }
+        }
+        lineCount = newCount;
+        length += delta;
+    }
+}
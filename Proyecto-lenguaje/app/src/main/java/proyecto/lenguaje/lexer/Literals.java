@@ -0,0 +1,199 @@
+package proyecto.lenguaje.lexer;
+
+import java.math.BigInteger;
+
+/**
+ * Decodificación de literales: enteros (decimales con signo, 0x, 0o y 0b),
+ * decimales, caracteres y strings con secuencias de escape de Haskell.
+ *
+ * El lexer decodifica cada literal una sola vez y guarda el resultado en un
+ * long (ver encode), que Token y TokenBuffer conservan junto al token:
+ * - INTEGER: el valor, salvo que no quepa en un long (o sea justo
+ *   Long.MIN_VALUE); en ese caso se guarda Long.MIN_VALUE y quien lo lea
+ *   vuelve a decodificar el texto (caso raro).
+ * - FLOAT: los bits del double (Double.doubleToRawLongBits).
+ * - CHAR: el punto de código, o -1 si el texto no es un carácter válido.
+ * - Otros tipos: 0.
+ */
+public final class Literals {
+    /** Valor de INTEGER que indica que hay que decodificar de nuevo el texto. */
+    public static final long UNDECODED = Long.MIN_VALUE;
+
+    private Literals() {
+    }
+
+    /** Valor decodificado del literal en [start, end), según la codificación descrita arriba. */
+    public static long encode(Token.Type type, CharSequence text, int start, int end) {
+        try {
+            switch (type) {
+                case INTEGER:
+                    return parseInteger(text, start, end);
+                case FLOAT:
+                    return Double.doubleToRawLongBits(Double.parseDouble(text.subSequence(start, end).toString()));
+                case CHAR:
+                    return parseChar(text, start, end);
+                default:
+                    return 0;
+            }
+        } catch (NumberFormatException | ArithmeticException e) {
+            return type == Token.Type.CHAR ? -1 : type == Token.Type.INTEGER ? UNDECODED : 0;
+        }
+    }
+
+    /**
+     * Valor de un entero: -?[0-9]+, 0[xX][0-9a-fA-F]+, 0[oO][0-7]+ o 0[bB][01]+.
+     * @throws ArithmeticException si no cabe en un long
+     * @throws NumberFormatException si el texto no es un entero
+     */
+    public static long parseInteger(CharSequence text, int start, int end) {
+        boolean negative = start < end && text.charAt(start) == '-';
+        int i = negative ? start + 1 : start;
+        int radix = 10;
+        if (!negative && end - i > 2 && text.charAt(i) == '0') {
+            radix = radixOf(text.charAt(i + 1));
+            i = radix == 10 ? i : i + 2;
+        }
+        if (i >= end) {
+            throw new NumberFormatException("Entero vacío: " + text.subSequence(start, end));
+        }
+        // Se acumula en negativo para poder representar Long.MIN_VALUE
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = Character.digit(text.charAt(i), radix);
+            if (digit < 0) {
+                throw new NumberFormatException("Dígito inválido en " + text.subSequence(start, end));
+            }
+            value = Math.subtractExact(Math.multiplyExact(value, radix), digit);
+        }
+        return negative ? value : Math.negateExact(value);
+    }
+
+    /** Valor de un entero como double, aunque no quepa en un long. */
+    public static double integerToDouble(CharSequence text, int start, int end) {
+        try {
+            return parseInteger(text, start, end);
+        } catch (ArithmeticException e) {
+            String digits = text.subSequence(start, end).toString();
+            int radix = 10;
+            if (digits.length() > 2 && digits.charAt(0) == '0' && radixOf(digits.charAt(1)) != 10) {
+                radix = radixOf(digits.charAt(1));
+                digits = digits.substring(2);
+            }
+            return new BigInteger(digits, radix).doubleValue();
+        }
+    }
+
+    /** Punto de código de un literal de carácter entre comillas simples. */
+    public static int parseChar(CharSequence text, int start, int end) {
+        if (end - start < 3 || text.charAt(start) != '\'' || text.charAt(end - 1) != '\'') {
+            throw new NumberFormatException("Carácter inválido: " + text.subSequence(start, end));
+        }
+        long decoded = decodeOne(text, start + 1, end - 1);
+        if ((int) decoded < 0 || (int) (decoded >>> 32) != end - 1) {
+            throw new NumberFormatException("Carácter inválido: " + text.subSequence(start, end));
+        }
+        return (int) decoded;
+    }
+
+    /** Contenido de un literal de string entre comillas dobles, con los escapes resueltos. */
+    public static String parseString(CharSequence text, int start, int end) {
+        if (end - start < 2 || text.charAt(start) != '"' || text.charAt(end - 1) != '"') {
+            throw new NumberFormatException("String inválido: " + text.subSequence(start, end));
+        }
+        int i = start + 1;
+        int close = end - 1;
+        // Caso común: sin escapes, el contenido es el texto tal cual
+        int backslash = i;
+        while (backslash < close && text.charAt(backslash) != '\\') {
+            backslash++;
+        }
+        if (backslash == close) {
+            return text.subSequence(i, close).toString();
+        }
+        StringBuilder sb = new StringBuilder(close - i);
+        while (i < close) {
+            long decoded = decodeOne(text, i, close);
+            int codePoint = (int) decoded;
+            if (codePoint >= 0) {
+                sb.appendCodePoint(codePoint);
+            }
+            i = (int) (decoded >>> 32);
+        }
+        return sb.toString();
+    }
+
+    // Decodifica un carácter (o escape) en [i, end). Devuelve en los 32 bits altos la
+    // posición siguiente y en los bajos el punto de código (-1 si no produce ninguno: \& o un hueco)
+    private static long decodeOne(CharSequence text, int i, int end) {
+        int c = Character.codePointAt(text, i);
+        if (c != '\\') {
+            return pack(i + Character.charCount(c), c);
+        }
+        if (i + 1 >= end) {
+            throw new NumberFormatException("Escape incompleto");
+        }
+        char e = text.charAt(i + 1);
+        switch (e) {
+            case 'n': return pack(i + 2, '\n');
+            case 't': return pack(i + 2, '\t');
+            case 'r': return pack(i + 2, '\r');
+            case 'a': return pack(i + 2, 7);
+            case 'b': return pack(i + 2, '\b');
+            case 'f': return pack(i + 2, '\f');
+            case 'v': return pack(i + 2, 11);
+            case '&': return pack(i + 2, -1);
+            case 'x': case 'X': return numericEscape(text, i + 2, end, 16);
+            case 'o': case 'O': return numericEscape(text, i + 2, end, 8);
+            case '^':
+                // Carácter de control: \^A .. \^_ (y \^@)
+                if (i + 2 < end && text.charAt(i + 2) >= '@' && text.charAt(i + 2) <= '_') {
+                    return pack(i + 3, text.charAt(i + 2) - '@');
+                }
+                return pack(i + 2, '^');
+            default:
+                if (e >= '0' && e <= '9') {
+                    return numericEscape(text, i + 1, end, 10);
+                }
+                if (Character.isWhitespace(e)) {
+                    // Hueco: \ espacios \ (no produce caracteres)
+                    int j = i + 1;
+                    while (j < end && Character.isWhitespace(text.charAt(j))) {
+                        j++;
+                    }
+                    return pack(j < end && text.charAt(j) == '\\' ? j + 1 : j, -1);
+                }
+                // \\, \", \' y cualquier otro carácter escapado se representan a sí mismos
+                int escaped = Character.codePointAt(text, i + 1);
+                return pack(i + 1 + Character.charCount(escaped), escaped);
+        }
+    }
+
+    private static long numericEscape(CharSequence text, int i, int end, int radix) {
+        int j = i;
+        int value = 0;
+        while (j < end && Character.digit(text.charAt(j), radix) >= 0 && text.charAt(j) < 128) {
+            value = value * radix + Character.digit(text.charAt(j), radix);
+            if (value > Character.MAX_CODE_POINT) {
+                throw new NumberFormatException("Escape numérico fuera de rango");
+            }
+            j++;
+        }
+        if (j == i) {
+            throw new NumberFormatException("Escape numérico vacío");
+        }
+        return pack(j, value);
+    }
+
+    private static long pack(int next, int codePoint) {
+        return ((long) next << 32) | (codePoint & 0xFFFFFFFFL);
+    }
+
+    private static int radixOf(char prefix) {
+        switch (prefix) {
+            case 'x': case 'X': return 16;
+            case 'o': case 'O': return 8;
+            case 'b': case 'B': return 2;
+            default: return 10;
+        }
+    }
+}
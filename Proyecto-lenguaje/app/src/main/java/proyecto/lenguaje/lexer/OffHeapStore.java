@@ -0,0 +1,151 @@
+package proyecto.lenguaje.lexer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Memoria fuera del heap para los tokens (TokenBuffer) y el árbol plano
+ * (FlatAst) de entradas muy grandes, con la API java.lang.foreign.
+ *
+ * Cada bloque pedido con allocate tiene su propio Arena, de modo que al
+ * crecer (reallocate) se copia el contenido a un bloque nuevo y el anterior
+ * se libera enseguida, sin esperar al GC. Hay tres modos:
+ * - confined(): solo el hilo que crea el almacén puede usar los bloques.
+ * - shared(): los bloques pueden leerse desde otros hilos.
+ * - mapped(dir): cada bloque es un archivo temporal mapeado en memoria, de
+ *   modo que el sistema operativo puede llevar a disco lo que no quepa en RAM.
+ * close() libera todos los bloques (y borra los archivos temporales); después
+ * ya no se pueden leer los TokenBuffer ni los árboles que los usaban.
+ */
+public final class OffHeapStore implements AutoCloseable {
+    private enum Mode { CONFINED, SHARED, MAPPED }
+
+    private final Mode mode;
+    private final Path directory;
+    private final Map<MemorySegment, Block> blocks = new IdentityHashMap<>();
+    private boolean closed;
+
+    // Un bloque reservado: el arena que lo libera y, si está mapeado, su archivo
+    private static final class Block {
+        final Arena arena;
+        final Path file;
+
+        Block(Arena arena, Path file) {
+            this.arena = arena;
+            this.file = file;
+        }
+    }
+
+    private OffHeapStore(Mode mode, Path directory) {
+        this.mode = mode;
+        this.directory = directory;
+    }
+
+    public static OffHeapStore confined() {
+        return new OffHeapStore(Mode.CONFINED, null);
+    }
+
+    public static OffHeapStore shared() {
+        return new OffHeapStore(Mode.SHARED, null);
+    }
+
+    /** Bloques respaldados por archivos temporales en dir (se borran al cerrar). */
+    public static OffHeapStore mapped(Path dir) {
+        return new OffHeapStore(Mode.MAPPED, Objects.requireNonNull(dir));
+    }
+
+    public boolean isMapped() {
+        return mode == Mode.MAPPED;
+    }
+
+    /** Reserva un bloque de bytes (inicializado en cero). */
+    public MemorySegment allocate(long bytes) {
+        if (closed) {
+            throw new IllegalStateException("El almacén ya está cerrado");
+        }
+        if (mode != Mode.MAPPED) {
+            Arena arena = mode == Mode.CONFINED ? Arena.ofConfined() : Arena.ofShared();
+            MemorySegment segment = arena.allocate(bytes, Long.BYTES);
+            blocks.put(segment, new Block(arena, null));
+            return segment;
+        }
+        Path file = null;
+        Arena arena = Arena.ofShared();
+        try {
+            file = Files.createTempFile(directory, "lenguaje-", ".bin");
+            MemorySegment segment;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // Mapear más allá del final extiende el archivo (con ceros)
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes, arena);
+            }
+            blocks.put(segment, new Block(arena, file));
+            return segment;
+        } catch (IOException e) {
+            arena.close();
+            deleteQuietly(file);
+            throw new UncheckedIOException("No se pudo mapear el archivo temporal", e);
+        }
+    }
+
+    /** Reserva un bloque de newBytes, copia los primeros usedBytes de old y libera old. */
+    public MemorySegment reallocate(MemorySegment old, long usedBytes, long newBytes) {
+        MemorySegment segment = allocate(newBytes);
+        MemorySegment.copy(old, 0, segment, 0, usedBytes);
+        free(old);
+        return segment;
+    }
+
+    /** Libera un bloque antes de cerrar el almacén. */
+    public void free(MemorySegment segment) {
+        Block block = blocks.remove(segment);
+        if (block == null) {
+            throw new IllegalArgumentException("El bloque no pertenece a este almacén");
+        }
+        release(block);
+    }
+
+    /** Bytes reservados actualmente (fuera del heap o en archivos mapeados). */
+    public long reservedBytes() {
+        long total = 0;
+        for (MemorySegment segment : blocks.keySet()) {
+            total += segment.byteSize();
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Block block : blocks.values()) {
+            release(block);
+        }
+        blocks.clear();
+    }
+
+    private static void release(Block block) {
+        // Cerrar el arena desmapea el archivo, lo que permite borrarlo (necesario en Windows)
+        block.arena.close();
+        deleteQuietly(block.file);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package proyecto.lenguaje.lexer;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Tokens de un TokenBuffer en un bloque de un OffHeapStore, un registro de
+ * 32 bytes por token: literal (long) en 0, inicio en 8, fin en 12, línea en
+ * 16, símbolo en 20 y tipo en 24 (el resto es relleno para alinear el long).
+ */
+final class OffHeapTokenStorage implements TokenStorage {
+    private static final Token.Type[] TYPES = Token.Type.values();
+    private static final long RECORD = 32;
+    private static final long LITERAL = 0;
+    private static final long START = 8;
+    private static final long END = 12;
+    private static final long LINE = 16;
+    private static final long SYMBOL = 20;
+    private static final long TYPE = 24;
+
+    private final OffHeapStore store;
+    private MemorySegment segment;
+
+    OffHeapTokenStorage(OffHeapStore store, int capacity) {
+        this.store = store;
+        this.segment = store.allocate(capacity * RECORD);
+    }
+
+    @Override
+    public int capacity() {
+        return (int) (segment.byteSize() / RECORD);
+    }
+
+    @Override
+    public void grow(int capacity, int size) {
+        segment = store.reallocate(segment, size * RECORD, capacity * RECORD);
+    }
+
+    @Override
+    public void set(int index, Token.Type type, int start, int end, int line, int symbol, long literal) {
+        long base = index * RECORD;
+        segment.set(ValueLayout.JAVA_LONG, base + LITERAL, literal);
+        segment.set(ValueLayout.JAVA_INT, base + START, start);
+        segment.set(ValueLayout.JAVA_INT, base + END, end);
+        segment.set(ValueLayout.JAVA_INT, base + LINE, line);
+        segment.set(ValueLayout.JAVA_INT, base + SYMBOL, symbol);
+        segment.set(ValueLayout.JAVA_INT, base + TYPE, type.ordinal());
+    }
+
+    @Override public Token.Type type(int index) { return TYPES[segment.get(ValueLayout.JAVA_INT, index * RECORD + TYPE)]; }
+    @Override public int start(int index) { return segment.get(ValueLayout.JAVA_INT, index * RECORD + START); }
+    @Override public int end(int index) { return segment.get(ValueLayout.JAVA_INT, index * RECORD + END); }
+    @Override public int line(int index) { return segment.get(ValueLayout.JAVA_INT, index * RECORD + LINE); }
+    @Override public int symbol(int index) { return segment.get(ValueLayout.JAVA_INT, index * RECORD + SYMBOL); }
+    @Override public long literal(int index) { return segment.get(ValueLayout.JAVA_LONG, index * RECORD + LITERAL); }
+}
@@ -0,0 +1,184 @@
+package proyecto.lenguaje.lexer;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Lexer en paralelo para archivos grandes.
+ *
+ * Divide la entrada en fragmentos que comienzan después de un salto de línea y
+ * los analiza a la vez en un ForkJoinPool, cada uno con su propio HaskellLexer
+ * y suponiendo (especulativamente) que el fragmento empieza entre dos tokens
+ * en la línea 1. Luego une los resultados en orden:
+ * - Se reconoce el siguiente token real a partir del estado real (posición y
+ *   línea tras el último token aceptado).
+ * - Si el fragmento especulativo tiene un token que empieza en esa misma
+ *   posición, desde ahí la especulación es correcta (el reconocimiento no mira
+ *   hacia atrás) y se aceptan el resto de sus tokens corrigiendo la línea.
+ * - Si no (el fragmento empezó dentro de un comentario {- -} o de un string),
+ *   se sigue token por token de forma secuencial hasta volver a coincidir.
+ * El resultado es idéntico al de HaskellLexer.tokenize, posiciones y líneas
+ * incluidas. La corrección de líneas de los tramos aceptados también se hace
+ * en paralelo, una vez decidido qué tramo va en cada posición del resultado.
+ */
+public class ParallelLexer {
+    // Por debajo de este tamaño no compensa repartir el trabajo
+    private static final int DEFAULT_MIN_CHUNK = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int minChunk;
+
+    public ParallelLexer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelLexer(ForkJoinPool pool) {
+        this(pool, DEFAULT_MIN_CHUNK);
+    }
+
+    ParallelLexer(ForkJoinPool pool, int minChunk) {
+        this.pool = pool;
+        this.minChunk = Math.max(1, minChunk);
+    }
+
+    public List<Token> tokenize(String input) {
+        int[] starts = chunkStarts(input);
+        if (starts.length == 1) {
+            return new HaskellLexer().tokenize(input);
+        }
+
+        // Análisis especulativo de cada fragmento
+        List<ForkJoinTask<List<Token>>> tasks = new ArrayList<>(starts.length);
+        for (int c = 0; c < starts.length; c++) {
+            int start = starts[c];
+            int end = c + 1 < starts.length ? starts[c + 1] : input.length();
+            tasks.add(pool.submit(() -> lexChunk(input, start, end)));
+        }
+        List<List<Token>> chunks = new ArrayList<>(starts.length);
+        for (ForkJoinTask<List<Token>> task : tasks) {
+            chunks.add(task.join());
+        }
+
+        // Unión secuencial: decidir qué tramos especulativos se aceptan y con qué corrección de línea
+        List<Segment> segments = new ArrayList<>();
+        int total = 0;
+        HaskellLexer lexer = new HaskellLexer();
+        HaskellLexer.Cursor cursor = new HaskellLexer.Cursor(0, 1);
+        Token token;
+        while ((token = lexer.nextToken(input, cursor)) != null) {
+            List<Token> chunk = chunks.get(chunkOf(starts, token.getPosition()));
+            int match = indexOfPosition(chunk, token.getPosition());
+            Segment segment;
+            if (match == -1) {
+                // Fragmento mal especulado: se acepta el token reconocido secuencialmente
+                segment = new Segment(Collections.singletonList(token), 0, 0);
+            } else {
+                segment = new Segment(chunk, match, token.getLine() - chunk.get(match).getLine());
+                Token last = chunk.get(chunk.size() - 1);
+                cursor = new HaskellLexer.Cursor(last.getPosition() + last.getValue().length(),
+                    last.getLine() + segment.lineDelta);
+            }
+            segments.add(segment);
+            total += segment.size();
+        }
+
+        // Copiar los tramos a su lugar en el resultado, en paralelo
+        Token[] result = new Token[total];
+        List<ForkJoinTask<?>> copies = new ArrayList<>();
+        int offset = 0;
+        for (Segment segment : segments) {
+            int at = offset;
+            if (segment.size() < minChunk) {
+                segment.copyTo(result, at);
+            } else {
+                copies.add(pool.submit(() -> segment.copyTo(result, at)));
+            }
+            offset += segment.size();
+        }
+        for (ForkJoinTask<?> copy : copies) {
+            copy.join();
+        }
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    // Tramo [from, fin) de los tokens de un fragmento, con la corrección de línea a aplicar
+    private static final class Segment {
+        private final List<Token> tokens;
+        private final int from;
+        private final int lineDelta;
+
+        Segment(List<Token> tokens, int from, int lineDelta) {
+            this.tokens = tokens;
+            this.from = from;
+            this.lineDelta = lineDelta;
+        }
+
+        int size() {
+            return tokens.size() - from;
+        }
+
+        void copyTo(Token[] result, int at) {
+            for (int i = from; i < tokens.size(); i++) {
+                Token t = tokens.get(i);
+                result[at++] = lineDelta == 0 ? t
+                    : t.moveTo(t.getPosition(), t.getLine() + lineDelta);
+            }
+        }
+    }
+
+    // Tokens que comienzan en [start, end), analizando desde start como si fuera el inicio (línea 1)
+    private static List<Token> lexChunk(String input, int start, int end) {
+        HaskellLexer lexer = new HaskellLexer();
+        HaskellLexer.Cursor cursor = new HaskellLexer.Cursor(start, 1);
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+        while ((token = lexer.nextToken(input, cursor)) != null && token.getPosition() < end) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    // Inicios de fragmento: el primero es 0 y los demás siguen a un '\n'
+    private int[] chunkStarts(String input) {
+        int length = input.length();
+        int count = Math.min(pool.getParallelism() * 4, length / minChunk);
+        if (count <= 1) {
+            return new int[] { 0 };
+        }
+        int[] starts = new int[count];
+        int n = 1;
+        for (int c = 1; c < count; c++) {
+            int newline = input.indexOf('\n', Math.max(starts[n - 1], (int) ((long) length * c / count)));
+            if (newline == -1 || newline + 1 >= length) {
+                break;
+            }
+            if (newline + 1 > starts[n - 1]) {
+                starts[n++] = newline + 1;
+            }
+        }
+        return Arrays.copyOf(starts, n);
+    }
+
+    private static int chunkOf(int[] starts, int position) {
+        int index = Arrays.binarySearch(starts, position);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private static int indexOfPosition(List<Token> tokens, int position) {
+        int low = 0;
+        int high = tokens.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int p = tokens.get(mid).getPosition();
+            if (p < position) {
+                low = mid + 1;
+            } else if (p > position) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
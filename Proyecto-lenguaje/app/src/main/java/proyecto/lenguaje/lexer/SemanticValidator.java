@@ -1,561 +1,689 @@
 package proyecto.lenguaje.lexer;
 
 import java.util.List;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ArrayList;
 import proyecto.lenguaje.codegen.ArithmeticExpressionConverter;
-
+import proyecto.lenguaje.parser.AstNode;
+import proyecto.lenguaje.parser.Binding;
+import proyecto.lenguaje.parser.DeclNode;
+import proyecto.lenguaje.parser.IdentifierNode;
+import proyecto.lenguaje.parser.ProgramNode;
+import proyecto.lenguaje.parser.ScopeResolver;
+import proyecto.lenguaje.parser.TypeInference;
+
+/**
+ * Validador semántico de ciclos (while, for, loop, ciclo).
+ *
+ * Es reentrante y seguro entre hilos: el validador no tiene estado, y cada
+ * llamada a validateCycles crea su propio contexto de análisis (Analysis)
+ * con la tabla de variables y los mensajes de esa ejecución. Así una misma
+ * instancia puede validar muchos archivos a la vez desde varios hilos (ver
+ * SemanticValidatorConcurrencyTest). Los tokens solo se leen; un
+ * TokenBuffer sobre un Utf8Text no debe leerse desde dos hilos a la vez
+ * (charAt recuerda el último carácter leído).
+ */
 public class SemanticValidator {
-    private static final Map<String, String> variableTypes = new HashMap<>();
-    
-    public static String validateCycles(List<Token> tokens) {
-        StringBuilder errors = new StringBuilder();
-        StringBuilder info = new StringBuilder();
-        int cycleCount = 0;
 
-        // Primero, recopilamos todas las variables y sus tipos
-        initializeVariableTypes(tokens);
+    public String validateCycles(List<Token> tokens) {
+        return validateCycles(TokenBuffer.of(tokens));
+    }
 
-        for (int i = 0; i < tokens.size(); i++) {
-            Token t = tokens.get(i);
+    /**
+     * Con checkVariables en false no se verifica, token por token, que las
+     * variables usadas estén definidas. Lo usa quien además valida el AST del
+     * mismo código con validateScopes, que lo hace respetando los ámbitos,
+     * para no mostrar dos informes que pueden diferir. Si el código no se
+     * puede analizar sintácticamente, esa verificación queda a cargo de esta.
+     */
+    public String validateCycles(List<Token> tokens, boolean checkVariables) {
+        return validateCycles(TokenBuffer.of(tokens), checkVariables);
+    }
 
-            // Detecta palabras clave que podrían representar ciclos
-            if (t.getType() == Token.Type.KEYWORD && isCycleKeyword(t.getValue())) {
-                cycleCount++;
-                info.append("Ciclo detectado: '").append(t.getValue())
-                    .append("' en línea ").append(t.getLine())
-                    .append(", posición ").append(t.getPosition()).append("\n");
+    /**
+     * Valida los ciclos leyendo los tokens por índice desde el TokenBuffer.
+     * Los paréntesis y llaves se emparejan una sola vez para todo el archivo
+     * (BracketIndex), de modo que cada ciclo encuentra su condición y su
+     * bloque sin volver a recorrer los tokens. Las porciones de tokens
+     * (cabecera, cuerpo, asignaciones) son vistas TokenSlice sobre el buffer,
+     * sin copiar listas ni crear Tokens. El buffer solo se lee.
+     */
+    public String validateCycles(TokenBuffer buffer) {
+        return validateCycles(buffer, true);
+    }
 
-                // Validar estructura completa del ciclo
-                validateCycleStructure(tokens, i, t, errors, info);
-            }
+    public String validateCycles(TokenBuffer buffer, boolean checkVariables) {
+        return new Analysis(buffer, checkVariables).run();
+    }
+
+    /**
+     * Valida el uso de variables sobre el AST, respetando los ámbitos de let
+     * y de los ciclos (ver ScopeResolver): informa cuántas variables se
+     * declaran de cada forma y da un error, con su línea, por cada nombre
+     * usado sin una declaración visible en ese punto.
+     */
+    public String validateScopes(AstNode program) {
+        ScopeResolver.Resolution resolution = new ScopeResolver().resolve(program);
+        Map<Binding.Kind, Integer> counts = new EnumMap<>(Binding.Kind.class);
+        for (Binding binding : resolution.getBindings()) {
+            counts.merge(binding.getKind(), 1, Integer::sum);
         }
 
         StringBuilder result = new StringBuilder();
-        result.append("=== VALIDACIÓN SEMÁNTICA DE CICLOS ===\n");
-        result.append("Total de ciclos detectados: ").append(cycleCount).append("\n\n");
-
-        if (cycleCount == 0) {
-            result.append("No se detectaron ciclos en el código.\n");
-            result.append("Nota: El código utiliza solo estructuras funcionales válidas.\n");
+        result.append("=== VALIDACIÓN DE ÁMBITOS DE VARIABLES ===\n");
+        result.append("Variables declaradas: ").append(resolution.getBindings().size())
+            .append(" (globales: ").append(counts.getOrDefault(Binding.Kind.DECLARATION, 0))
+            .append(", let: ").append(counts.getOrDefault(Binding.Kind.LET, 0))
+            .append(", de ciclo: ").append(counts.getOrDefault(Binding.Kind.LOOP_VARIABLE, 0))
+            .append(", de bloque: ").append(counts.getOrDefault(Binding.Kind.BLOCK, 0)).append(")\n\n");
+        if (resolution.getUnresolved().isEmpty()) {
+            result.append("✅ Todas las variables usadas están declaradas en su ámbito.\n");
         } else {
-            result.append("--- INFORMACIÓN DE CICLOS ---\n");
-            result.append(info.toString()).append("\n");
-
-            if (errors.length() > 0) {
-                result.append("--- ERRORES SEMÁNTICOS ENCONTRADOS ---\n");
-                result.append(errors.toString());
-            } else {
-                result.append("✅ Todos los ciclos están bien formados semánticamente.\n");
-                result.append("Estructura de condiciones y bloques correcta.\n");
-                result.append("Variables y tipos validados correctamente.\n");
+            for (IdentifierNode identifier : resolution.getUnresolved()) {
+                result.append("ERROR: Línea ").append(identifier.getLine()).append(" usa la variable '")
+                    .append(identifier.getName()).append("' fuera del ámbito de su declaración o sin declarar\n");
             }
         }
-
         return result.toString();
     }
 
-    private static void validateCycleStructure(List<Token> tokens, int cycleIndex, Token cycleToken, 
-                                             StringBuilder errors, StringBuilder info) {
-        String cycleType = cycleToken.getValue();
-        int line = cycleToken.getLine();
+    /**
+     * Infiere los tipos del programa sobre el AST (ver TypeInference) en
+     * lugar de deducirlos token por token: muestra el tipo de cada
+     * declaración de primer nivel y advierte por cada par de tipos que no se
+     * pudieron unificar.
+     */
+    public String validateTypes(AstNode program) {
+        TypeInference.TypeTable types = TypeInference.infer(program);
 
-        // Buscar paréntesis de apertura
-        int parenStart = findNextToken(tokens, cycleIndex + 1, Token.Type.TUPLE_START, "(");
-        if (parenStart == -1) {
-            errors.append("ERROR: Ciclo '").append(cycleType)
-                  .append("' en línea ").append(line)
-                  .append(" no tiene paréntesis de apertura '(' para la condición.\n");
-            return;
+        StringBuilder result = new StringBuilder();
+        result.append("=== INFERENCIA DE TIPOS ===\n");
+        if (program instanceof ProgramNode) {
+            for (AstNode item : ((ProgramNode) program).items) {
+                if (item instanceof DeclNode) {
+                    result.append(((DeclNode) item).name).append(" :: ").append(types.getType(item)).append("\n");
+                }
+            }
         }
-
-        // Buscar paréntesis de cierre
-        int parenEnd = findMatchingCloseParen(tokens, parenStart);
-        if (parenEnd == -1) {
-            errors.append("ERROR: Ciclo '").append(cycleType)
-                  .append("' en línea ").append(line)
-                  .append(" no tiene paréntesis de cierre ')' para la condición.\n");
-            return;
+        result.append("\n");
+        if (types.getErrors().isEmpty()) {
+            result.append("✅ Los tipos del programa son consistentes.\n");
+        } else {
+            for (String error : types.getErrors()) {
+                result.append("WARNING: ").append(error).append("\n");
+            }
         }
+        return result.toString();
+    }
 
-        // Buscar llaves del bloque
-        int braceStart = findNextToken(tokens, parenEnd + 1, Token.Type.SYMBOL, "{");
-        if (braceStart == -1) {
-            errors.append("ERROR: Ciclo '").append(cycleType)
-                  .append("' en línea ").append(line)
-                  .append(" no tiene llave de apertura '{' para el bloque de código.\n");
-            return;
-        }
+    // Estado de una ejecución de validateCycles
+    private static final class Analysis {
+        private final TokenSlice tokens;
+        private final BracketIndex brackets;
+        private final Map<String, String> variableTypes = new HashMap<>();
+        private final StringBuilder errors = new StringBuilder();
+        private final StringBuilder info = new StringBuilder();
+        private final boolean checkVariables;
+
+        Analysis(TokenBuffer buffer, boolean checkVariables) {
+            this.tokens = TokenSlice.of(buffer);
+            this.brackets = new BracketIndex(buffer);
+            this.checkVariables = checkVariables;
+        }
+
+        String run() {
+            int cycleCount = 0;
+
+            // Primero, recopilamos todas las variables y sus tipos
+            initializeVariableTypes(tokens);
+
+            for (int i = 0; i < tokens.size(); i++) {
+                // Detecta palabras clave que podrían representar ciclos
+                if (tokens.getType(i) == Token.Type.KEYWORD && isCycleKeyword(tokens, i)) {
+                    cycleCount++;
+                    info.append("Ciclo detectado: '").append(tokens.getValue(i))
+                        .append("' en línea ").append(tokens.getLine(i))
+                        .append(", posición ").append(tokens.getPosition(i)).append("\n");
+
+                    // Validar estructura completa del ciclo
+                    validateCycleStructure(i);
+                }
+            }
 
-        int braceEnd = findMatchingCloseBrace(tokens, braceStart);
-        if (braceEnd == -1) {
-            errors.append("ERROR: Ciclo '").append(cycleType)
-                  .append("' en línea ").append(line)
-                  .append(" no tiene llave de cierre '}' para el bloque de código.\n");
-            return;
-        }
+            StringBuilder result = new StringBuilder();
+            result.append("=== VALIDACIÓN SEMÁNTICA DE CICLOS ===\n");
+            result.append("Total de ciclos detectados: ").append(cycleCount).append("\n\n");
+
+            if (cycleCount == 0) {
+                result.append("No se detectaron ciclos en el código.\n");
+                result.append("Nota: El código utiliza solo estructuras funcionales válidas.\n");
+            } else {
+                result.append("--- INFORMACIÓN DE CICLOS ---\n");
+                result.append(info.toString()).append("\n");
 
-        // Extraer tokens de la condición/inicialización
-        List<Token> headerTokens = extractTokens(tokens, parenStart + 1, parenEnd);
-        List<Token> bodyTokens = extractTokens(tokens, braceStart + 1, braceEnd);
+                if (errors.length() > 0) {
+                    result.append("--- ERRORES SEMÁNTICOS ENCONTRADOS ---\n");
+                    result.append(errors.toString());
+                } else {
+                    result.append("✅ Todos los ciclos están bien formados semánticamente.\n");
+                    result.append("Estructura de condiciones y bloques correcta.\n");
+                    result.append(checkVariables ? "Variables y tipos validados correctamente.\n"
+                        : "Tipos validados correctamente (las variables se validan por ámbito).\n");
+                }
+            }
 
-        // Validar según el tipo de ciclo
-        if ("for".equals(cycleType)) {
-            validateForCycle(headerTokens, bodyTokens, line, errors, info);
-        } else if ("while".equals(cycleType) || "loop".equals(cycleType) || "ciclo".equals(cycleType)) {
-            validateWhileCycle(headerTokens, bodyTokens, line, errors, info);
+            return result.toString();
         }
-    }
 
-    private static void validateForCycle(List<Token> headerTokens, List<Token> bodyTokens, 
-                                       int line, StringBuilder errors, StringBuilder info) {
-        info.append("  Validando estructura FOR en línea ").append(line).append("\n");
+        private void validateCycleStructure(int cycleIndex) {
+            String cycleType = tokens.getValue(cycleIndex);
+            int line = tokens.getLine(cycleIndex);
 
-        // Dividir la cabecera del for por punto y coma
-        List<List<Token>> forParts = splitByDelimiter(headerTokens, ";");
-        
-        if (forParts.size() != 3) {
-            errors.append("ERROR: FOR en línea ").append(line)
-                  .append(" debe tener exactamente 3 partes separadas por ';' (inicialización; condición; incremento). ")
-                  .append("Encontradas: ").append(forParts.size()).append(" partes.\n");
-            return;
-        }
+            // Buscar paréntesis de apertura
+            int parenStart = brackets.nextParen(cycleIndex + 1);
+            if (parenStart == -1) {
+                errors.append("ERROR: Ciclo '").append(cycleType)
+                      .append("' en línea ").append(line)
+                      .append(" no tiene paréntesis de apertura '(' para la condición.\n");
+                return;
+            }
 
-        List<Token> initTokens = forParts.get(0);
-        List<Token> condTokens = forParts.get(1);
-        List<Token> incrTokens = forParts.get(2);
+            // Buscar paréntesis de cierre
+            int parenEnd = brackets.matchOf(parenStart);
+            if (parenEnd == -1) {
+                errors.append("ERROR: Ciclo '").append(cycleType)
+                      .append("' en línea ").append(line)
+                      .append(" no tiene paréntesis de cierre ')' para la condición.\n");
+                return;
+            }
 
-        // Validar inicialización
-        if (initTokens.isEmpty()) {
-            errors.append("ERROR: FOR en línea ").append(line)
-                  .append(" no tiene inicialización. Ejemplo: 'i = 0'\n");
-        } else {
-            validateAssignment(initTokens, line, errors, "inicialización del FOR");
-        }
+            // Buscar llaves del bloque
+            int braceStart = brackets.nextBrace(parenEnd + 1);
+            if (braceStart == -1) {
+                errors.append("ERROR: Ciclo '").append(cycleType)
+                      .append("' en línea ").append(line)
+                      .append(" no tiene llave de apertura '{' para el bloque de código.\n");
+                return;
+            }
 
-        // Validar condición
-        if (condTokens.isEmpty()) {
-            errors.append("ERROR: FOR en línea ").append(line)
-                  .append(" no tiene condición. Ejemplo: 'i < 10'\n");
-        } else {
-            validateConditionExpression(condTokens, line, errors, "condición del FOR");
-        }
+            int braceEnd = brackets.matchOf(braceStart);
+            if (braceEnd == -1) {
+                errors.append("ERROR: Ciclo '").append(cycleType)
+                      .append("' en línea ").append(line)
+                      .append(" no tiene llave de cierre '}' para el bloque de código.\n");
+                return;
+            }
 
-        // Validar incremento
-        if (incrTokens.isEmpty()) {
-            errors.append("ERROR: FOR en línea ").append(line)
-                  .append(" no tiene incremento. Ejemplo: 'i = i + 1'\n");
-        } else {
-            validateAssignment(incrTokens, line, errors, "incremento del FOR");
+            // Condición/inicialización y cuerpo
+            TokenSlice header = tokens.subSlice(parenStart + 1, parenEnd);
+            TokenSlice body = tokens.subSlice(braceStart + 1, braceEnd);
+
+            // Validar según el tipo de ciclo
+            if ("for".equals(cycleType)) {
+                validateForCycle(header, body, line);
+            } else if ("while".equals(cycleType) || "loop".equals(cycleType) || "ciclo".equals(cycleType)) {
+                validateWhileCycle(header, body, line);
+            }
         }
 
-        // Validar cuerpo del ciclo
-        validateCycleBody(bodyTokens, line, errors, info);
-    }
+        private void validateForCycle(TokenSlice header, TokenSlice body, int line) {
+            info.append("  Validando estructura FOR en línea ").append(line).append("\n");
 
-    private static void validateWhileCycle(List<Token> headerTokens, List<Token> bodyTokens, 
-                                         int line, StringBuilder errors, StringBuilder info) {
-        info.append("  Validando estructura WHILE/LOOP en línea ").append(line).append("\n");
+            // La cabecera del for tiene 3 partes separadas por punto y coma
+            int partCount = header.count(";") + 1;
+            
+            if (partCount != 3) {
+                errors.append("ERROR: FOR en línea ").append(line)
+                      .append(" debe tener exactamente 3 partes separadas por ';' (inicialización; condición; incremento). ")
+                      .append("Encontradas: ").append(partCount).append(" partes.\n");
+                return;
+            }
 
-        if (headerTokens.isEmpty()) {
-            errors.append("ERROR: WHILE/LOOP en línea ").append(line)
-                  .append(" no tiene condición. Ejemplo: 'x > 0'\n");
-            return;
-        }
+            int first = header.indexOf(";", 0);
+            int second = header.indexOf(";", first + 1);
+            TokenSlice init = header.subSlice(0, first);
+            TokenSlice cond = header.subSlice(first + 1, second);
+            TokenSlice incr = header.subSlice(second + 1, header.size());
 
-        // Validar condición
-        validateConditionExpression(headerTokens, line, errors, "condición del WHILE/LOOP");
+            // Validar inicialización
+            if (init.isEmpty()) {
+                errors.append("ERROR: FOR en línea ").append(line)
+                      .append(" no tiene inicialización. Ejemplo: 'i = 0'\n");
+            } else {
+                validateAssignment(init, line, "inicialización del FOR");
+            }
 
-        // Validar cuerpo del ciclo
-        validateCycleBody(bodyTokens, line, errors, info);
-    }
+            // Validar condición
+            if (cond.isEmpty()) {
+                errors.append("ERROR: FOR en línea ").append(line)
+                      .append(" no tiene condición. Ejemplo: 'i < 10'\n");
+            } else {
+                validateConditionExpression(cond, line, "condición del FOR");
+            }
 
-    private static void validateAssignment(List<Token> tokens, int line, StringBuilder errors, String context) {
-        if (tokens.size() < 3) {
-            errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                  .append(" incompleta. Se esperaba: variable = valor\n");
-            return;
-        }
+            // Validar incremento
+            if (incr.isEmpty()) {
+                errors.append("ERROR: FOR en línea ").append(line)
+                      .append(" no tiene incremento. Ejemplo: 'i = i + 1'\n");
+            } else {
+                validateAssignment(incr, line, "incremento del FOR");
+            }
 
-        Token variable = tokens.get(0);
-        Token equals = tokens.get(1);
-        
-        // Validar que sea un identificador
-        if (variable.getType() != Token.Type.IDENTIFIER_VAR && variable.getType() != Token.Type.IDENTIFIER_TYPE) {
-            errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                  .append(" debe comenzar con una variable válida, no '").append(variable.getValue()).append("'\n");
-            return;
+            // Validar cuerpo del ciclo
+            validateCycleBody(body, line);
         }
 
-        // Validar operador de asignación
-        if (!"=".equals(equals.getValue())) {
-            errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                  .append(" debe usar '=' para asignación, no '").append(equals.getValue()).append("'\n");
-            return;
+        private void validateWhileCycle(TokenSlice header, TokenSlice body, int line) {
+            info.append("  Validando estructura WHILE/LOOP en línea ").append(line).append("\n");
+
+            if (header.isEmpty()) {
+                errors.append("ERROR: WHILE/LOOP en línea ").append(line)
+                      .append(" no tiene condición. Ejemplo: 'x > 0'\n");
+                return;
+            }
+
+            // Validar condición
+            validateConditionExpression(header, line, "condición del WHILE/LOOP");
+
+            // Validar cuerpo del ciclo
+            validateCycleBody(body, line);
         }
 
-        // Validar la expresión del lado derecho
-        List<Token> rightSide = tokens.subList(2, tokens.size());
-        validateExpression(rightSide, line, errors, context + " - lado derecho");
+        private void validateAssignment(TokenSlice tokens, int line, String context) {
+            if (tokens.size() < 3) {
+                errors.append("ERROR: ").append(context).append(" en línea ").append(line)
+                      .append(" incompleta. Se esperaba: variable = valor\n");
+                return;
+            }
 
-        // Verificar compatibilidad de tipos con validación estricta
-        String varName = variable.getValue();
-        String previousType = variableTypes.get(varName);
-        
-        if (rightSide.size() >= 1) {
-            String assignedType = inferExpressionType(rightSide);
+            int variable = 0;
+            int equals = 1;
             
-            // Validación adicional: verificar cada token individual para detectar mezclas de tipos
-            for (Token token : rightSide) {
-                String tokenType = inferType(token);
-                if (!tokenType.equals("unknown") && !tokenType.equals(assignedType)) {
-                    // Detectar mezcla de tipos en la expresión
-                    if ((assignedType.equals("numeric") && tokenType.equals("string")) ||
-                        (assignedType.equals("string") && tokenType.equals("numeric"))) {
-                        errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                              .append(" - MEZCLA DE TIPOS INCOMPATIBLES. Expresión contiene tanto valores numéricos como texto. ")
-                              .append("Token '").append(token.getValue()).append("' es de tipo ").append(tokenType)
-                              .append(" pero la expresión se evaluó como ").append(assignedType).append("\n");
-                    }
-                }
+            // Validar que sea un identificador
+            if (tokens.getType(variable) != Token.Type.IDENTIFIER_VAR && tokens.getType(variable) != Token.Type.IDENTIFIER_TYPE) {
+                errors.append("ERROR: ").append(context).append(" en línea ").append(line)
+                      .append(" debe comenzar con una variable válida, no '").append(tokens.getValue(variable)).append("'\n");
+                return;
             }
+
+            // Validar operador de asignación
+            if (!tokens.valueEquals(equals, "=")) {
+                errors.append("ERROR: ").append(context).append(" en línea ").append(line)
+                      .append(" debe usar '=' para asignación, no '").append(tokens.getValue(equals)).append("'\n");
+                return;
+            }
+
+            // Validar la expresión del lado derecho
+            TokenSlice right = tokens.subSlice(2, tokens.size());
+            validateExpression(right, line, context + " - lado derecho");
+
+            // Verificar compatibilidad de tipos con validación estricta
+            String varName = tokens.getValue(variable);
+            String previousType = variableTypes.get(varName);
             
-            if (previousType != null) {
-                // La variable ya fue declarada anteriormente
-                if (!isCompatibleType(previousType, assignedType)) {
-                    errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                          .append(" - INCOMPATIBILIDAD DE TIPOS. Variable '").append(varName)
-                          .append("' fue declarada como tipo '").append(previousType)
-                          .append("' pero se intenta asignar un valor de tipo '").append(assignedType).append("'.\n")
-                          .append("  Ejemplo de valor esperado para tipo '").append(previousType).append("': ")
-                          .append(getExampleValue(previousType)).append("\n")
-                          .append("  Valor actual detectado como tipo '").append(assignedType).append("': ");
-                    
-                    // Mostrar los tokens problemáticos
-                    for (int i = 0; i < rightSide.size(); i++) {
-                        errors.append(rightSide.get(i).getValue());
-                        if (i < rightSide.size() - 1) errors.append(" ");
+            if (right.size() >= 1) {
+                String assignedType = inferExpressionType(right);
+                
+                // Validación adicional: verificar cada token individual para detectar mezclas de tipos
+                for (int token = 0; token < right.size(); token++) {
+                    String tokenType = inferType(right, token);
+                    if (!tokenType.equals("unknown") && !tokenType.equals(assignedType)) {
+                        // Detectar mezcla de tipos en la expresión
+                        if ((assignedType.equals("numeric") && tokenType.equals("string")) ||
+                            (assignedType.equals("string") && tokenType.equals("numeric"))) {
+                            errors.append("ERROR: ").append(context).append(" en línea ").append(line)
+                                  .append(" - MEZCLA DE TIPOS INCOMPATIBLES. Expresión contiene tanto valores numéricos como texto. ")
+                                  .append("Token '").append(right.getValue(token)).append("' es de tipo ").append(tokenType)
+                                  .append(" pero la expresión se evaluó como ").append(assignedType).append("\n");
+                        }
                     }
-                    errors.append("\n");
-                } else {
-                    // Tipo compatible, pero reportar información útil si hay conversión
-                    if (!previousType.equals(assignedType) && !assignedType.equals("unknown")) {
-                        errors.append("INFO: ").append(context).append(" en línea ").append(line)
-                              .append(" - Variable '").append(varName).append("' cambió de tipo '")
-                              .append(previousType).append("' a '").append(assignedType)
-                              .append("' (conversión automática permitida).\n");
+                }
+                
+                if (previousType != null) {
+                    // La variable ya fue declarada anteriormente
+                    if (!isCompatibleType(previousType, assignedType)) {
+                        errors.append("ERROR: ").append(context).append(" en línea ").append(line)
+                              .append(" - INCOMPATIBILIDAD DE TIPOS. Variable '").append(varName)
+                              .append("' fue declarada como tipo '").append(previousType)
+                              .append("' pero se intenta asignar un valor de tipo '").append(assignedType).append("'.\n")
+                              .append("  Ejemplo de valor esperado para tipo '").append(previousType).append("': ")
+                              .append(getExampleValue(previousType)).append("\n")
+                              .append("  Valor actual detectado como tipo '").append(assignedType).append("': ");
+                        
+                        // Mostrar los tokens problemáticos
+                        errors.append(right).append("\n");
+                    } else {
+                        // Tipo compatible, pero reportar información útil si hay conversión
+                        if (!previousType.equals(assignedType) && !assignedType.equals("unknown")) {
+                            errors.append("INFO: ").append(context).append(" en línea ").append(line)
+                                  .append(" - Variable '").append(varName).append("' cambió de tipo '")
+                                  .append(previousType).append("' a '").append(assignedType)
+                                  .append("' (conversión automática permitida).\n");
+                        }
                     }
+                } else {
+                    // Primera asignación de la variable
+                    variableTypes.put(varName, assignedType);
+                }
+                
+                // Validación adicional para asignaciones numéricas
+                if ("numeric".equals(assignedType) && right.size() > 2) {
+                    validateNumericExpression(right, line, context);
                 }
-            } else {
-                // Primera asignación de la variable
-                variableTypes.put(varName, assignedType);
-            }
-            
-            // Validación adicional para asignaciones numéricas
-            if ("numeric".equals(assignedType) && rightSide.size() > 2) {
-                validateNumericExpression(rightSide, line, errors, context);
             }
         }
-    }
 
-    private static void validateConditionExpression(List<Token> tokens, int line, StringBuilder errors, String context) {
-        if (tokens.isEmpty()) {
-            errors.append("ERROR: ").append(context).append(" en línea ").append(line).append(" está vacía\n");
-            return;
-        }
-
-        // Validar que todas las variables estén definidas
-        for (Token token : tokens) {
-            if ((token.getType() == Token.Type.IDENTIFIER_VAR || token.getType() == Token.Type.IDENTIFIER_TYPE) 
-                && !variableTypes.containsKey(token.getValue())) {
-                errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                      .append(" usa variable no definida: '").append(token.getValue()).append("'\n");
+        private void validateConditionExpression(TokenSlice tokens, int line, String context) {
+            if (tokens.isEmpty()) {
+                errors.append("ERROR: ").append(context).append(" en línea ").append(line).append(" está vacía\n");
+                return;
             }
-        }
 
-        // Validar operadores de comparación y compatibilidad de tipos
-        boolean hasComparisonOp = false;
-        for (int i = 0; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
-            if (token.getType() == Token.Type.SYMBOL || token.getType() == Token.Type.OPERATOR) {
-                String op = token.getValue();
-                if (op.equals("<") || op.equals(">") || op.equals("<=") || op.equals(">=") || 
-                    op.equals("==") || op.equals("/=")) {
-                    hasComparisonOp = true;
-                    
-                    // Validar tipos de los operandos
-                    if (i > 0 && i < tokens.size() - 1) {
-                        Token leftToken = tokens.get(i - 1);
-                        Token rightToken = tokens.get(i + 1);
+            // Validar que todas las variables estén definidas
+            validateExpression(tokens, line, context);
+
+            // Validar operadores de comparación y compatibilidad de tipos
+            boolean hasComparisonOp = false;
+            int last = tokens.size() - 1;
+            for (int i = 0; i < tokens.size(); i++) {
+                Token.Type type = tokens.getType(i);
+                if (type == Token.Type.SYMBOL || type == Token.Type.OPERATOR) {
+                    String op = tokens.getValue(i);
+                    if (op.equals("<") || op.equals(">") || op.equals("<=") || op.equals(">=") || 
+                        op.equals("==") || op.equals("/=")) {
+                        hasComparisonOp = true;
                         
-                        String leftType = inferType(leftToken);
-                        String rightType = inferType(rightToken);
-                        
-                        // Validar que los tipos sean compatibles para comparación
-                        if (!leftType.equals("unknown") && !rightType.equals("unknown")) {
-                            if (!areComparableTypes(leftType, rightType)) {
-                                errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                                      .append(" - INCOMPATIBILIDAD DE TIPOS en comparación. ")
-                                      .append("No se puede comparar '").append(leftToken.getValue())
-                                      .append("' (tipo: ").append(leftType).append(") ")
-                                      .append("con '").append(rightToken.getValue())
-                                      .append("' (tipo: ").append(rightType).append(") ")
-                                      .append("usando el operador '").append(op).append("'.\n")
-                                      .append("  Los tipos deben ser compatibles para realizar comparaciones.\n");
+                        // Validar tipos de los operandos
+                        if (i > 0 && i < last) {
+                            int leftToken = i - 1;
+                            int rightToken = i + 1;
+                            
+                            String leftType = inferType(tokens, leftToken);
+                            String rightType = inferType(tokens, rightToken);
+                            
+                            // Validar que los tipos sean compatibles para comparación
+                            if (!leftType.equals("unknown") && !rightType.equals("unknown")) {
+                                if (!areComparableTypes(leftType, rightType)) {
+                                    errors.append("ERROR: ").append(context).append(" en línea ").append(line)
+                                          .append(" - INCOMPATIBILIDAD DE TIPOS en comparación. ")
+                                          .append("No se puede comparar '").append(tokens.getValue(leftToken))
+                                          .append("' (tipo: ").append(leftType).append(") ")
+                                          .append("con '").append(tokens.getValue(rightToken))
+                                          .append("' (tipo: ").append(rightType).append(") ")
+                                          .append("usando el operador '").append(op).append("'.\n")
+                                          .append("  Los tipos deben ser compatibles para realizar comparaciones.\n");
+                                }
+                                
+                                // Validación especial para operadores de orden (<, >, <=, >=)
+                                if ((op.equals("<") || op.equals(">") || op.equals("<=") || op.equals(">=")) &&
+                                    (!leftType.equals("numeric") || !rightType.equals("numeric"))) {
+                                    errors.append("ERROR: ").append(context).append(" en línea ").append(line)
+                                          .append(" - Los operadores de orden (").append(op)
+                                          .append(") solo pueden usarse con valores numéricos. ")
+                                          .append("Encontrado: '").append(tokens.getValue(leftToken)).append("' (")
+                                          .append(leftType).append(") y '").append(tokens.getValue(rightToken))
+                                          .append("' (").append(rightType).append(")\n");
+                                }
                             }
+                        }
+                    } else if (op.equals("&&") || op.equals("||")) {
+                        // Validar operadores lógicos
+                        if (i > 0 && i < last) {
+                            int leftToken = i - 1;
+                            int rightToken = i + 1;
                             
-                            // Validación especial para operadores de orden (<, >, <=, >=)
-                            if ((op.equals("<") || op.equals(">") || op.equals("<=") || op.equals(">=")) &&
-                                (!leftType.equals("numeric") || !rightType.equals("numeric"))) {
+                            String leftType = inferType(tokens, leftToken);
+                            String rightType = inferType(tokens, rightToken);
+                            
+                            if (!leftType.equals("boolean") && !leftType.equals("unknown")) {
                                 errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                                      .append(" - Los operadores de orden (").append(op)
-                                      .append(") solo pueden usarse con valores numéricos. ")
-                                      .append("Encontrado: '").append(leftToken.getValue()).append("' (")
-                                      .append(leftType).append(") y '").append(rightToken.getValue())
-                                      .append("' (").append(rightType).append(")\n");
+                                      .append(" - El operador '").append(op).append("' requiere operandos booleanos. ")
+                                      .append("Operando izquierdo '").append(tokens.getValue(leftToken))
+                                      .append("' es de tipo ").append(leftType).append("\n");
+                            }
+                            if (!rightType.equals("boolean") && !rightType.equals("unknown")) {
+                                errors.append("ERROR: ").append(context).append(" en línea ").append(line)
+                                      .append(" - El operador '").append(op).append("' requiere operandos booleanos. ")
+                                      .append("Operando derecho '").append(tokens.getValue(rightToken))
+                                      .append("' es de tipo ").append(rightType).append("\n");
                             }
-                        }
-                    }
-                } else if (op.equals("&&") || op.equals("||")) {
-                    // Validar operadores lógicos
-                    if (i > 0 && i < tokens.size() - 1) {
-                        Token leftToken = tokens.get(i - 1);
-                        Token rightToken = tokens.get(i + 1);
-                        
-                        String leftType = inferType(leftToken);
-                        String rightType = inferType(rightToken);
-                        
-                        if (!leftType.equals("boolean") && !leftType.equals("unknown")) {
-                            errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                                  .append(" - El operador '").append(op).append("' requiere operandos booleanos. ")
-                                  .append("Operando izquierdo '").append(leftToken.getValue())
-                                  .append("' es de tipo ").append(leftType).append("\n");
-                        }
-                        if (!rightType.equals("boolean") && !rightType.equals("unknown")) {
-                            errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                                  .append(" - El operador '").append(op).append("' requiere operandos booleanos. ")
-                                  .append("Operando derecho '").append(rightToken.getValue())
-                                  .append("' es de tipo ").append(rightType).append("\n");
                         }
                     }
                 }
             }
-        }
-
-        if (!hasComparisonOp) {
-            errors.append("WARNING: ").append(context).append(" en línea ").append(line)
-                  .append(" no parece tener operadores de comparación. ")
-                  .append("¿Está seguro de que es una condición válida?\n");
-        }
-    }
 
-    private static void validateCycleBody(List<Token> bodyTokens, int line, StringBuilder errors, StringBuilder info) {
-        if (bodyTokens.isEmpty()) {
-            errors.append("WARNING: Cuerpo del ciclo en línea ").append(line).append(" está vacío\n");
-            return;
+            if (!hasComparisonOp) {
+                errors.append("WARNING: ").append(context).append(" en línea ").append(line)
+                      .append(" no parece tener operadores de comparación. ")
+                      .append("¿Está seguro de que es una condición válida?\n");
+            }
         }
 
-        info.append("  Validando cuerpo del ciclo con ").append(bodyTokens.size()).append(" tokens\n");
+        private void validateCycleBody(TokenSlice tokens, int line) {
+            if (tokens.isEmpty()) {
+                errors.append("WARNING: Cuerpo del ciclo en línea ").append(line).append(" está vacío\n");
+                return;
+            }
 
-        // Buscar y validar asignaciones en el cuerpo
-        for (int i = 0; i < bodyTokens.size() - 2; i++) {
-            if ((bodyTokens.get(i).getType() == Token.Type.IDENTIFIER_VAR || 
-                 bodyTokens.get(i).getType() == Token.Type.IDENTIFIER_TYPE) &&
-                "=".equals(bodyTokens.get(i + 1).getValue())) {
-                
-                List<Token> assignment = new ArrayList<>();
-                int j = i;
-                // Recoger toda la asignación hasta el final de la línea o punto y coma
-                while (j < bodyTokens.size() && !";".equals(bodyTokens.get(j).getValue()) && 
-                       !(j > i && (bodyTokens.get(j).getType() == Token.Type.IDENTIFIER_VAR || 
-                                   bodyTokens.get(j).getType() == Token.Type.IDENTIFIER_TYPE) &&
-                         j + 1 < bodyTokens.size() && "=".equals(bodyTokens.get(j + 1).getValue()))) {
-                    assignment.add(bodyTokens.get(j));
-                    j++;
+            int to = tokens.size();
+            info.append("  Validando cuerpo del ciclo con ").append(to).append(" tokens\n");
+
+            // Buscar y validar asignaciones en el cuerpo
+            for (int i = 0; i < to - 2; i++) {
+                if (isIdentifier(tokens, i) && tokens.valueEquals(i + 1, "=")) {
+                    int j = i;
+                    // Recoger toda la asignación hasta el final de la línea o punto y coma
+                    while (j < to && !tokens.valueEquals(j, ";") && 
+                           !(j > i && isIdentifier(tokens, j) &&
+                             j + 1 < to && tokens.valueEquals(j + 1, "="))) {
+                        j++;
+                    }
+                    
+                    validateAssignment(tokens.subSlice(i, j), line, "asignación en cuerpo del ciclo");
+                    i = j - 1; // Saltar los tokens ya procesados
                 }
-                
-                validateAssignment(assignment, line, errors, "asignación en cuerpo del ciclo");
-                i = j - 1; // Saltar los tokens ya procesados
             }
         }
-    }
 
-    private static String inferExpressionType(List<Token> tokens) {
-        if (tokens.isEmpty()) return "unknown";
-        
-        // Para expresiones simples, usar el tipo del primer token significativo
-        for (Token token : tokens) {
-            if (token.getType() != Token.Type.SYMBOL && token.getType() != Token.Type.OPERATOR) {
-                return inferType(token);
+        private String inferExpressionType(TokenSlice tokens) {
+            if (tokens.isEmpty()) return "unknown";
+            
+            // Para expresiones simples, usar el tipo del primer token significativo
+            for (int i = 0; i < tokens.size(); i++) {
+                if (tokens.getType(i) != Token.Type.SYMBOL && tokens.getType(i) != Token.Type.OPERATOR) {
+                    return inferType(tokens, i);
+                }
             }
+            return "unknown";
         }
-        return "unknown";
-    }
 
-    private static void validateExpression(List<Token> tokens, int line, StringBuilder errors, String context) {
-        for (Token token : tokens) {
-            if ((token.getType() == Token.Type.IDENTIFIER_VAR || token.getType() == Token.Type.IDENTIFIER_TYPE) 
-                && !variableTypes.containsKey(token.getValue())) {
-                errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                      .append(" usa variable no definida: '").append(token.getValue()).append("'\n");
+        private void validateExpression(TokenSlice tokens, int line, String context) {
+            if (!checkVariables) {
+                return;
+            }
+            for (int i = 0; i < tokens.size(); i++) {
+                if (isIdentifier(tokens, i)) {
+                    String name = tokens.getValue(i);
+                    if (!variableTypes.containsKey(name)) {
+                        errors.append("ERROR: ").append(context).append(" en línea ").append(line)
+                              .append(" usa variable no definida: '").append(name).append("'\n");
+                    }
+                }
             }
         }
-    }
 
-    // Métodos auxiliares para navegación de tokens
-    private static int findNextToken(List<Token> tokens, int start, Token.Type type, String value) {
-        for (int i = start; i < tokens.size(); i++) {
-            if (tokens.get(i).getType() == type && (value == null || value.equals(tokens.get(i).getValue()))) {
-                return i;
+        private void initializeVariableTypes(TokenSlice tokens) {
+                for (int i = 0; i < tokens.size() - 2; i++) {
+                if (tokens.getType(i) == Token.Type.IDENTIFIER_VAR &&
+                    i + 1 < tokens.size() && tokens.valueEquals(i + 1, "=")) {
+                    
+                    String type = inferType(tokens, i + 2);
+                    String varName = tokens.getValue(i);
+                    
+                    // Registrar la primera declaración de cada variable
+                    if (!variableTypes.containsKey(varName)) {
+                        variableTypes.put(varName, type);
+                    }
+                }
             }
         }
-        return -1;
-    }
 
-    private static int findMatchingCloseParen(List<Token> tokens, int openIndex) {
-        int balance = 1;
-        for (int i = openIndex + 1; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
-            if (token.getType() == Token.Type.TUPLE_START || "(".equals(token.getValue())) {
-                balance++;
-            } else if (token.getType() == Token.Type.TUPLE_END || ")".equals(token.getValue())) {
-                balance--;
-                if (balance == 0) return i;
+        private String inferType(TokenSlice tokens, int index) {
+            switch (tokens.getType(index)) {
+                case INTEGER:
+                case FLOAT:
+                    return "numeric";
+                case STRING:
+                    return "string";
+                case BOOLEAN:
+                    return "boolean";
+                case CHAR:
+                    return "char";
+                case IDENTIFIER_VAR:
+                case IDENTIFIER_TYPE:
+                    String type = variableTypes.get(tokens.getValue(index));
+                    if (type == null) {
+                        // Si la variable no está definida, intentamos inferir su tipo por el valor
+                        String value = tokens.getValue(index);
+                        if (isDecimalText(value)) {
+                            return "numeric";
+                        } else if (value.startsWith("\"") && value.endsWith("\"")) {
+                            return "string";
+                        } else if (value.equals("True") || value.equals("False")) {
+                            return "boolean";
+                        } else if (value.startsWith("'") && value.endsWith("'") && value.length() == 3) {
+                            return "char";
+                        }
+                    }
+                    return type != null ? type : "unknown";
+                case SYMBOL:
+                    // Reconocer valores literales que pueden venir como símbolos
+                    String value = tokens.getValue(index);
+                    if (isDigits(value, 0, value.length())) {
+                        return "numeric";
+                    } else if (value.startsWith("\"") && value.endsWith("\"")) {
+                        return "string";
+                    }
+                    return "unknown";
+                default:
+                    // Para tokens que no tienen tipo específico, intentar inferir por valor
+                    String tokenValue = tokens.getValue(index);
+                    if (tokenValue != null) {
+                        // Detectar números enteros y decimales
+                        if (isDecimalText(tokenValue)) {
+                            return "numeric";
+                        } 
+                        // Detectar strings - ser más flexible con las comillas
+                        else if ((tokenValue.startsWith("\"") && tokenValue.endsWith("\"")) ||
+                                 (tokenValue.startsWith("'") && tokenValue.endsWith("'") && tokenValue.length() > 3)) {
+                            return "string";
+                        } 
+                        // Detectar caracteres individuales
+                        else if (tokenValue.startsWith("'") && tokenValue.endsWith("'") && tokenValue.length() == 3) {
+                            return "char";
+                        } 
+                        // Detectar booleanos
+                        else if (tokenValue.equals("True") || tokenValue.equals("False")) {
+                            return "boolean";
+                        }
+                        // Detectar strings sin comillas (caso especial para el lexer)
+                        else if (isAsciiLetters(tokenValue)) {
+                            // Si es una palabra sin números, podría ser un string literal sin comillas
+                            // Esto captura casos como 'hi' en lugar de '"hi"'
+                            return "string";
+                        }
+                    }
+                    return "unknown";
             }
         }
-        return -1;
-    }
 
-    private static int findMatchingCloseBrace(List<Token> tokens, int openIndex) {
-        int balance = 1;
-        for (int i = openIndex + 1; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
-            if ("{".equals(token.getValue())) {
-                balance++;
-            } else if ("}".equals(token.getValue())) {
-                balance--;
-                if (balance == 0) return i;
+        private void validateNumericExpression(TokenSlice tokens, int line, String context) {
+            // Validar que una expresión numérica sea coherente
+            for (int i = 0; i < tokens.size(); i++) {
+                String tokenType = inferType(tokens, i);
+                
+                // Si encontramos un operador, verificar que los operandos sean numéricos
+                if (tokens.getType(i) == Token.Type.SYMBOL || tokens.getType(i) == Token.Type.OPERATOR) {
+                    String op = tokens.getValue(i);
+                    if (op.equals("+") || op.equals("-") || op.equals("*") || op.equals("/")) {
+                        // Verificar operandos izquierdo y derecho
+                        if (i > 0) {
+                            String leftType = inferType(tokens, i - 1);
+                            if (!leftType.equals("numeric") && !leftType.equals("unknown")) {
+                                errors.append("ERROR: ").append(context).append(" en línea ").append(line)
+                                      .append(" - operando izquierdo del operador '").append(op)
+                                      .append("' no es numérico (tipo: ").append(leftType).append(")\n");
+                            }
+                        }
+                        if (i < tokens.size() - 1) {
+                            String rightType = inferType(tokens, i + 1);
+                            if (!rightType.equals("numeric") && !rightType.equals("unknown")) {
+                                errors.append("ERROR: ").append(context).append(" en línea ").append(line)
+                                      .append(" - operando derecho del operador '").append(op)
+                                      .append("' no es numérico (tipo: ").append(rightType).append(")\n");
+                            }
+                        }
+                    }
+                } else if (!tokenType.equals("numeric") && !tokenType.equals("unknown")) {
+                    // Token no numérico en expresión numérica
+                    errors.append("ERROR: ").append(context).append(" en línea ").append(line)
+                          .append(" - token no numérico '").append(tokens.getValue(i))
+                          .append("' (tipo: ").append(tokenType).append(") en expresión numérica\n");
+                }
             }
         }
-        return -1;
     }
 
-    private static List<Token> extractTokens(List<Token> tokens, int start, int end) {
-        if (start >= end || start < 0 || end > tokens.size()) {
-            return new ArrayList<>();
-        }
-        return new ArrayList<>(tokens.subList(start, end));
+    private static boolean isCycleKeyword(TokenSlice tokens, int index) {
+        return tokens.valueEquals(index, "while") || tokens.valueEquals(index, "for") ||
+               tokens.valueEquals(index, "loop") || tokens.valueEquals(index, "ciclo");
     }
 
-    private static List<List<Token>> splitByDelimiter(List<Token> tokens, String delimiter) {
-        List<List<Token>> parts = new ArrayList<>();
-        List<Token> current = new ArrayList<>();
-        
-        for (Token token : tokens) {
-            if (delimiter.equals(token.getValue())) {
-                parts.add(new ArrayList<>(current));
-                current.clear();
-            } else {
-                current.add(token);
-            }
-        }
-        parts.add(current); // Agregar la última parte
-        
-        return parts;
+    private static boolean isIdentifier(TokenSlice tokens, int index) {
+        Token.Type type = tokens.getType(index);
+        return type == Token.Type.IDENTIFIER_VAR || type == Token.Type.IDENTIFIER_TYPE;
     }
 
-    private static boolean isCycleKeyword(String kw) {
-        return "while".equals(kw) || "for".equals(kw) || "loop".equals(kw) || "ciclo".equals(kw);
+    // Los literales ya llegan decodificados (INTEGER/FLOAT); estas comprobaciones cubren
+    // el texto de otros tokens sin compilar una expresión regular en cada llamada.
+
+    // \d+(\.\d+)?
+    private static boolean isDecimalText(String value) {
+        int dot = value.indexOf('.');
+        if (dot == -1) {
+            return isDigits(value, 0, value.length());
+        }
+        return isDigits(value, 0, dot) && isDigits(value, dot + 1, value.length());
     }
 
-    private static void initializeVariableTypes(List<Token> tokens) {
-        variableTypes.clear();
-        for (int i = 0; i < tokens.size() - 2; i++) {
-            if (tokens.get(i).getType() == Token.Type.IDENTIFIER_VAR &&
-                i + 1 < tokens.size() && tokens.get(i + 1).getValue().equals("=")) {
-                
-                Token valueToken = tokens.get(i + 2);
-                String type = inferType(valueToken);
-                String varName = tokens.get(i).getValue();
-                
-                // Registrar la primera declaración de cada variable
-                if (!variableTypes.containsKey(varName)) {
-                    variableTypes.put(varName, type);
-                }
+    // \d+ en [from, to)
+    private static boolean isDigits(String value, int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
             }
         }
+        return true;
     }
 
-    private static String inferType(Token token) {
-        if (token == null) return "unknown";
-        
-        switch (token.getType()) {
-            case INTEGER:
-            case FLOAT:
-                return "numeric";
-            case STRING:
-                return "string";
-            case BOOLEAN:
-                return "boolean";
-            case CHAR:
-                return "char";
-            case IDENTIFIER_VAR:
-            case IDENTIFIER_TYPE:
-                String type = variableTypes.get(token.getValue());
-                if (type == null) {
-                    // Si la variable no está definida, intentamos inferir su tipo por el valor
-                    String value = token.getValue();
-                    if (value.matches("\\d+(\\.\\d+)?")) {
-                        return "numeric";
-                    } else if (value.startsWith("\"") && value.endsWith("\"")) {
-                        return "string";
-                    } else if (value.equals("True") || value.equals("False")) {
-                        return "boolean";
-                    } else if (value.startsWith("'") && value.endsWith("'") && value.length() == 3) {
-                        return "char";
-                    }
-                }
-                return type != null ? type : "unknown";
-            case SYMBOL:
-                // Reconocer valores literales que pueden venir como símbolos
-                String value = token.getValue();
-                if (value.matches("\\d+")) {
-                    return "numeric";
-                } else if (value.startsWith("\"") && value.endsWith("\"")) {
-                    return "string";
-                }
-                return "unknown";
-            default:
-                // Para tokens que no tienen tipo específico, intentar inferir por valor
-                String tokenValue = token.getValue();
-                if (tokenValue != null) {
-                    // Detectar números enteros y decimales
-                    if (tokenValue.matches("\\d+(\\.\\d+)?")) {
-                        return "numeric";
-                    } 
-                    // Detectar strings - ser más flexible con las comillas
-                    else if ((tokenValue.startsWith("\"") && tokenValue.endsWith("\"")) ||
-                             (tokenValue.startsWith("'") && tokenValue.endsWith("'") && tokenValue.length() > 3)) {
-                        return "string";
-                    } 
-                    // Detectar caracteres individuales
-                    else if (tokenValue.startsWith("'") && tokenValue.endsWith("'") && tokenValue.length() == 3) {
-                        return "char";
-                    } 
-                    // Detectar booleanos
-                    else if (tokenValue.equals("True") || tokenValue.equals("False")) {
-                        return "boolean";
-                    }
-                    // Detectar strings sin comillas (caso especial para el lexer)
-                    else if (tokenValue.matches("[a-zA-Z]+") && !tokenValue.matches("\\d.*")) {
-                        // Si es una palabra sin números, podría ser un string literal sin comillas
-                        // Esto captura casos como 'hi' en lugar de '"hi"'
-                        return "string";
-                    }
-                }
-                return "unknown";
+    // [a-zA-Z]+
+    private static boolean isAsciiLetters(String value) {
+        if (value.isEmpty()) {
+            return false;
         }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z')) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private static boolean isCompatibleType(String type1, String type2) {
@@ -628,49 +756,12 @@ public class SemanticValidator {
                 return "valor del tipo " + type;
         }
     }
-
-    private static void validateNumericExpression(List<Token> tokens, int line, StringBuilder errors, String context) {
-        // Validar que una expresión numérica sea coherente
-        for (int i = 0; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
-            String tokenType = inferType(token);
-            
-            // Si encontramos un operador, verificar que los operandos sean numéricos
-            if (token.getType() == Token.Type.SYMBOL || token.getType() == Token.Type.OPERATOR) {
-                String op = token.getValue();
-                if (op.equals("+") || op.equals("-") || op.equals("*") || op.equals("/")) {
-                    // Verificar operandos izquierdo y derecho
-                    if (i > 0) {
-                        String leftType = inferType(tokens.get(i - 1));
-                        if (!leftType.equals("numeric") && !leftType.equals("unknown")) {
-                            errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                                  .append(" - operando izquierdo del operador '").append(op)
-                                  .append("' no es numérico (tipo: ").append(leftType).append(")\n");
-                        }
-                    }
-                    if (i < tokens.size() - 1) {
-                        String rightType = inferType(tokens.get(i + 1));
-                        if (!rightType.equals("numeric") && !rightType.equals("unknown")) {
-                            errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                                  .append(" - operando derecho del operador '").append(op)
-                                  .append("' no es numérico (tipo: ").append(rightType).append(")\n");
-                        }
-                    }
-                }
-            } else if (!tokenType.equals("numeric") && !tokenType.equals("unknown")) {
-                // Token no numérico en expresión numérica
-                errors.append("ERROR: ").append(context).append(" en línea ").append(line)
-                      .append(" - token no numérico '").append(token.getValue())
-                      .append("' (tipo: ").append(tokenType).append(") en expresión numérica\n");
-            }
-        }
-    }
     
     /**
      * Método para demostrar la integración del conversor de expresiones aritméticas
      * en el validador semántico
      */
-    public static String demonstrateArithmeticConversion(List<Token> tokens) {
+    public String demonstrateArithmeticConversion(List<Token> tokens) {
         StringBuilder result = new StringBuilder();
         result.append("=== ANÁLISIS DE EXPRESIONES ARITMÉTICAS ===\n");
         
@@ -0,0 +1,269 @@
+package proyecto.lenguaje.lexer;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Lexer en flujo para archivos grandes.
+ *
+ * Lee la entrada de un Reader (o de un canal de bytes UTF-8) a través de un
+ * buffer de tamaño fijo que se desliza sobre el texto, y entrega los tokens uno
+ * a uno como Iterator (o con forEachRemaining como callback), sin construir el
+ * String completo ni la lista de tokens.
+ *
+ * Los espacios y comentarios se saltan aquí, con las mismas reglas que
+ * HaskellLexer: si el buffer termina a mitad de un comentario se guarda si es
+ * de línea o la profundidad del bloque {- -}, se descarta lo ya leído y se
+ * continúa desde el final del buffer, sin volver a recorrer el comentario.
+ * Para saber si un token quedó cortado por el final del buffer se usa el
+ * alcance del cursor: si el lexer leyó (o preguntó por) la posición del final
+ * del buffer y la entrada aún no terminó, se leen más caracteres y se vuelve a
+ * reconocer desde el inicio del token. Así los strings, identificadores y
+ * comentarios que cruzan el límite se reconocen igual que con
+ * tokenize(String). La memoria queda acotada por el tamaño del buffer o, si es
+ * mayor, por el token más largo; las posiciones siguen siendo desplazamientos
+ * de caracteres desde el inicio del flujo.
+ */
+public class StreamingLexer implements Iterator<Token>, Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int LINE_COMMENT = -1;
+
+    private final HaskellLexer lexer = new HaskellLexer();
+    private final Reader reader;
+    private final Window window;
+    private HaskellLexer.Cursor cursor = new HaskellLexer.Cursor(0, 1);
+    private boolean endOfInput;
+    // Comentario abierto en la posición del cursor: 0 ninguno, LINE_COMMENT o la profundidad de {- -}
+    private int commentDepth;
+    private boolean finished;
+    private Token pending;
+
+    public StreamingLexer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public StreamingLexer(Reader reader, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Tamaño de buffer inválido: " + bufferSize);
+        }
+        this.reader = reader;
+        this.window = new Window(bufferSize);
+    }
+
+    public StreamingLexer(ReadableByteChannel channel) {
+        this(Channels.newReader(channel, StandardCharsets.UTF_8), DEFAULT_BUFFER_SIZE);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pending == null && !finished) {
+            pending = advance();
+            finished = pending == null;
+        }
+        return pending != null;
+    }
+
+    @Override
+    public Token next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Token token = pending;
+        pending = null;
+        return token;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Token advance() {
+        try {
+            while (true) {
+                if (!skipTrivia()) {
+                    // Lo saltado se descarta; el comentario abierto sigue en commentDepth
+                    refill(cursor.getPosition());
+                    continue;
+                }
+                int pos = cursor.getPosition();
+                int line = cursor.getLine();
+                Token token = lexer.nextToken(window, cursor);
+                if (endOfInput || (token != null && cursor.getReach() < window.length())) {
+                    return token;
+                }
+                // El token podría continuar en la parte aún no leída: reintentar con más texto
+                cursor = new HaskellLexer.Cursor(pos, line);
+                refill(pos);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void refill(int position) throws IOException {
+        window.discardBefore(position);
+        endOfInput = !window.fill(reader);
+    }
+
+    /**
+     * Avanza el cursor sobre espacios y comentarios, igual que HaskellLexer.scan.
+     * Devuelve true si quedó al inicio de un token o al final de la entrada, y
+     * false si hace falta leer más para continuar (un comentario sin terminar,
+     * o un '-' o '{' final que podría abrir uno).
+     */
+    private boolean skipTrivia() {
+        char[] chars = window.array();
+        int base = window.base();
+        int length = window.length();
+        int start = cursor.getPosition();
+        int pos = start;
+        int line = cursor.getLine();
+        boolean ready = false;
+        while (true) {
+            if (commentDepth == LINE_COMMENT) {
+                // Hasta el salto de línea, que se procesa como espacio
+                pos = VectorScan.indexOf(chars, '\n', pos - base, length - base) + base;
+                if (pos == length && !endOfInput) {
+                    break;
+                }
+                commentDepth = 0;
+            } else if (commentDepth > 0) {
+                while (pos < length - 1 && commentDepth > 0) {
+                    pos = VectorScan.indexOfAny(chars, '{', '-', '\n', pos - base, length - 1 - base) + base;
+                    if (pos >= length - 1) {
+                        break;
+                    }
+                    char c = chars[pos - base];
+                    char next = chars[pos + 1 - base];
+                    if (c == '{' && next == '-') {
+                        commentDepth++;
+                        pos += 2;
+                    } else if (c == '-' && next == '}') {
+                        commentDepth--;
+                        pos += 2;
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        pos++;
+                    }
+                }
+                if (commentDepth > 0) {
+                    if (!endOfInput) {
+                        break;
+                    }
+                    // Bloque sin cerrar: como en scan, el carácter final que quede se analiza aparte
+                    commentDepth = 0;
+                }
+            } else if (pos == length) {
+                ready = endOfInput;
+                break;
+            } else {
+                char c = chars[pos - base];
+                if (Character.isWhitespace(c)) {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    pos++;
+                } else if (c != '-' && c != '{') {
+                    ready = true;
+                    break;
+                } else if (pos == length - 1) {
+                    // Sin el carácter siguiente no se sabe si abre un comentario
+                    ready = endOfInput;
+                    break;
+                } else if (c == '-' && chars[pos + 1 - base] == '-') {
+                    commentDepth = LINE_COMMENT;
+                    pos += 2;
+                } else if (c == '{' && chars[pos + 1 - base] == '-') {
+                    commentDepth = 1;
+                    pos += 2;
+                } else {
+                    ready = true;
+                    break;
+                }
+            }
+        }
+        if (pos != start) {
+            cursor = new HaskellLexer.Cursor(pos, line);
+        }
+        return ready;
+    }
+
+    /**
+     * Porción del flujo que está en memoria. Los índices de charAt y
+     * subSequence son absolutos (desde el inicio del flujo) y length() es la
+     * posición del final de lo leído hasta ahora.
+     */
+    private static final class Window implements CharArrayText {
+        private final int size;
+        private char[] buffer;
+        private int start;   // posición absoluta de buffer[0]
+        private int count;   // caracteres válidos en el buffer
+
+        Window(int size) {
+            this.size = size;
+            buffer = new char[size];
+        }
+
+        // Libera los caracteres anteriores a la posición absoluta dada
+        void discardBefore(int position) {
+            int drop = position - start;
+            if (drop > 0) {
+                System.arraycopy(buffer, drop, buffer, 0, count - drop);
+                count -= drop;
+                start = position;
+            }
+        }
+
+        // Lee más caracteres (ampliando el buffer si está lleno, y volviendo al
+        // tamaño inicial cuando ya no hace falta más); false al terminar la entrada
+        boolean fill(Reader reader) throws IOException {
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else if (buffer.length > size && count < size / 2) {
+                buffer = Arrays.copyOf(buffer, size);
+            }
+            int read = reader.read(buffer, count, buffer.length - count);
+            if (read < 0) {
+                return false;
+            }
+            count += read;
+            return true;
+        }
+
+        @Override
+        public char[] array() {
+            return buffer;
+        }
+
+        @Override
+        public int base() {
+            return start;
+        }
+
+        @Override
+        public int length() {
+            return start + count;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return buffer[index - start];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(buffer, from - start, to - from);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buffer, 0, count);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package proyecto.lenguaje.lexer;
+
+import java.util.Arrays;
+
+/**
+ * Tabla de símbolos con direccionamiento abierto (sondeo lineal).
+ *
+ * Asigna a cada nombre distinto un id consecutivo y guarda una única instancia
+ * de su String, de modo que todas las apariciones de un identificador
+ * comparten el mismo objeto. La búsqueda se hace directamente sobre un rango
+ * del texto fuente, sin crear un String salvo la primera vez que aparece el
+ * nombre.
+ */
+public final class SymbolTable {
+    private int[] slots;      // id + 1 de cada casilla (0 = vacía)
+    private int[] hashes;     // hash de cada símbolo, por id
+    private String[] names;   // nombre de cada símbolo, por id
+    private int size;
+
+    public SymbolTable() {
+        this(64);
+    }
+
+    public SymbolTable(int expectedSymbols) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSymbols * 2 - 1)) << 1;
+        slots = new int[capacity];
+        hashes = new int[Math.max(8, expectedSymbols)];
+        names = new String[hashes.length];
+    }
+
+    /** Id del nombre en [start, end), o -1 si no está en la tabla. */
+    public int find(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                return -1;
+            }
+            if (hashes[id] == hash && matches(names[id], text, start, end)) {
+                return id;
+            }
+        }
+    }
+
+    /** Id del nombre en [start, end); lo agrega si es la primera vez que aparece. */
+    public int intern(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        for (; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                break;
+            }
+            if (hashes[id] == hash && matches(names[id], text, start, end)) {
+                return id;
+            }
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        names[id] = text.subSequence(start, end).toString();
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        // Mantener el factor de carga por debajo de 1/2
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    public int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    public String name(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Símbolo inexistente: " + id);
+        }
+        return names[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    // Mismo hash que String.hashCode, con los bits altos mezclados en los bajos
+    private static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String name, CharSequence text, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -23,12 +23,31 @@ public class Token {
     private final String value;
     private final int position;
     private final int line;
+    // Valor decodificado de los literales, calculado una sola vez (ver Literals)
+    private final long literal;
+    private final String stringValue;
 
     public Token(Type type, String value, int position, int line) {
+        this(type, value, position, line, Literals.encode(type, value, 0, value.length()));
+    }
+
+    // Con el valor ya decodificado por quien creó el token (p. ej. TokenBuffer)
+    Token(Type type, String value, int position, int line, long literal) {
         this.type = type;
         this.value = value;
         this.position = position;
         this.line = line;
+        this.literal = literal;
+        this.stringValue = type == Type.STRING ? decodeString(value) : null;
+    }
+
+    private Token(Token token, int position, int line) {
+        this.type = token.type;
+        this.value = token.value;
+        this.position = position;
+        this.line = line;
+        this.literal = token.literal;
+        this.stringValue = token.stringValue;
     }
 
     public Type getType() { return type; }
@@ -36,6 +55,64 @@ public class Token {
     public int getPosition() { return position; }
     public int getLine() { return line; }
 
+    /** El mismo token en otra posición y línea (conserva el valor ya decodificado). */
+    public Token moveTo(int position, int line) {
+        return new Token(this, position, line);
+    }
+
+    /**
+     * Valor de un INTEGER.
+     * @throws ArithmeticException si no cabe en un long
+     */
+    public long getLongValue() {
+        requireType(Type.INTEGER);
+        return literal != Literals.UNDECODED ? literal : Literals.parseInteger(value, 0, value.length());
+    }
+
+    /** Valor numérico de un INTEGER o FLOAT. */
+    public double getDoubleValue() {
+        if (type == Type.FLOAT) {
+            return Double.longBitsToDouble(literal);
+        }
+        requireType(Type.INTEGER);
+        return literal != Literals.UNDECODED ? literal : Literals.integerToDouble(value, 0, value.length());
+    }
+
+    /** Punto de código de un CHAR, con las secuencias de escape resueltas. */
+    public int getCharValue() {
+        requireType(Type.CHAR);
+        if (literal < 0) {
+            throw new IllegalStateException("Carácter inválido: " + value);
+        }
+        return (int) literal;
+    }
+
+    /** Contenido de un STRING, sin comillas y con las secuencias de escape resueltas. */
+    public String getStringValue() {
+        requireType(Type.STRING);
+        if (stringValue == null) {
+            throw new IllegalStateException("String inválido: " + value);
+        }
+        return stringValue;
+    }
+
+    // Codificación de Literals.encode (usada al copiar el token a un TokenBuffer)
+    long getLiteralBits() { return literal; }
+
+    private void requireType(Type expected) {
+        if (type != expected) {
+            throw new IllegalStateException("El token " + value + " es " + type + ", no " + expected);
+        }
+    }
+
+    private static String decodeString(String value) {
+        try {
+            return Literals.parseString(value, 0, value.length());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     @Override
     public String toString() {
         return String.format("'%s' (línea: %d, pos: %d) [%s]", value, line, position, type);
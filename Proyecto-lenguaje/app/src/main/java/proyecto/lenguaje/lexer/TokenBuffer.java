@@ -0,0 +1,248 @@
+package proyecto.lenguaje.lexer;
+
+import java.util.*;
+
+/**
+ * Secuencia de tokens compacta (estructura de arreglos).
+ *
+ * En lugar de un objeto Token con su propio String por cada token, guarda en
+ * arreglos paralelos el tipo, el desplazamiento inicial y final y la línea, y
+ * conserva una referencia al texto fuente. El texto de un token solo se crea
+ * cuando alguien lo pide con getValue; las comparaciones con valueEquals se
+ * hacen directamente sobre el texto fuente. Los identificadores guardan su id
+ * en la SymbolTable del lexer, y getValue devuelve el nombre compartido.
+ * La columna de cada token se obtiene del LineIndex del texto, que se crea
+ * la primera vez que se necesita (o se recibe ya construido); sin el texto,
+ * se deduce de los tokens.
+ * Con un OffHeapStore, los campos de los tokens se guardan fuera del heap
+ * (ver OffHeapTokenStorage), y el GC no tiene que recorrerlos.
+ */
+public final class TokenBuffer {
+    private final CharSequence source;
+    private final SymbolTable symbolTable;
+    // Solo para buffers construidos a partir de tokens ya materializados
+    private final String[] values;
+    // Tipo, inicio, fin, línea, símbolo y literal de cada token (en el heap o fuera de él)
+    private final TokenStorage storage;
+    private int size;
+    private LineIndex lineIndex;
+
+    public TokenBuffer(CharSequence source, SymbolTable symbolTable) {
+        this(source, symbolTable, null, new HeapTokenStorage(16));
+    }
+
+    /**
+     * Buffer cuyos tokens se guardan fuera del heap, en bloques del almacén
+     * dado (que debe seguir abierto mientras se use el buffer).
+     */
+    public TokenBuffer(CharSequence source, SymbolTable symbolTable, OffHeapStore store) {
+        this(source, symbolTable, null, new OffHeapTokenStorage(store, 1024));
+    }
+
+    private TokenBuffer(CharSequence source, SymbolTable symbolTable, String[] values, TokenStorage storage) {
+        this.source = source;
+        this.symbolTable = symbolTable;
+        this.values = values;
+        this.storage = storage;
+    }
+
+    /** Copia una lista de tokens ya creada (p. ej. la del lexer incremental). */
+    public static TokenBuffer of(List<Token> tokens) {
+        return of(tokens, null);
+    }
+
+    /** Igual que of(tokens), con el índice de líneas del texto del que provienen los tokens. */
+    public static TokenBuffer of(List<Token> tokens, LineIndex lineIndex) {
+        int count = tokens.size();
+        TokenBuffer buffer = new TokenBuffer(null, null, new String[count], new HeapTokenStorage(count));
+        for (Token token : tokens) {
+            buffer.values[buffer.size] = token.getValue();
+            buffer.add(token.getType(), token.getPosition(), token.getPosition() + token.getValue().length(),
+                token.getLine(), -1, token.getLiteralBits());
+        }
+        buffer.lineIndex = lineIndex;
+        return buffer;
+    }
+
+    // Agrega un token al final (usado por el lexer); symbol es -1 si no es identificador
+    void add(Token.Type type, int start, int end, int line, int symbol) {
+        // Los literales numéricos y de carácter se decodifican al agregarlos; los strings, al pedirlos
+        add(type, start, end, line, symbol, source != null ? Literals.encode(type, source, start, end) : 0);
+    }
+
+    private void add(Token.Type type, int start, int end, int line, int symbol, long literal) {
+        if (size == storage.capacity()) {
+            storage.grow(Math.max(16, storage.capacity() * 2), size);
+        }
+        storage.set(size, type, start, end, line, symbol, literal);
+        size++;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public Token.Type getType(int index) { return storage.type(checkIndex(index)); }
+    public int getPosition(int index) { return storage.start(checkIndex(index)); }
+    public int getEnd(int index) { return storage.end(checkIndex(index)); }
+    public int getLine(int index) { return storage.line(checkIndex(index)); }
+    public int getLength(int index) { return storage.end(checkIndex(index)) - storage.start(index); }
+    /** Id del identificador en la tabla de símbolos, o -1 si el token no es identificador. */
+    public int getSymbol(int index) { return storage.symbol(checkIndex(index)); }
+
+    /**
+     * Valor de un INTEGER.
+     * @throws ArithmeticException si no cabe en un long
+     */
+    public long getLongValue(int index) {
+        requireType(index, Token.Type.INTEGER);
+        return storage.literal(index) != Literals.UNDECODED ? storage.literal(index)
+            : Literals.parseInteger(getValue(index), 0, getLength(index));
+    }
+
+    /** Valor numérico de un INTEGER o FLOAT. */
+    public double getDoubleValue(int index) {
+        if (getType(index) == Token.Type.FLOAT) {
+            return Double.longBitsToDouble(storage.literal(index));
+        }
+        requireType(index, Token.Type.INTEGER);
+        return storage.literal(index) != Literals.UNDECODED ? storage.literal(index)
+            : Literals.integerToDouble(getValue(index), 0, getLength(index));
+    }
+
+    /** Punto de código de un CHAR, con las secuencias de escape resueltas. */
+    public int getCharValue(int index) {
+        requireType(index, Token.Type.CHAR);
+        if (storage.literal(index) < 0) {
+            throw new IllegalStateException("Carácter inválido: " + getValue(index));
+        }
+        return (int) storage.literal(index);
+    }
+
+    /** Contenido de un STRING (se decodifica en cada llamada, para no guardar un String por token). */
+    public String getStringValue(int index) {
+        requireType(index, Token.Type.STRING);
+        try {
+            return values != null ? Literals.parseString(values[index], 0, values[index].length())
+                : Literals.parseString(source, storage.start(index), storage.end(index));
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("String inválido: " + getValue(index));
+        }
+    }
+
+    /** Columna (desde 1) donde comienza el token. */
+    public int getColumn(int index) {
+        checkIndex(index);
+        return getLineIndex().columnOf(storage.start(index));
+    }
+
+    /**
+     * Índice de líneas del texto fuente. Si el buffer se creó a partir de una
+     * lista de tokens sin su índice, se deduce de los tokens (ver LineIndex.addToken).
+     */
+    public LineIndex getLineIndex() {
+        if (lineIndex == null) {
+            if (source != null) {
+                lineIndex = new LineIndex(source);
+            } else {
+                LineIndex lines = new LineIndex();
+                for (int i = 0; i < size; i++) {
+                    lines.addToken(storage.start(i), getValue(i), storage.line(i));
+                }
+                lineIndex = lines;
+            }
+        }
+        return lineIndex;
+    }
+
+    /** Texto del token; salvo para identificadores, se crea en cada llamada a partir del texto fuente. */
+    public String getValue(int index) {
+        checkIndex(index);
+        if (values != null) {
+            return values[index];
+        }
+        int symbol = storage.symbol(index);
+        if (symbol >= 0) {
+            return symbolTable.name(symbol);
+        }
+        return source.subSequence(storage.start(index), storage.end(index)).toString();
+    }
+
+    /** Compara el texto del token sin crear un String. */
+    public boolean valueEquals(int index, String value) {
+        checkIndex(index);
+        if (values != null) {
+            return values[index].equals(value);
+        }
+        int start = storage.start(index);
+        if (storage.end(index) - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (source.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Crea un objeto Token para el índice dado (solo para quien necesite uno). */
+    public Token getToken(int index) {
+        return new Token(getType(index), getValue(index), storage.start(index), storage.line(index), storage.literal(index));
+    }
+
+    public List<Token> toTokenList() {
+        List<Token> tokens = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tokens.add(getToken(i));
+        }
+        return tokens;
+    }
+
+    /** Recorrido secuencial del buffer como TokenSource, sin crear objetos por token. */
+    public TokenSource toSource() {
+        return new Source(0);
+    }
+
+    /** Igual que toSource(), pero comenzando en el token start. */
+    public TokenSource toSource(int start) {
+        if (start < 0 || start > size) {
+            throw new IndexOutOfBoundsException("Índice " + start + ", tamaño " + size);
+        }
+        return new Source(start);
+    }
+
+    private final class Source implements TokenSource {
+        private int pos;
+
+        Source(int start) {
+            this.pos = start;
+        }
+
+        @Override public Token.Type peekType(int k) { return pos + k < size ? getType(pos + k) : null; }
+        @Override public String peekValue(int k) { return getValue(pos + k); }
+        @Override public boolean peekValueEquals(int k, String value) { return pos + k < size && valueEquals(pos + k, value); }
+        @Override public int peekPosition(int k) { return getPosition(pos + k); }
+        @Override public int peekLine(int k) { return getLine(pos + k); }
+        @Override public Token peekToken(int k) { return getToken(pos + k); }
+        @Override public LineIndex getLineIndex() { return TokenBuffer.this.getLineIndex(); }
+
+        @Override
+        public void advance() {
+            checkIndex(pos);
+            pos++;
+        }
+    }
+
+    private void requireType(int index, Token.Type expected) {
+        if (getType(index) != expected) {
+            throw new IllegalStateException("El token " + getValue(index) + " es " + getType(index) + ", no " + expected);
+        }
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Índice " + index + ", tamaño " + size);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,100 @@
+package proyecto.lenguaje.lexer;
+
+import java.util.Objects;
+
+/**
+ * Vista de los tokens [from, to) de un TokenBuffer, sin copiarlos.
+ *
+ * Los índices son relativos al inicio de la vista y se comprueban contra su
+ * tamaño; subSlice crea otra vista sobre el mismo buffer. Sirve para pasar
+ * porciones de tokens (la cabecera o el cuerpo de un ciclo, un lado de una
+ * asignación) sin crear listas ni objetos Token.
+ */
+public final class TokenSlice {
+    private final TokenBuffer tokens;
+    private final int from;
+    private final int to;
+
+    public TokenSlice(TokenBuffer tokens, int from, int to) {
+        Objects.checkFromToIndex(from, to, tokens.size());
+        this.tokens = tokens;
+        this.from = from;
+        this.to = to;
+    }
+
+    /** Todos los tokens del buffer. */
+    public static TokenSlice of(TokenBuffer tokens) {
+        return new TokenSlice(tokens, 0, tokens.size());
+    }
+
+    public int size() {
+        return to - from;
+    }
+
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    /** Índice en el buffer del primer token de la vista. */
+    public int getStart() {
+        return from;
+    }
+
+    public Token.Type getType(int index) {
+        return tokens.getType(from + Objects.checkIndex(index, to - from));
+    }
+
+    public String getValue(int index) {
+        return tokens.getValue(from + Objects.checkIndex(index, to - from));
+    }
+
+    public boolean valueEquals(int index, String value) {
+        return tokens.valueEquals(from + Objects.checkIndex(index, to - from), value);
+    }
+
+    public int getLine(int index) {
+        return tokens.getLine(from + Objects.checkIndex(index, to - from));
+    }
+
+    public int getPosition(int index) {
+        return tokens.getPosition(from + Objects.checkIndex(index, to - from));
+    }
+
+    /** Primer índice desde fromIndex cuyo texto es value, o -1. */
+    public int indexOf(String value, int fromIndex) {
+        for (int i = from + Math.max(0, fromIndex); i < to; i++) {
+            if (tokens.valueEquals(i, value)) {
+                return i - from;
+            }
+        }
+        return -1;
+    }
+
+    /** Cantidad de tokens cuyo texto es value. */
+    public int count(String value) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (tokens.valueEquals(i, value)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Vista de los tokens [start, end) de esta vista. */
+    public TokenSlice subSlice(int start, int end) {
+        Objects.checkFromToIndex(start, end, to - from);
+        return new TokenSlice(tokens, from + start, from + end);
+    }
+
+    /** Los textos de los tokens separados por un espacio. */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (i > from) sb.append(' ');
+            sb.append(tokens.getValue(i));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package proyecto.lenguaje.lexer;
+
+/**
+ * Fuente de tokens que el parser consume bajo demanda.
+ *
+ * El parser solo mira unos pocos tokens hacia adelante (peek con k = 0 para el
+ * token actual, 1 para el siguiente, ...) y avanza de a uno, de modo que una
+ * implementación perezosa puede reconocer los tokens a medida que se piden y
+ * olvidar los ya consumidos. Los métodos peek fallan si no existe el token
+ * pedido; peekType devuelve null en ese caso para poder preguntar por el final.
+ */
+public interface TokenSource {
+    /** Tipo del token k posiciones adelante, o null si la entrada termina antes. */
+    Token.Type peekType(int k);
+
+    String peekValue(int k);
+
+    /** Compara el texto del token k posiciones adelante (false si no existe). */
+    boolean peekValueEquals(int k, String value);
+
+    int peekPosition(int k);
+
+    int peekLine(int k);
+
+    /** Objeto Token para el token k posiciones adelante (para las hojas del árbol). */
+    Token peekToken(int k);
+
+    /** Consume el token actual. */
+    void advance();
+
+    /**
+     * Índice de líneas del texto, con el que el parser indica la línea y
+     * columna de los errores (deducido de los tokens si no se tiene el texto).
+     */
+    LineIndex getLineIndex();
+}
@@ -0,0 +1,27 @@
+package proyecto.lenguaje.lexer;
+
+/**
+ * Campos de cada token de un TokenBuffer: tipo, inicio, fin, línea, id de
+ * símbolo y valor decodificado del literal. Se guardan en arreglos del heap
+ * (HeapTokenStorage) o en memoria fuera del heap (OffHeapTokenStorage).
+ */
+interface TokenStorage {
+    int capacity();
+
+    /** Amplía la capacidad conservando los primeros size tokens. */
+    void grow(int capacity, int size);
+
+    void set(int index, Token.Type type, int start, int end, int line, int symbol, long literal);
+
+    Token.Type type(int index);
+
+    int start(int index);
+
+    int end(int index);
+
+    int line(int index);
+
+    int symbol(int index);
+
+    long literal(int index);
+}
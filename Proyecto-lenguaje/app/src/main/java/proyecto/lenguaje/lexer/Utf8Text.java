@@ -0,0 +1,297 @@
+package proyecto.lenguaje.lexer;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Texto UTF-8 leído directamente de sus bytes (por ejemplo, un archivo mapeado
+ * en memoria), sin decodificarlo completo a un String.
+ *
+ * Se presenta como CharSequence para que el lexer lo recorra igual que un
+ * String: los índices son de chars UTF-16, de modo que los tokens, el
+ * LineIndex y los mensajes del parser son los mismos que con el texto
+ * decodificado. Como casi todo el código fuente es ASCII, al crearlo se hace
+ * una sola pasada (de a 8 bytes) que anota solo los caracteres no ASCII:
+ * - Si no hay ninguno, el char i es el byte i y no se decodifica nada.
+ * - Si hay, charAt decodifica solo esos caracteres y calcula el byte de los
+ *   demás a partir del último carácter no ASCII anterior.
+ * byteOffset y charOffset convierten entre índices de chars y de bytes.
+ * Una secuencia UTF-8 inválida se lee como U+FFFD y ocupa un byte.
+ */
+public final class Utf8Text implements CharSequence, AutoCloseable {
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED;
+
+    private final MemorySegment bytes;
+    private final Arena arena;      // null si el texto no es dueño de la memoria
+    private final int byteLength;
+    private final int length;
+    // Por cada carácter no ASCII: índice del char, byte inicial y
+    // punto de código con la cantidad de bytes en los bits altos (cp | bytes << 24)
+    private final int[] charStarts;
+    private final int[] byteStarts;
+    private final int[] codePoints;
+    private final int count;
+    // Último carácter no ASCII usado por charAt (el lexer lee en orden)
+    private int hint;
+
+    private Utf8Text(MemorySegment bytes, Arena arena) {
+        if (bytes.byteSize() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Texto demasiado grande: " + bytes.byteSize() + " bytes");
+        }
+        this.bytes = bytes;
+        this.arena = arena;
+        this.byteLength = (int) bytes.byteSize();
+
+        int[] chars = new int[0];
+        int[] starts = new int[0];
+        int[] points = new int[0];
+        int found = 0;
+        int units = 0;   // chars UTF-16 antes del byte actual
+        int i = 0;
+        while (i < byteLength) {
+            // Saltar de a 8 bytes mientras sean todos ASCII
+            if (i + Long.BYTES <= byteLength && (bytes.get(LONG, i) & HIGH_BITS) == 0) {
+                i += Long.BYTES;
+                units += Long.BYTES;
+                continue;
+            }
+            byte b = bytes.get(ValueLayout.JAVA_BYTE, i);
+            if (b >= 0) {
+                i++;
+                units++;
+                continue;
+            }
+            int decoded = decode(bytes, i, byteLength);
+            if (found == chars.length) {
+                int capacity = Math.max(16, found * 2);
+                chars = Arrays.copyOf(chars, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                points = Arrays.copyOf(points, capacity);
+            }
+            chars[found] = units;
+            starts[found] = i;
+            points[found] = decoded;
+            found++;
+            i += decoded >>> 24;
+            units += Character.charCount(decoded & 0xFFFFFF);
+        }
+        this.length = units;
+        this.charStarts = chars;
+        this.byteStarts = starts;
+        this.codePoints = points;
+        this.count = found;
+    }
+
+    /** Mapea el archivo en memoria (solo lectura) hasta que se llame a close. */
+    public static Utf8Text map(Path file) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new Utf8Text(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena), arena);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /** Texto sobre bytes UTF-8 ya en memoria (quien los creó sigue siendo su dueño). */
+    public static Utf8Text of(MemorySegment bytes) {
+        return new Utf8Text(bytes, null);
+    }
+
+    public static Utf8Text of(byte[] bytes) {
+        return new Utf8Text(MemorySegment.ofArray(bytes), null);
+    }
+
+    /** true si todo el texto es ASCII (los índices de chars y de bytes coinciden). */
+    public boolean isAscii() {
+        return count == 0;
+    }
+
+    public int byteLength() {
+        return byteLength;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Índice " + index + ", longitud " + length);
+        }
+        if (count == 0) {
+            return (char) bytes.get(ValueLayout.JAVA_BYTE, index);
+        }
+        int k = findChar(index);
+        if (k < 0) {
+            return (char) bytes.get(ValueLayout.JAVA_BYTE, index);
+        }
+        int codePoint = codePoints[k] & 0xFFFFFF;
+        int offset = index - charStarts[k];
+        int units = Character.charCount(codePoint);
+        if (offset < units) {
+            if (units == 1) {
+                return (char) codePoint;
+            }
+            return offset == 0 ? Character.highSurrogate(codePoint) : Character.lowSurrogate(codePoint);
+        }
+        return (char) bytes.get(ValueLayout.JAVA_BYTE, byteStarts[k] + (codePoints[k] >>> 24) + offset - units);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Rango [" + start + ", " + end + "), longitud " + length);
+        }
+        if (isAsciiRange(start, end)) {
+            // Tramo ASCII: los bytes se copian tal cual
+            int from = byteOffset(start);
+            byte[] chunk = bytes.asSlice(from, end - start).toArray(ValueLayout.JAVA_BYTE);
+            return new String(chunk, StandardCharsets.ISO_8859_1);
+        }
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            sb.append(charAt(i));
+        }
+        return sb.toString();
+    }
+
+    /** Decodifica el texto completo (solo para quien realmente necesite el String). */
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+
+    /** Byte donde comienza el char index (para index == length(), la cantidad de bytes). */
+    public int byteOffset(int index) {
+        if (index < 0 || index > length) {
+            throw new IndexOutOfBoundsException("Índice " + index + ", longitud " + length);
+        }
+        if (index == length) {
+            return byteLength;
+        }
+        int k = findChar(index);
+        if (k < 0) {
+            return index;
+        }
+        int offset = index - charStarts[k];
+        int units = Character.charCount(codePoints[k] & 0xFFFFFF);
+        // El segundo char de un par sustituto comparte los bytes del primero
+        return offset < units ? byteStarts[k] : byteStarts[k] + (codePoints[k] >>> 24) + offset - units;
+    }
+
+    /** Índice del char que contiene el byte dado (para byteLength(), length()). */
+    public int charOffset(int byteOffset) {
+        if (byteOffset < 0 || byteOffset > byteLength) {
+            throw new IndexOutOfBoundsException("Byte " + byteOffset + ", longitud " + byteLength);
+        }
+        if (byteOffset == byteLength) {
+            return length;
+        }
+        int k = lastAtOrBefore(byteStarts, byteOffset);
+        if (k < 0) {
+            return byteOffset;
+        }
+        int offset = byteOffset - byteStarts[k];
+        int size = codePoints[k] >>> 24;
+        return offset < size ? charStarts[k]
+            : charStarts[k] + Character.charCount(codePoints[k] & 0xFFFFFF) + offset - size;
+    }
+
+    /** Libera el mapeo del archivo; después el texto ya no puede leerse. */
+    @Override
+    public void close() {
+        if (arena != null) {
+            arena.close();
+        }
+    }
+
+    // Último carácter no ASCII que comienza en o antes del char index (-1 si no hay)
+    private int findChar(int index) {
+        int k = hint;
+        // Caso común: el mismo tramo que la llamada anterior o el siguiente
+        if (k < count && charStarts[k] <= index) {
+            if (k + 1 == count || index < charStarts[k + 1]) {
+                return k;
+            }
+            if (k + 2 == count || index < charStarts[k + 2]) {
+                hint = k + 1;
+                return k + 1;
+            }
+        }
+        k = lastAtOrBefore(charStarts, index);
+        if (k >= 0) {
+            hint = k;
+        }
+        return k;
+    }
+
+    private int lastAtOrBefore(int[] starts, int value) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    private boolean isAsciiRange(int start, int end) {
+        if (count == 0 || start == end) {
+            return true;
+        }
+        int k = findChar(start);
+        if (k >= 0 && start - charStarts[k] < Character.charCount(codePoints[k] & 0xFFFFFF)) {
+            return false;
+        }
+        return k + 1 == count || charStarts[k + 1] >= end;
+    }
+
+    // Punto de código de la secuencia que comienza en i, con su cantidad de bytes en los bits altos
+    private static int decode(MemorySegment bytes, int i, int limit) {
+        int lead = bytes.get(ValueLayout.JAVA_BYTE, i) & 0xFF;
+        int size;
+        int codePoint;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            size = 2;
+            codePoint = lead & 0x1F;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            size = 3;
+            codePoint = lead & 0x0F;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            size = 4;
+            codePoint = lead & 0x07;
+        } else {
+            return 0xFFFD | 1 << 24;
+        }
+        if (i + size > limit) {
+            return 0xFFFD | 1 << 24;
+        }
+        for (int j = 1; j < size; j++) {
+            int next = bytes.get(ValueLayout.JAVA_BYTE, i + j) & 0xFF;
+            if ((next & 0xC0) != 0x80) {
+                return 0xFFFD | 1 << 24;
+            }
+            codePoint = codePoint << 6 | (next & 0x3F);
+        }
+        // Formas demasiado largas, sustitutos codificados y valores fuera de Unicode
+        boolean valid = size == 2
+            || (size == 3 && codePoint >= 0x800 && (codePoint < 0xD800 || codePoint > 0xDFFF))
+            || (size == 4 && codePoint >= 0x10000 && codePoint <= Character.MAX_CODE_POINT);
+        return valid ? codePoint | size << 24 : 0xFFFD | 1 << 24;
+    }
+}
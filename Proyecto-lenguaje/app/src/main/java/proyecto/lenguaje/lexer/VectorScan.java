@@ -0,0 +1,138 @@
+package proyecto.lenguaje.lexer;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Búsquedas de caracteres sobre arreglos de chars usando la Vector API
+ * (jdk.incubator.vector): compara 16 o 32 caracteres a la vez, según el
+ * ancho de vector preferido de la CPU, y termina con un recorrido escalar.
+ *
+ * Se usa para saltar espacios, comentarios -- y bloques {- -}. Si el módulo
+ * jdk.incubator.vector no está disponible al ejecutar (se habilita con
+ * --add-modules jdk.incubator.vector), todas las operaciones usan la versión
+ * escalar.
+ */
+public final class VectorScan {
+    private static final boolean ENABLED =
+        ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+        && !Boolean.getBoolean("proyecto.lenguaje.noVector");
+
+    private VectorScan() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /** Primer índice en [from, to) con un carácter distinto de ' ', '\t', '\n' y '\r' (o to). */
+    public static int skipSpaces(char[] chars, int from, int to) {
+        int i = ENABLED ? Simd.skipSpaces(chars, from, to) : from;
+        while (i < to && isSpace(chars[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    /** Cantidad de '\n' en [from, to). */
+    public static int countNewlines(char[] chars, int from, int to) {
+        int count = 0;
+        int i = from;
+        if (ENABLED) {
+            count = Simd.countNewlines(chars, from, to);
+            i = Simd.loopEnd(from, to);
+        }
+        for (; i < to; i++) {
+            if (chars[i] == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Primer índice en [from, to) que contiene c (o to). */
+    public static int indexOf(char[] chars, char c, int from, int to) {
+        int i = ENABLED ? Simd.indexOf(chars, c, from, to) : from;
+        while (i < to && chars[i] != c) {
+            i++;
+        }
+        return i;
+    }
+
+    /** Primer índice en [from, to) que contiene a o b (o to). */
+    public static int indexOfAny(char[] chars, char a, char b, int from, int to) {
+        return indexOfAny(chars, a, b, b, from, to);
+    }
+
+    /** Primer índice en [from, to) que contiene a, b o c (o to). */
+    public static int indexOfAny(char[] chars, char a, char b, char c, int from, int to) {
+        int i = ENABLED ? Simd.indexOfAny(chars, a, b, c, from, to) : from;
+        while (i < to && chars[i] != a && chars[i] != b && chars[i] != c) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    // Ruta vectorizada: solo se carga si el módulo está presente. Cada búsqueda
+    // devuelve el índice encontrado o el inicio de la cola que queda por revisar.
+    private static final class Simd {
+        private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+        static int loopEnd(int from, int to) {
+            return from + SPECIES.loopBound(to - from);
+        }
+
+        static int skipSpaces(char[] chars, int from, int to) {
+            int end = loopEnd(from, to);
+            int i = from;
+            for (; i < end; i += SPECIES.length()) {
+                ShortVector v = ShortVector.fromCharArray(SPECIES, chars, i);
+                VectorMask<Short> other = v.eq((short) ' ').or(v.eq((short) '\n'))
+                    .or(v.eq((short) '\t')).or(v.eq((short) '\r')).not();
+                if (other.anyTrue()) {
+                    return i + other.firstTrue();
+                }
+            }
+            return i;
+        }
+
+        static int countNewlines(char[] chars, int from, int to) {
+            int end = loopEnd(from, to);
+            int count = 0;
+            for (int i = from; i < end; i += SPECIES.length()) {
+                count += ShortVector.fromCharArray(SPECIES, chars, i).eq((short) '\n').trueCount();
+            }
+            return count;
+        }
+
+        static int indexOf(char[] chars, char c, int from, int to) {
+            int end = loopEnd(from, to);
+            int i = from;
+            for (; i < end; i += SPECIES.length()) {
+                VectorMask<Short> found = ShortVector.fromCharArray(SPECIES, chars, i).eq((short) c);
+                if (found.anyTrue()) {
+                    return i + found.firstTrue();
+                }
+            }
+            return i;
+        }
+
+        static int indexOfAny(char[] chars, char a, char b, char c, int from, int to) {
+            int end = loopEnd(from, to);
+            int i = from;
+            for (; i < end; i += SPECIES.length()) {
+                ShortVector v = ShortVector.fromCharArray(SPECIES, chars, i);
+                VectorMask<Short> found = v.eq((short) a).or(v.eq((short) b)).or(v.eq((short) c));
+                if (found.anyTrue()) {
+                    return i + found.firstTrue();
+                }
+            }
+            return i;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+
+// Aplicación (función aplicada a argumentos)
+public class ApplyNode extends AstNode {
+	public final AstNode function;
+	public final List<AstNode> args;
+	public ApplyNode(AstNode fn, List<AstNode> args) { this.function = fn; this.args = args; }
+	@Override void buildTree(TreePrinter out, int indent) {
+		out.line(indent, "Apply");
+		out.child(function, indent + 1);
+		for (AstNode a : args) out.child(a, indent + 1);
+	}
+	@Override public <R> R accept(AstVisitor<R> visitor) { return visitor.visitApply(this); }
+	@Override public List<AstNode> children() {
+		List<AstNode> children = new ArrayList<>(args.size() + 1);
+		children.add(function);
+		children.addAll(args);
+		return children;
+	}
+}
@@ -0,0 +1,59 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.TokenSource;
+
+/**
+ * Destino de los nodos que crea el Parser, de abajo hacia arriba.
+ *
+ * Cada nodo se identifica con un entero (-1 = ausente), de modo que el parser
+ * no depende de cómo se guarda el árbol: TreeBuilder crea los objetos AstNode
+ * de siempre y FlatAst escribe los nodos en un arena de enteros. Las listas
+ * de hijos llegan como un tramo [from, from + count) de un arreglo de ids.
+ * Los tokens se indican por su índice en el orden en que el parser los
+ * consume; los argumentos end son el índice siguiente al último token.
+ */
+interface AstBuilder {
+    /** Agrega una declaración o expresión de primer nivel al programa. */
+    void item(int node);
+
+    int decl(String name, int nameToken, int expr);
+
+    /** Identificador del token actual de tokens (el parser lo consume después). */
+    int identifier(TokenSource tokens, int token);
+
+    /** Literal del token actual de tokens (el parser lo consume después). */
+    int literal(TokenSource tokens, int token);
+
+    int ifNode(int ifToken, int cond, int thenBranch, int elseBranch);
+
+    int let(String name, int letToken, int bound, int body);
+
+    int binary(String op, int opToken, int left, int right);
+
+    int unary(String op, int opToken, int operand);
+
+    /** Aplica function a los argumentos; si function ya es una aplicación, los agrega a los suyos. */
+    int apply(int function, int[] args, int from, int count);
+
+    int tuple(int open, int end, int[] elements, int from, int count);
+
+    int list(int open, int end, int[] elements, int from, int count);
+
+    /**
+     * Expresión entre paréntesis (tokens [open, end)). El árbol abstracto no
+     * guarda los paréntesis: por defecto devuelve la misma expresión.
+     */
+    default int group(int open, int end, int expr) {
+        return expr;
+    }
+
+    /** init, condition y update pueden ser -1. */
+    int cycle(CycleNode.CycleType type, int keywordToken, int end,
+              int init, int condition, int update, int[] body, int from, int count);
+
+    /** Punto al que volver si falla el elemento de primer nivel que comienza. */
+    int mark();
+
+    /** Descarta los nodos creados después de mark. */
+    void rollback(int mark);
+}
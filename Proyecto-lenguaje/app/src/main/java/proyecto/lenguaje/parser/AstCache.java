@@ -0,0 +1,103 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.HaskellLexer;
+import proyecto.lenguaje.lexer.Utf8Text;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Caché en disco de los árboles ya analizados.
+ *
+ * Al cargar un archivo se calcula el SHA-256 de su contenido (leído del
+ * archivo mapeado en memoria). Si en el directorio del caché existe
+ * "<hash>.ast", el árbol se decodifica de ese archivo, también mapeado, sin
+ * pasar por el lexer ni el parser (ver AstCodec). Si no, se analiza el texto
+ * mapeado y se guarda el árbol: primero en un archivo temporal que luego se
+ * mueve a su nombre, para que otro proceso nunca lea un archivo a medias.
+ * Como la clave es el contenido, un archivo modificado simplemente no se
+ * encuentra, y un caché dañado o de otra versión se ignora y se reescribe.
+ * Los programas con errores no se guardan: la ParseException se propaga.
+ */
+public class AstCache {
+    private static final String EXTENSION = ".ast";
+
+    private final Path directory;
+    private int hits;
+    private int misses;
+
+    public AstCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Árbol del programa del archivo, del caché si su contenido ya se analizó.
+     * @throws Parser.ParseException si el programa tiene errores
+     */
+    public AstNode load(Path source) throws IOException {
+        try (Arena arena = Arena.ofConfined();
+             FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            MemorySegment bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            Path entry = directory.resolve(hash(bytes) + EXTENSION);
+
+            AstNode cached = read(entry);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            AstNode program = new Parser(new HaskellLexer().tokenizeToBuffer(Utf8Text.of(bytes))).parseProgram();
+            write(entry, AstCodec.encode(program));
+            return program;
+        }
+    }
+
+    /** Cantidad de cargas resueltas con el caché. */
+    public int getHits() {
+        return hits;
+    }
+
+    /** Cantidad de cargas que tuvieron que analizar el archivo. */
+    public int getMisses() {
+        return misses;
+    }
+
+    // Árbol guardado en el archivo, o null si no existe o no se puede leer
+    private static AstNode read(Path entry) throws IOException {
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return AstCodec.decode(buffer);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void write(Path entry, byte[] data) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "ast", ".tmp");
+        try {
+            Files.write(temp, data);
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String hash(MemorySegment bytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(bytes.asByteBuffer());
+            return java.util.HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.Token;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Formato binario compacto del árbol de AstNode (ver AstCache).
+ *
+ * Estructura:
+ * - Cabecera: "HAST" y la versión del formato.
+ * - Tabla de textos: cantidad y, por cada uno, largo en bytes y UTF-8. Cada
+ *   nombre, operador o texto de literal distinto se guarda una sola vez.
+ * - Nodos en postorden: un código de operación por tipo de nodo y sus datos
+ *   (índices en la tabla de textos, cantidad de hijos de las listas). Los
+ *   literales guardan además su posición y su línea como diferencia con las
+ *   del literal anterior, y los identificadores su línea como diferencia con
+ *   la del literal o identificador anterior. Al leer, cada nodo toma sus hijos de una pila, de
+ *   modo que ni la escritura ni la lectura son recursivas.
+ * Todos los enteros son varints (7 bits por byte; las diferencias, en zigzag).
+ */
+public final class AstCodec {
+    private static final int MAGIC = 0x48415354; // "HAST"
+    private static final int VERSION = 2;
+
+    // Códigos de operación
+    private static final int PROGRAM = 0;
+    private static final int DECL = 1;
+    private static final int IDENTIFIER = 2;
+    private static final int LITERAL = 3;
+    private static final int IF = 4;
+    private static final int LET = 5;
+    private static final int APPLY = 6;
+    private static final int BINARY_OP = 7;
+    private static final int UNARY_OP = 8;
+    private static final int LIST = 9;
+    private static final int TUPLE = 10;
+    private static final int CYCLE = 11;
+
+    private static final Token.Type[] TOKEN_TYPES = Token.Type.values();
+    private static final CycleNode.CycleType[] CYCLE_TYPES = CycleNode.CycleType.values();
+
+    private AstCodec() {
+    }
+
+    /** Codifica el árbol (normalmente un programa). */
+    public static byte[] encode(AstNode root) {
+        Encoder encoder = new Encoder();
+        AstWalker.postOrder(root, node -> node.accept(encoder));
+
+        Output out = new Output();
+        out.writeInt(MAGIC);
+        out.writeVarint(VERSION);
+        out.writeVarint(encoder.strings.size());
+        for (String s : encoder.strings) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeVarint(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        out.writeVarint(encoder.count);
+        out.write(encoder.nodes.bytes, 0, encoder.nodes.size);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodifica un árbol escrito por encode (desde la posición actual de in).
+     * @throws IllegalArgumentException si los datos no tienen este formato
+     */
+    public static AstNode decode(ByteBuffer in) {
+        try {
+            if (in.getInt() != MAGIC || readVarint(in) != VERSION) {
+                throw new IllegalArgumentException("No es un árbol en formato HAST " + VERSION);
+            }
+            String[] strings = new String[readVarint(in)];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[readVarint(in)];
+                in.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int count = readVarint(in);
+            List<AstNode> stack = new ArrayList<>();
+            int position = 0;
+            int line = 0;
+            for (int n = 0; n < count; n++) {
+                AstNode node;
+                int op = in.get();
+                switch (op) {
+                    case PROGRAM: node = new ProgramNode(popList(stack, readVarint(in))); break;
+                    case DECL: node = new DeclNode(strings[readVarint(in)], pop(stack)); break;
+                    case IDENTIFIER: {
+                        String name = strings[readVarint(in)];
+                        line += unzigzag(readVarint(in));
+                        node = new IdentifierNode(name, line);
+                        break;
+                    }
+                    case LITERAL: {
+                        Token.Type type = TOKEN_TYPES[readVarint(in)];
+                        String value = strings[readVarint(in)];
+                        position += unzigzag(readVarint(in));
+                        line += unzigzag(readVarint(in));
+                        node = new LiteralNode(new Token(type, value, position, line));
+                        break;
+                    }
+                    case IF: {
+                        AstNode elseBranch = pop(stack);
+                        AstNode thenBranch = pop(stack);
+                        node = new IfNode(pop(stack), thenBranch, elseBranch);
+                        break;
+                    }
+                    case LET: {
+                        String name = strings[readVarint(in)];
+                        AstNode body = pop(stack);
+                        node = new LetNode(name, pop(stack), body);
+                        break;
+                    }
+                    case APPLY: {
+                        List<AstNode> args = popList(stack, readVarint(in));
+                        node = new ApplyNode(pop(stack), args);
+                        break;
+                    }
+                    case BINARY_OP: {
+                        String opText = strings[readVarint(in)];
+                        AstNode right = pop(stack);
+                        node = new BinaryOpNode(opText, pop(stack), right);
+                        break;
+                    }
+                    case UNARY_OP: node = new UnaryOpNode(strings[readVarint(in)], pop(stack)); break;
+                    case LIST: node = new ListNode(popList(stack, readVarint(in))); break;
+                    case TUPLE: node = new TupleNode(popList(stack, readVarint(in))); break;
+                    case CYCLE: {
+                        int aux = readVarint(in);
+                        List<AstNode> body = popList(stack, readVarint(in));
+                        AstNode update = (aux & 4) != 0 ? pop(stack) : null;
+                        AstNode condition = (aux & 2) != 0 ? pop(stack) : null;
+                        AstNode init = (aux & 1) != 0 ? pop(stack) : null;
+                        node = new CycleNode(CYCLE_TYPES[aux >>> 3], init, condition, update, body);
+                        break;
+                    }
+                    default:
+                        throw new IllegalArgumentException("Código de nodo desconocido: " + op);
+                }
+                stack.add(node);
+            }
+            if (stack.size() != 1) {
+                throw new IllegalArgumentException("El árbol tiene " + stack.size() + " raíces");
+            }
+            return stack.get(0);
+        } catch (java.nio.BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Árbol truncado o dañado", e);
+        }
+    }
+
+    // Escribe cada nodo (en postorden) y arma la tabla de textos
+    private static final class Encoder implements AstVisitor<Void> {
+        final Output nodes = new Output();
+        final List<String> strings = new ArrayList<>();
+        final Map<String, Integer> stringIds = new HashMap<>();
+        int count;
+        int position;
+        int line;
+
+        private void node(int op) {
+            nodes.write(op);
+            count++;
+        }
+
+        private void string(String s) {
+            Integer id = stringIds.get(s);
+            if (id == null) {
+                id = strings.size();
+                strings.add(s);
+                stringIds.put(s, id);
+            }
+            nodes.writeVarint(id);
+        }
+
+        @Override public Void visitProgram(ProgramNode n) { node(PROGRAM); nodes.writeVarint(n.items.size()); return null; }
+        @Override public Void visitDecl(DeclNode n) { node(DECL); string(n.name); return null; }
+        @Override public Void visitIf(IfNode n) { node(IF); return null; }
+        @Override public Void visitLet(LetNode n) { node(LET); string(n.name); return null; }
+        @Override public Void visitApply(ApplyNode n) { node(APPLY); nodes.writeVarint(n.args.size()); return null; }
+        @Override public Void visitBinaryOp(BinaryOpNode n) { node(BINARY_OP); string(n.op); return null; }
+        @Override public Void visitUnaryOp(UnaryOpNode n) { node(UNARY_OP); string(n.op); return null; }
+        @Override public Void visitList(ListNode n) { node(LIST); nodes.writeVarint(n.elements.size()); return null; }
+        @Override public Void visitTuple(TupleNode n) { node(TUPLE); nodes.writeVarint(n.elements.size()); return null; }
+
+        @Override
+        public Void visitIdentifier(IdentifierNode n) {
+            node(IDENTIFIER);
+            string(n.name);
+            nodes.writeVarint(zigzag(n.line - line));
+            line = n.line;
+            return null;
+        }
+
+        @Override
+        public Void visitLiteral(LiteralNode n) {
+            Token token = n.token;
+            node(LITERAL);
+            nodes.writeVarint(token.getType().ordinal());
+            string(token.getValue());
+            nodes.writeVarint(zigzag(token.getPosition() - position));
+            nodes.writeVarint(zigzag(token.getLine() - line));
+            position = token.getPosition();
+            line = token.getLine();
+            return null;
+        }
+
+        @Override
+        public Void visitCycle(CycleNode n) {
+            node(CYCLE);
+            int parts = (n.init != null ? 1 : 0) | (n.condition != null ? 2 : 0) | (n.update != null ? 4 : 0);
+            nodes.writeVarint(n.type.ordinal() << 3 | parts);
+            nodes.writeVarint(n.body.size());
+            return null;
+        }
+    }
+
+    private static AstNode pop(List<AstNode> stack) {
+        return stack.remove(stack.size() - 1);
+    }
+
+    // Los últimos count nodos de la pila, en orden
+    private static List<AstNode> popList(List<AstNode> stack, int count) {
+        List<AstNode> top = stack.subList(stack.size() - count, stack.size());
+        List<AstNode> list = new ArrayList<>(top);
+        top.clear();
+        return list;
+    }
+
+    private static int zigzag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    private static int unzigzag(int n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint demasiado largo");
+    }
+
+    // Arreglo de bytes que crece según haga falta
+    private static final class Output {
+        byte[] bytes = new byte[256];
+        int size;
+
+        void write(int b) {
+            if (size == bytes.length) bytes = Arrays.copyOf(bytes, size * 2);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] b, int from, int length) {
+            if (size + length > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            System.arraycopy(b, from, bytes, size, length);
+            size += length;
+        }
+
+        void writeInt(int v) {
+            write(v >>> 24);
+            write(v >>> 16);
+            write(v >>> 8);
+            write(v);
+        }
+
+        void writeVarint(int v) {
+            while ((v & ~0x7F) != 0) {
+                write((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            write(v);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+
+/**
+ * Tabla de hash-consing de nodos AstNode (ver Parser.parseProgram(AstInterner)).
+ *
+ * Cada nodo estructuralmente igual a uno ya registrado se reemplaza por el
+ * registrado, de modo que las subexpresiones repetidas (x + y, a * b, las
+ * constantes) ocupan un solo objeto y dos subárboles son iguales si y solo si
+ * son el mismo objeto. Como los nodos se registran de abajo hacia arriba, sus
+ * hijos ya son únicos: la búsqueda compara el tipo, los datos propios y las
+ * referencias de los hijos, con el hash estructural ya guardado en cada hijo.
+ *
+ * Los literales compartidos conservan el Token (y su posición) de la primera
+ * aparición. Una misma tabla puede usarse en varios análisis para compartir
+ * nodos entre programas; no es segura para usar desde varios hilos a la vez.
+ */
+public final class AstInterner {
+    private final Map<Key, AstNode> nodes = new HashMap<>();
+
+    /**
+     * Devuelve el nodo registrado igual a node, o registra node si no hay
+     * ninguno. Los hijos de node deben haber sido devueltos por esta tabla.
+     */
+    public AstNode intern(AstNode node) {
+        AstNode shared = nodes.putIfAbsent(new Key(node), node);
+        return shared != null ? shared : node;
+    }
+
+    /** Cantidad de nodos distintos registrados. */
+    public int size() {
+        return nodes.size();
+    }
+
+    // Igualdad superficial: mismos datos propios y los mismos objetos como hijos
+    private static final class Key {
+        private final AstNode node;
+        private final int hash;
+
+        Key(AstNode node) {
+            this.node = node;
+            this.hash = node.structuralHash();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            if (hash != other.hash || !node.sameData(other.node)) return false;
+            List<AstNode> mine = node.children();
+            List<AstNode> theirs = other.node.children();
+            if (mine.size() != theirs.size()) return false;
+            for (int i = 0; i < mine.size(); i++) {
+                if (mine.get(i) != theirs.get(i)) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -1,192 +1,97 @@
 package proyecto.lenguaje.parser;
 
 import java.util.*;
-import proyecto.lenguaje.lexer.Token;
 
 // Nodo base
 public abstract class AstNode {
-	// imprime árbol con indentación
-	public String toTreeString() {
-		StringBuilder sb = new StringBuilder();
-		buildTree(sb, 0);
-		return sb.toString();
-	}
-	protected abstract void buildTree(StringBuilder sb, int indent);
-	protected void indent(StringBuilder sb, int n) {
-		for (int i = 0; i < n; i++) sb.append("  ");
-	}
-}
-
-// Programa: lista de declaraciones/expresiones
-class ProgramNode extends AstNode {
-	public final List<AstNode> items;
-	public ProgramNode(List<AstNode> items) { this.items = items; }
-	@Override protected void buildTree(StringBuilder sb, int indent) {
-		indent(sb, indent); sb.append("Program\n");
-		for (AstNode it : items) it.buildTree(sb, indent + 1);
-	}
-}
-
-// Declaración simple: name = expr
-class DeclNode extends AstNode {
-	public final String name;
-	public final AstNode expr;
-	public DeclNode(String name, AstNode expr) { this.name = name; this.expr = expr; }
-	@Override protected void buildTree(StringBuilder sb, int indent) {
-		indent(sb, indent); sb.append("Decl: ").append(name).append("\n");
-		expr.buildTree(sb, indent + 1);
-	}
-}
-
-// Identificador
-class IdentifierNode extends AstNode {
-	public final String name;
-	public IdentifierNode(String name) { this.name = name; }
-	@Override protected void buildTree(StringBuilder sb, int indent) {
-		indent(sb, indent); sb.append("Ident: ").append(name).append("\n");
-	}
-	
-	// Método de acceso para otras clases del paquete
-	public String getName() { return name; }
-}
-
-// Literales (string, int, float, char, bool)
-class LiteralNode extends AstNode {
-	public final Token token;
-	public LiteralNode(Token token) { this.token = token; }
-	@Override protected void buildTree(StringBuilder sb, int indent) {
-		indent(sb, indent); sb.append("Literal(").append(token.getType()).append("): ").append(token.getValue()).append("\n");
-	}
-	
-	// Método de acceso para otras clases del paquete
-	public Token getToken() { return token; }
-}
-
-// If expression
-class IfNode extends AstNode {
-	public final AstNode cond, thenBranch, elseBranch;
-	public IfNode(AstNode c, AstNode t, AstNode e) { cond = c; thenBranch = t; elseBranch = e; }
-	@Override protected void buildTree(StringBuilder sb, int indent) {
-		indent(sb, indent); sb.append("If\n");
-		cond.buildTree(sb, indent + 1);
-		indent(sb, indent+1); sb.append("Then\n");
-		thenBranch.buildTree(sb, indent + 2);
-		indent(sb, indent+1); sb.append("Else\n");
-		elseBranch.buildTree(sb, indent + 2);
-	}
-}
+	// Hash estructural calculado (0 = todavía no)
+	private int structuralHash;
 
-// Let expression: let name = bound in body
-class LetNode extends AstNode {
-	public final String name;
-	public final AstNode bound, body;
-	public LetNode(String name, AstNode bound, AstNode body) { this.name = name; this.bound = bound; this.body = body; }
-	@Override protected void buildTree(StringBuilder sb, int indent) {
-		indent(sb, indent); sb.append("Let ").append(name).append("\n");
-		bound.buildTree(sb, indent + 1);
-		indent(sb, indent+1); sb.append("In\n");
-		body.buildTree(sb, indent + 2);
-	}
-}
-
-// Aplicación (función aplicada a argumentos)
-class ApplyNode extends AstNode {
-	public final AstNode function;
-	public final List<AstNode> args;
-	public ApplyNode(AstNode fn, List<AstNode> args) { this.function = fn; this.args = args; }
-	@Override protected void buildTree(StringBuilder sb, int indent) {
-		indent(sb, indent); sb.append("Apply\n");
-		function.buildTree(sb, indent + 1);
-		for (AstNode a : args) a.buildTree(sb, indent + 1);
+	// imprime árbol con indentación (sin recursión, ver TreePrinter)
+	public String toTreeString() {
+		return new TreePrinter().print(this);
 	}
-}
+	// Describe a out las líneas y los hijos del nodo, en el orden en que se imprimen
+	abstract void buildTree(TreePrinter out, int indent);
 
-// Binary operator: left op right
-class BinaryOpNode extends AstNode {
-	public final String op;
-	public final AstNode left, right;
-	public BinaryOpNode(String op, AstNode l, AstNode r) { this.op = op; left = l; right = r; }
-	@Override protected void buildTree(StringBuilder sb, int indent) {
-		indent(sb, indent); sb.append("BinaryOp(").append(op).append(")\n");
-		left.buildTree(sb, indent + 1);
-		right.buildTree(sb, indent + 1);
-	}
-	
-	// Métodos de acceso para otras clases del paquete
-	public String getOp() { return op; }
-	public AstNode getLeft() { return left; }
-	public AstNode getRight() { return right; }
-}
+	/** Llama al método del visitante que corresponde al tipo de este nodo. */
+	public abstract <R> R accept(AstVisitor<R> visitor);
 
-// Unary operator: op operand (e.g. -x)
-class UnaryOpNode extends AstNode {
-	public final String op;
-	public final AstNode operand;
-	public UnaryOpNode(String op, AstNode operand) { this.op = op; this.operand = operand; }
-	@Override protected void buildTree(StringBuilder sb, int indent) {
-		indent(sb, indent); sb.append("UnaryOp(").append(op).append(")\n");
-		operand.buildTree(sb, indent + 1);
+	/** Hijos del nodo, en el orden en que toTreeString los imprime (sin los ausentes). */
+	public List<AstNode> children() {
+		return Collections.emptyList();
 	}
 
-	// Métodos de acceso para otras clases del paquete
-	public String getOp() { return op; }
-	public AstNode getOperand() { return operand; }
-}
-
-// List node
-class ListNode extends AstNode {
-	public final List<AstNode> elements;
-	public ListNode(List<AstNode> elements) { this.elements = elements; }
-	@Override protected void buildTree(StringBuilder sb, int indent) {
-		indent(sb, indent); sb.append("List\n");
-		for (AstNode e : elements) e.buildTree(sb, indent + 1);
+	/**
+	 * Hash de la estructura del subárbol: tipo de nodo, datos propios (nombre,
+	 * operador, literal...) y hash de los hijos. Se calcula una sola vez por
+	 * nodo; en un árbol construido de abajo hacia arriba, cada cálculo solo
+	 * combina los hashes ya guardados de los hijos.
+	 */
+	public int structuralHash() {
+		if (structuralHash != 0) {
+			return structuralHash;
+		}
+		// Postorden con pila explícita, sin bajar a los subárboles ya calculados
+		Deque<AstNode> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			AstNode node = stack.peek();
+			boolean ready = true;
+			for (AstNode child : node.children()) {
+				if (child.structuralHash == 0) {
+					stack.push(child);
+					ready = false;
+				}
+			}
+			if (ready) {
+				stack.pop();
+				if (node.structuralHash == 0) {
+					int h = node.getClass().getName().hashCode() * 31 + node.dataHash();
+					for (AstNode child : node.children()) {
+						h = h * 31 + child.structuralHash;
+					}
+					node.structuralHash = h == 0 ? 1 : h;
+				}
+			}
+		}
+		return structuralHash;
 	}
-}
 
-// Tuple node
-class TupleNode extends AstNode {
-	public final List<AstNode> elements;
-	public TupleNode(List<AstNode> elements) { this.elements = elements; }
-	@Override protected void buildTree(StringBuilder sb, int indent) {
-		indent(sb, indent); sb.append("Tuple\n");
-		for (AstNode e : elements) e.buildTree(sb, indent + 1);
+	/**
+	 * Igualdad estructural de los subárboles (los tokens de los literales se
+	 * comparan por tipo y texto, no por posición). Entre nodos de un mismo
+	 * AstInterner equivale a comparar referencias.
+	 */
+	public boolean structurallyEquals(AstNode other) {
+		if (other == null || structuralHash() != other.structuralHash()) return false;
+		// Pares de nodos por comparar, con pila explícita
+		Deque<AstNode> pairs = new ArrayDeque<>();
+		pairs.push(this);
+		pairs.push(other);
+		while (!pairs.isEmpty()) {
+			AstNode b = pairs.pop();
+			AstNode a = pairs.pop();
+			if (a == b) continue;
+			if (a.structuralHash != b.structuralHash || !a.sameData(b)) return false;
+			List<AstNode> mine = a.children();
+			List<AstNode> theirs = b.children();
+			if (mine.size() != theirs.size()) return false;
+			for (int i = 0; i < mine.size(); i++) {
+				pairs.push(mine.get(i));
+				pairs.push(theirs.get(i));
+			}
+		}
+		return true;
 	}
-}
-
-// Unified CycleNode (WHILE, FOR, LOOP)
-class CycleNode extends AstNode {
-	public enum CycleType { WHILE, FOR, LOOP }
 
-	public final CycleType type;
-	public final AstNode init;       // for: initialization (may be null)
-	public final AstNode condition;  // condition expression
-	public final AstNode update;     // for: increment/update expression (may be null)
-	public final List<AstNode> body; // statements inside block
-
-	// WHILE/LOOP: init and update are null; FOR: may provide init/update
-	public CycleNode(CycleType type, AstNode init, AstNode condition, AstNode update, List<AstNode> body) {
-		this.type = type;
-		this.init = init;
-		this.condition = condition;
-		this.update = update;
-		this.body = body == null ? Collections.emptyList() : body;
+	// Datos propios del nodo, sin los hijos (para el hash y la igualdad estructurales)
+	int dataHash() {
+		return 0;
 	}
 
-	@Override protected void buildTree(StringBuilder sb, int indent) {
-		indent(sb, indent); sb.append("Cycle(").append(type).append(")\n");
-		if (init != null) {
-			indent(sb, indent + 1); sb.append("Init\n");
-			init.buildTree(sb, indent + 2);
-		}
-		if (condition != null) {
-			indent(sb, indent + 1); sb.append("Condition\n");
-			condition.buildTree(sb, indent + 2);
-		}
-		if (update != null) {
-			indent(sb, indent + 1); sb.append("Update\n");
-			update.buildTree(sb, indent + 2);
-		}
-		indent(sb, indent + 1); sb.append("Body\n");
-		for (AstNode stmt : body) stmt.buildTree(sb, indent + 2);
+	// Mismo tipo de nodo y mismos datos propios
+	boolean sameData(AstNode other) {
+		return getClass() == other.getClass();
 	}
 }
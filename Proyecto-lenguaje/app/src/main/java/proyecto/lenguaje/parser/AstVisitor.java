@@ -0,0 +1,41 @@
+package proyecto.lenguaje.parser;
+
+/**
+ * Visitante tipado del árbol de AstNode (ver AstNode.accept).
+ *
+ * Cada tipo de nodo llama a su propio método, sin reflexión ni comparaciones
+ * de nombres de clase. Todos los métodos delegan por omisión en visitNode,
+ * de modo que un visitante solo redefine los nodos que le interesan; visitNode
+ * devuelve null salvo que también se redefina. Para recorrer el árbol completo
+ * sin escribir la recursión, ver AstWalker.
+ */
+public interface AstVisitor<R> {
+    /** Caso por omisión de todos los tipos de nodo. */
+    default R visitNode(AstNode node) {
+        return null;
+    }
+
+    default R visitProgram(ProgramNode node) { return visitNode(node); }
+
+    default R visitDecl(DeclNode node) { return visitNode(node); }
+
+    default R visitIdentifier(IdentifierNode node) { return visitNode(node); }
+
+    default R visitLiteral(LiteralNode node) { return visitNode(node); }
+
+    default R visitIf(IfNode node) { return visitNode(node); }
+
+    default R visitLet(LetNode node) { return visitNode(node); }
+
+    default R visitApply(ApplyNode node) { return visitNode(node); }
+
+    default R visitBinaryOp(BinaryOpNode node) { return visitNode(node); }
+
+    default R visitUnaryOp(UnaryOpNode node) { return visitNode(node); }
+
+    default R visitList(ListNode node) { return visitNode(node); }
+
+    default R visitTuple(TupleNode node) { return visitNode(node); }
+
+    default R visitCycle(CycleNode node) { return visitNode(node); }
+}
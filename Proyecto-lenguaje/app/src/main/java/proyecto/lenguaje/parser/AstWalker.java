@@ -0,0 +1,55 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Recorridos genéricos del árbol de AstNode, en preorden y en postorden.
+ *
+ * Los hijos se obtienen con AstNode.children y se visitan en el orden en que
+ * toTreeString los imprime. El recorrido usa una pila explícita, de modo que
+ * la profundidad del árbol no está limitada por la pila del hilo.
+ */
+public final class AstWalker {
+    private AstWalker() {
+    }
+
+    /** Llama a action con cada nodo antes que con sus hijos. */
+    public static void preOrder(AstNode root, Consumer<AstNode> action) {
+        walk(root, action, null);
+    }
+
+    /** Llama a action con cada nodo después que con sus hijos. */
+    public static void postOrder(AstNode root, Consumer<AstNode> action) {
+        walk(root, null, action);
+    }
+
+    /**
+     * Recorre el árbol llamando a enter al llegar a cada nodo y a exit al
+     * terminar con sus hijos (cualquiera de los dos puede ser null).
+     */
+    public static void walk(AstNode root, Consumer<AstNode> enter, Consumer<AstNode> exit) {
+        if (root == null) {
+            return;
+        }
+        // Cada marco es un nodo y el iterador de los hijos que faltan visitar
+        Deque<AstNode> nodes = new ArrayDeque<>();
+        Deque<Iterator<AstNode>> pending = new ArrayDeque<>();
+        if (enter != null) enter.accept(root);
+        nodes.push(root);
+        pending.push(root.children().iterator());
+        while (!nodes.isEmpty()) {
+            Iterator<AstNode> children = pending.peek();
+            if (children.hasNext()) {
+                AstNode child = children.next();
+                if (enter != null) enter.accept(child);
+                nodes.push(child);
+                pending.push(child.children().iterator());
+            } else {
+                pending.pop();
+                AstNode node = nodes.pop();
+                if (exit != null) exit.accept(node);
+            }
+        }
+    }
+}
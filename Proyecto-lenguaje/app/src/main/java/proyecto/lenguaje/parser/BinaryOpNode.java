@@ -0,0 +1,24 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+
+// Binary operator: left op right
+public class BinaryOpNode extends AstNode {
+	public final String op;
+	public final AstNode left, right;
+	public BinaryOpNode(String op, AstNode l, AstNode r) { this.op = op; left = l; right = r; }
+	@Override void buildTree(TreePrinter out, int indent) {
+		out.line(indent, "BinaryOp(" + op + ")");
+		out.child(left, indent + 1);
+		out.child(right, indent + 1);
+	}
+	@Override public <R> R accept(AstVisitor<R> visitor) { return visitor.visitBinaryOp(this); }
+	@Override int dataHash() { return op.hashCode(); }
+	@Override boolean sameData(AstNode other) { return super.sameData(other) && op.equals(((BinaryOpNode) other).op); }
+	@Override public List<AstNode> children() { return Arrays.asList(left, right); }
+	
+	// Métodos de acceso para otras clases del paquete
+	public String getOp() { return op; }
+	public AstNode getLeft() { return left; }
+	public AstNode getRight() { return right; }
+}
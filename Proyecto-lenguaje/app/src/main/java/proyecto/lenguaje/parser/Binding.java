@@ -0,0 +1,57 @@
+package proyecto.lenguaje.parser;
+
+/**
+ * Una variable declarada en el programa, tal como la ve ScopeResolver.
+ *
+ * Guarda el id del nombre en la SymbolTable del análisis, la forma en que se
+ * declaró, el nodo que la declara (DeclNode, LetNode o la inicialización
+ * BinaryOpNode "=" de un for) y la profundidad del ámbito donde se declaró
+ * (0 para las declaraciones de primer nivel).
+ */
+public final class Binding {
+    public enum Kind {
+        DECLARATION,   // name = expr en el primer nivel
+        LET,           // let name = expr in ...
+        LOOP_VARIABLE, // variable declarada en la inicialización de un for
+        BLOCK          // name = expr dentro del cuerpo de un ciclo
+    }
+
+    private final int symbol;
+    private final String name;
+    private final Kind kind;
+    private final AstNode declaration;
+    private final int depth;
+
+    Binding(int symbol, String name, Kind kind, AstNode declaration, int depth) {
+        this.symbol = symbol;
+        this.name = name;
+        this.kind = kind;
+        this.declaration = declaration;
+        this.depth = depth;
+    }
+
+    public int getSymbol() {
+        return symbol;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public AstNode getDeclaration() {
+        return declaration;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + kind + ", profundidad " + depth + ")";
+    }
+}
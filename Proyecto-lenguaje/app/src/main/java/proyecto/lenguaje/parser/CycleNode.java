@@ -0,0 +1,61 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+
+// Unified CycleNode (WHILE, FOR, LOOP)
+public class CycleNode extends AstNode {
+	public enum CycleType { WHILE, FOR, LOOP }
+
+	public final CycleType type;
+	public final AstNode init;       // for: initialization (may be null)
+	public final AstNode condition;  // condition expression
+	public final AstNode update;     // for: increment/update expression (may be null)
+	public final List<AstNode> body; // statements inside block
+
+	// WHILE/LOOP: init and update are null; FOR: may provide init/update
+	public CycleNode(CycleType type, AstNode init, AstNode condition, AstNode update, List<AstNode> body) {
+		this.type = type;
+		this.init = init;
+		this.condition = condition;
+		this.update = update;
+		this.body = body == null ? Collections.emptyList() : body;
+	}
+
+	@Override void buildTree(TreePrinter out, int indent) {
+		out.line(indent, "Cycle(" + type + ")");
+		if (init != null) {
+			out.line(indent + 1, "Init");
+			out.child(init, indent + 2);
+		}
+		if (condition != null) {
+			out.line(indent + 1, "Condition");
+			out.child(condition, indent + 2);
+		}
+		if (update != null) {
+			out.line(indent + 1, "Update");
+			out.child(update, indent + 2);
+		}
+		out.line(indent + 1, "Body");
+		for (AstNode stmt : body) out.child(stmt, indent + 2);
+	}
+
+	@Override public <R> R accept(AstVisitor<R> visitor) { return visitor.visitCycle(this); }
+
+	// children() omite las partes ausentes: también cuenta cuáles están
+	@Override int dataHash() { return type.hashCode() * 31 + parts(); }
+	@Override boolean sameData(AstNode other) {
+		return super.sameData(other) && type == ((CycleNode) other).type && parts() == ((CycleNode) other).parts();
+	}
+	private int parts() {
+		return (init != null ? 1 : 0) | (condition != null ? 2 : 0) | (update != null ? 4 : 0);
+	}
+
+	@Override public List<AstNode> children() {
+		List<AstNode> children = new ArrayList<>(body.size() + 3);
+		if (init != null) children.add(init);
+		if (condition != null) children.add(condition);
+		if (update != null) children.add(update);
+		children.addAll(body);
+		return children;
+	}
+}
@@ -0,0 +1,18 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+
+// Declaración simple: name = expr
+public class DeclNode extends AstNode {
+	public final String name;
+	public final AstNode expr;
+	public DeclNode(String name, AstNode expr) { this.name = name; this.expr = expr; }
+	@Override void buildTree(TreePrinter out, int indent) {
+		out.line(indent, "Decl: " + name);
+		out.child(expr, indent + 1);
+	}
+	@Override public <R> R accept(AstVisitor<R> visitor) { return visitor.visitDecl(this); }
+	@Override int dataHash() { return name.hashCode(); }
+	@Override boolean sameData(AstNode other) { return super.sameData(other) && name.equals(((DeclNode) other).name); }
+	@Override public List<AstNode> children() { return Collections.singletonList(expr); }
+}
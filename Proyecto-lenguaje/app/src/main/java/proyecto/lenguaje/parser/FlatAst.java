@@ -0,0 +1,519 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.OffHeapStore;
+import proyecto.lenguaje.lexer.SymbolTable;
+import proyecto.lenguaje.lexer.Token;
+import proyecto.lenguaje.lexer.TokenSource;
+import java.util.*;
+
+/**
+ * Árbol sintáctico plano (ver Parser.parseInto): un arena de nodos en campos
+ * enteros, sin un objeto por nodo.
+ *
+ * Cada nodo es un id (índice en el arena) con estos campos:
+ * - tipo de nodo (Kind), primer hijo, siguiente hermano y último hijo: los
+ *   hijos forman una lista enlazada en el orden en que AstNode los imprime.
+ * - dato: id en la tabla de nombres del nombre (Decl, Ident, Let), del
+ *   operador (BinaryOp, UnaryOp) o del texto del literal.
+ * - auxiliar: el Token.Type del literal, o en un ciclo el CycleType y qué
+ *   partes tiene (init, condición, actualización), que van antes del cuerpo.
+ * - token: índice (en el orden en que el parser los consumió) del token
+ *   principal: el nombre, el operador, la palabra clave o el literal.
+ * - tramo: tokens [inicio, fin) que abarca el nodo. Los paréntesis de una
+ *   expresión agrupada no forman parte de su tramo.
+ * - posición y línea: las del token, en identificadores y literales (-1 en
+ *   los demás nodos).
+ * Los campos se guardan en arreglos del heap o, con un OffHeapStore, fuera
+ * del heap. El nodo 0 es el programa. Los nombres se guardan una sola vez
+ * cada uno en una SymbolTable (en el heap), que crece con los nombres
+ * distintos y no con el tamaño de la entrada.
+ *
+ * Los métodos getDeclExpr, getLeft, getThen, etc. son una vista tipada: cada
+ * uno comprueba el tipo del nodo y devuelve el id del hijo correspondiente.
+ * materialize() crea el árbol de objetos AstNode equivalente.
+ */
+public final class FlatAst {
+    public enum Kind { PROGRAM, DECL, IDENTIFIER, LITERAL, IF, LET, APPLY, BINARY_OP, UNARY_OP, LIST, TUPLE, CYCLE }
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final Token.Type[] TOKEN_TYPES = Token.Type.values();
+    private static final CycleNode.CycleType[] CYCLE_TYPES = CycleNode.CycleType.values();
+    // Campos de cada nodo
+    private static final int KIND = 0;
+    private static final int DATA = 1;
+    private static final int AUX = 2;
+    private static final int FIRST = 3;
+    private static final int NEXT = 4;
+    private static final int LAST = 5;
+    private static final int TOKEN = 6;
+    private static final int SPAN_START = 7;
+    private static final int SPAN_END = 8;
+    private static final int POSITION = 9;
+    private static final int LINE = 10;
+    private static final int FIELDS = 11;
+    // Partes presentes de un ciclo (en aux, debajo del CycleType)
+    private static final int HAS_INIT = 1;
+    private static final int HAS_CONDITION = 2;
+    private static final int HAS_UPDATE = 4;
+
+    private final NodeStorage nodes;
+    private final SymbolTable names = new SymbolTable();
+    private int size;
+
+    public FlatAst() {
+        this(new HeapNodeStorage(FIELDS, 256));
+    }
+
+    /** Árbol con los nodos fuera del heap, en el almacén dado (que debe seguir abierto). */
+    public FlatAst(OffHeapStore store) {
+        this(new OffHeapNodeStorage(store, FIELDS, 1024));
+    }
+
+    private FlatAst(NodeStorage nodes) {
+        this.nodes = nodes;
+        newNode(Kind.PROGRAM, -1, 0, -1, 0, 0);
+    }
+
+    /** Cantidad de nodos (incluido el programa). */
+    public int size() { return size; }
+    public int root() { return 0; }
+
+    public Kind getKind(int node) { return KINDS[get(checkNode(node), KIND)]; }
+    /** Primer hijo, o -1 si no tiene. */
+    public int getFirstChild(int node) { return get(checkNode(node), FIRST); }
+    /** Siguiente hermano, o -1 si es el último hijo. */
+    public int getNextSibling(int node) { return get(checkNode(node), NEXT); }
+    /** Índice del token principal del nodo (-1 en el programa). */
+    public int getToken(int node) { return get(checkNode(node), TOKEN); }
+    /** Primer token del nodo. */
+    public int getSpanStart(int node) { return get(checkNode(node), SPAN_START); }
+    /** Índice siguiente al último token del nodo. */
+    public int getSpanEnd(int node) { return get(checkNode(node), SPAN_END); }
+    public int getPosition(int node) { return get(checkNode(node), POSITION); }
+    public int getLine(int node) { return get(checkNode(node), LINE); }
+
+    /** Nombre, operador o texto del literal del nodo (null si no tiene). */
+    public String getText(int node) {
+        int data = get(checkNode(node), DATA);
+        return data >= 0 ? names.name(data) : null;
+    }
+
+    public int getChildCount(int node) {
+        int count = 0;
+        for (int child = getFirstChild(node); child >= 0; child = get(child, NEXT)) {
+            count++;
+        }
+        return count;
+    }
+
+    // --- vista tipada ---
+
+    /** Nombre de una declaración, identificador o let. */
+    public String getName(int node) {
+        Kind kind = getKind(node);
+        if (kind != Kind.DECL && kind != Kind.IDENTIFIER && kind != Kind.LET) {
+            throw new IllegalStateException("El nodo " + node + " es " + kind + " y no tiene nombre");
+        }
+        return getText(node);
+    }
+
+    /** Operador de un BinaryOp o UnaryOp. */
+    public String getOperator(int node) {
+        Kind kind = getKind(node);
+        if (kind != Kind.BINARY_OP && kind != Kind.UNARY_OP) {
+            throw new IllegalStateException("El nodo " + node + " es " + kind + " y no tiene operador");
+        }
+        return getText(node);
+    }
+
+    /** Tipo de token de un literal. */
+    public Token.Type getLiteralType(int node) {
+        requireKind(node, Kind.LITERAL);
+        return TOKEN_TYPES[get(node, AUX)];
+    }
+
+    public int getDeclExpr(int node) { requireKind(node, Kind.DECL); return get(node, FIRST); }
+    public int getLeft(int node) { requireKind(node, Kind.BINARY_OP); return get(node, FIRST); }
+    public int getRight(int node) { requireKind(node, Kind.BINARY_OP); return get(get(node, FIRST), NEXT); }
+    public int getOperand(int node) { requireKind(node, Kind.UNARY_OP); return get(node, FIRST); }
+    public int getThen(int node) { requireKind(node, Kind.IF); return get(get(node, FIRST), NEXT); }
+    public int getElse(int node) { requireKind(node, Kind.IF); return get(get(get(node, FIRST), NEXT), NEXT); }
+    public int getBound(int node) { requireKind(node, Kind.LET); return get(node, FIRST); }
+    public int getBody(int node) { requireKind(node, Kind.LET); return get(get(node, FIRST), NEXT); }
+    public int getFunction(int node) { requireKind(node, Kind.APPLY); return get(node, FIRST); }
+    /** Primer argumento de una aplicación (los demás siguen con getNextSibling). */
+    public int getFirstArgument(int node) { requireKind(node, Kind.APPLY); return get(get(node, FIRST), NEXT); }
+
+    /** Condición de un if, o de un ciclo (-1 si el ciclo no tiene). */
+    public int getCondition(int node) {
+        if (getKind(node) == Kind.IF) {
+            return get(node, FIRST);
+        }
+        return cyclePart(node, HAS_CONDITION);
+    }
+
+    /** Tipo de un ciclo: WHILE, FOR o LOOP. */
+    public String getCycleType(int node) {
+        requireKind(node, Kind.CYCLE);
+        return CYCLE_TYPES[get(node, AUX) >>> 3].name();
+    }
+
+    /** Inicialización de un ciclo for (-1 si no tiene). */
+    public int getCycleInit(int node) { return cyclePart(node, HAS_INIT); }
+    /** Actualización de un ciclo for (-1 si no tiene). */
+    public int getCycleUpdate(int node) { return cyclePart(node, HAS_UPDATE); }
+
+    /** Primera sentencia del cuerpo de un ciclo (-1 si está vacío). */
+    public int getCycleFirstStatement(int node) {
+        requireKind(node, Kind.CYCLE);
+        int child = get(node, FIRST);
+        for (int flags = get(node, AUX) & 7; flags != 0; flags &= flags - 1) {
+            child = get(child, NEXT);
+        }
+        return child;
+    }
+
+    // Hijo de un ciclo correspondiente a la parte indicada (-1 si el ciclo no la tiene)
+    private int cyclePart(int node, int part) {
+        requireKind(node, Kind.CYCLE);
+        int flags = get(node, AUX) & 7;
+        if ((flags & part) == 0) {
+            return -1;
+        }
+        int child = get(node, FIRST);
+        // Saltar las partes anteriores presentes
+        for (int before = flags & (part - 1); before != 0; before &= before - 1) {
+            child = get(child, NEXT);
+        }
+        return child;
+    }
+
+    /** Igual que AstNode.toTreeString del árbol equivalente. */
+    public String toTreeString() {
+        // Pila explícita de pendientes: String (línea ya indentada) o {nodo, indentación}
+        StringBuilder sb = new StringBuilder();
+        Deque<Object> pending = new ArrayDeque<>();
+        List<Object> current = new ArrayList<>();
+        pending.push(new int[] { 0, 0 });
+        while (!pending.isEmpty()) {
+            Object next = pending.pop();
+            if (next instanceof String) {
+                sb.append((String) next);
+                continue;
+            }
+            int[] entry = (int[]) next;
+            indent(sb, entry[1]);
+            current.clear();
+            buildTree(sb, entry[0], entry[1], current);
+            for (int i = current.size() - 1; i >= 0; i--) {
+                pending.push(current.get(i));
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Crea el árbol de objetos AstNode equivalente (para quien todavía lo necesite). */
+    public AstNode materialize() {
+        // Postorden con pila explícita: cada nodo se crea después de sus hijos
+        AstNode[] built = new AstNode[size];
+        boolean[] expanded = new boolean[size];
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[top - 1];
+            if (!expanded[node]) {
+                expanded[node] = true;
+                for (int child = get(node, FIRST); child >= 0; child = get(child, NEXT)) {
+                    if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                    stack[top++] = child;
+                }
+            } else {
+                top--;
+                built[node] = toAstNode(node, built);
+            }
+        }
+        return built[0];
+    }
+
+    // Escribe la primera línea del nodo en sb y deja en rest lo que sigue: líneas y {hijo, indentación}
+    private void buildTree(StringBuilder sb, int node, int indent, List<Object> rest) {
+        int child = get(node, FIRST);
+        switch (KINDS[get(node, KIND)]) {
+            case PROGRAM:
+                sb.append("Program\n");
+                for (; child >= 0; child = get(child, NEXT)) rest.add(new int[] { child, indent + 1 });
+                break;
+            case DECL:
+                sb.append("Decl: ").append(getText(node)).append("\n");
+                rest.add(new int[] { child, indent + 1 });
+                break;
+            case IDENTIFIER:
+                sb.append("Ident: ").append(getText(node)).append("\n");
+                break;
+            case LITERAL:
+                sb.append("Literal(").append(getLiteralType(node)).append("): ").append(getText(node)).append("\n");
+                break;
+            case IF:
+                sb.append("If\n");
+                rest.add(new int[] { child, indent + 1 });
+                child = get(child, NEXT);
+                rest.add(line(indent + 1, "Then"));
+                rest.add(new int[] { child, indent + 2 });
+                rest.add(line(indent + 1, "Else"));
+                rest.add(new int[] { get(child, NEXT), indent + 2 });
+                break;
+            case LET:
+                sb.append("Let ").append(getText(node)).append("\n");
+                rest.add(new int[] { child, indent + 1 });
+                rest.add(line(indent + 1, "In"));
+                rest.add(new int[] { get(child, NEXT), indent + 2 });
+                break;
+            case APPLY: case BINARY_OP: case UNARY_OP: case LIST: case TUPLE: {
+                Kind kind = KINDS[get(node, KIND)];
+                if (kind == Kind.APPLY) sb.append("Apply\n");
+                else if (kind == Kind.BINARY_OP) sb.append("BinaryOp(").append(getText(node)).append(")\n");
+                else if (kind == Kind.UNARY_OP) sb.append("UnaryOp(").append(getText(node)).append(")\n");
+                else sb.append(kind == Kind.LIST ? "List\n" : "Tuple\n");
+                for (; child >= 0; child = get(child, NEXT)) rest.add(new int[] { child, indent + 1 });
+                break;
+            }
+            case CYCLE: {
+                int aux = get(node, AUX);
+                sb.append("Cycle(").append(CYCLE_TYPES[aux >>> 3]).append(")\n");
+                String[] parts = { "Init", "Condition", "Update" };
+                for (int i = 0; i < parts.length; i++) {
+                    if ((aux & (1 << i)) != 0) {
+                        rest.add(line(indent + 1, parts[i]));
+                        rest.add(new int[] { child, indent + 2 });
+                        child = get(child, NEXT);
+                    }
+                }
+                rest.add(line(indent + 1, "Body"));
+                for (; child >= 0; child = get(child, NEXT)) rest.add(new int[] { child, indent + 2 });
+                break;
+            }
+        }
+    }
+
+    private static String line(int indent, String text) {
+        StringBuilder sb = new StringBuilder();
+        indent(sb, indent);
+        return sb.append(text).append('\n').toString();
+    }
+
+    private static void indent(StringBuilder sb, int n) {
+        for (int i = 0; i < n; i++) sb.append("  ");
+    }
+
+    // Nodo equivalente a node; los de sus hijos ya están en built
+    private AstNode toAstNode(int node, AstNode[] built) {
+        int child = get(node, FIRST);
+        int second = child >= 0 ? get(child, NEXT) : -1;
+        switch (KINDS[get(node, KIND)]) {
+            case PROGRAM: return new ProgramNode(children(child, built));
+            case DECL: return new DeclNode(getText(node), built[child]);
+            case IDENTIFIER: return new IdentifierNode(getText(node), get(node, LINE));
+            case LITERAL:
+                return new LiteralNode(new Token(getLiteralType(node), getText(node),
+                    get(node, POSITION), get(node, LINE)));
+            case IF: return new IfNode(built[child], built[second], built[get(second, NEXT)]);
+            case LET: return new LetNode(getText(node), built[child], built[second]);
+            case APPLY: return new ApplyNode(built[child], children(second, built));
+            case BINARY_OP: return new BinaryOpNode(getText(node), built[child], built[second]);
+            case UNARY_OP: return new UnaryOpNode(getText(node), built[child]);
+            case LIST: return new ListNode(children(child, built));
+            case TUPLE: return new TupleNode(children(child, built));
+            default: {
+                int aux = get(node, AUX);
+                AstNode[] parts = new AstNode[3];
+                for (int i = 0; i < parts.length; i++) {
+                    if ((aux & (1 << i)) != 0) {
+                        parts[i] = built[child];
+                        child = get(child, NEXT);
+                    }
+                }
+                return new CycleNode(CYCLE_TYPES[aux >>> 3], parts[0], parts[1], parts[2], children(child, built));
+            }
+        }
+    }
+
+    private List<AstNode> children(int first, AstNode[] built) {
+        List<AstNode> list = new ArrayList<>();
+        for (int child = first; child >= 0; child = get(child, NEXT)) {
+            list.add(built[child]);
+        }
+        return list;
+    }
+
+    // --- escritura (solo desde el Parser, a través de builder()) ---
+
+    AstBuilder builder() {
+        return new Builder();
+    }
+
+    private final class Builder implements AstBuilder {
+        @Override
+        public void item(int node) {
+            append(0, node);
+            set(0, SPAN_END, get(node, SPAN_END));
+        }
+
+        @Override
+        public int decl(String name, int nameToken, int expr) {
+            int node = newNode(Kind.DECL, names.intern(name), 0, nameToken, nameToken, get(expr, SPAN_END));
+            return withChildren(node, expr);
+        }
+
+        @Override
+        public int identifier(TokenSource tokens, int token) {
+            return leaf(Kind.IDENTIFIER, tokens, token, 0);
+        }
+
+        @Override
+        public int literal(TokenSource tokens, int token) {
+            return leaf(Kind.LITERAL, tokens, token, tokens.peekType(0).ordinal());
+        }
+
+        @Override
+        public int ifNode(int ifToken, int cond, int thenBranch, int elseBranch) {
+            int node = newNode(Kind.IF, -1, 0, ifToken, ifToken, get(elseBranch, SPAN_END));
+            return withChildren(node, cond, thenBranch, elseBranch);
+        }
+
+        @Override
+        public int let(String name, int letToken, int bound, int body) {
+            int node = newNode(Kind.LET, names.intern(name), 0, letToken, letToken, get(body, SPAN_END));
+            return withChildren(node, bound, body);
+        }
+
+        @Override
+        public int binary(String op, int opToken, int left, int right) {
+            int node = newNode(Kind.BINARY_OP, names.intern(op), 0, opToken, get(left, SPAN_START), get(right, SPAN_END));
+            return withChildren(node, left, right);
+        }
+
+        @Override
+        public int unary(String op, int opToken, int operand) {
+            int node = newNode(Kind.UNARY_OP, names.intern(op), 0, opToken, opToken, get(operand, SPAN_END));
+            return withChildren(node, operand);
+        }
+
+        @Override
+        public int apply(int function, int[] args, int from, int count) {
+            int end = get(args[from + count - 1], SPAN_END);
+            // Una aplicación recién creada no está enlazada a ningún padre: se le agregan los argumentos
+            if (get(function, KIND) == Kind.APPLY.ordinal()) {
+                set(function, SPAN_END, end);
+                return withChildren(function, args, from, count);
+            }
+            int start = get(function, SPAN_START);
+            int node = newNode(Kind.APPLY, -1, 0, start, start, end);
+            append(node, function);
+            return withChildren(node, args, from, count);
+        }
+
+        @Override
+        public int tuple(int open, int end, int[] elements, int from, int count) {
+            return withChildren(newNode(Kind.TUPLE, -1, 0, open, open, end), elements, from, count);
+        }
+
+        @Override
+        public int list(int open, int end, int[] elements, int from, int count) {
+            return withChildren(newNode(Kind.LIST, -1, 0, open, open, end), elements, from, count);
+        }
+
+        @Override
+        public int cycle(CycleNode.CycleType type, int keywordToken, int end,
+                         int init, int condition, int update, int[] body, int from, int count) {
+            int flags = (init >= 0 ? HAS_INIT : 0) | (condition >= 0 ? HAS_CONDITION : 0) | (update >= 0 ? HAS_UPDATE : 0);
+            int node = newNode(Kind.CYCLE, -1, type.ordinal() << 3 | flags, keywordToken, keywordToken, end);
+            append(node, init);
+            append(node, condition);
+            append(node, update);
+            return withChildren(node, body, from, count);
+        }
+
+        @Override
+        public int mark() {
+            return size;
+        }
+
+        @Override
+        public void rollback(int mark) {
+            size = mark;
+        }
+
+        private int leaf(Kind kind, TokenSource tokens, int token, int aux) {
+            int node = newNode(kind, names.intern(tokens.peekValue(0)), aux, token, token, token + 1);
+            set(node, POSITION, tokens.peekPosition(0));
+            set(node, LINE, tokens.peekLine(0));
+            return node;
+        }
+
+        private int withChildren(int node, int... children) {
+            return withChildren(node, children, 0, children.length);
+        }
+
+        private int withChildren(int node, int[] children, int from, int count) {
+            for (int i = from; i < from + count; i++) {
+                append(node, children[i]);
+            }
+            return node;
+        }
+
+        // Enlaza child como último hijo de parent (no hace nada si child es -1)
+        private void append(int parent, int child) {
+            if (child < 0) {
+                return;
+            }
+            int last = get(parent, LAST);
+            if (last < 0) {
+                set(parent, FIRST, child);
+            } else {
+                set(last, NEXT, child);
+            }
+            set(parent, LAST, child);
+        }
+    }
+
+    private int newNode(Kind kind, int data, int aux, int token, int spanStart, int spanEnd) {
+        if (size == nodes.capacity()) {
+            nodes.grow(size * 2, size);
+        }
+        int node = size++;
+        set(node, KIND, kind.ordinal());
+        set(node, DATA, data);
+        set(node, AUX, aux);
+        set(node, FIRST, -1);
+        set(node, NEXT, -1);
+        set(node, LAST, -1);
+        set(node, TOKEN, token);
+        set(node, SPAN_START, spanStart);
+        set(node, SPAN_END, spanEnd);
+        set(node, POSITION, -1);
+        set(node, LINE, -1);
+        return node;
+    }
+
+    private int get(int node, int field) {
+        return nodes.get(node, field);
+    }
+
+    private void set(int node, int field, int value) {
+        nodes.set(node, field, value);
+    }
+
+    private void requireKind(int node, Kind expected) {
+        if (getKind(node) != expected) {
+            throw new IllegalStateException("El nodo " + node + " es " + getKind(node) + ", no " + expected);
+        }
+    }
+
+    private int checkNode(int node) {
+        if (node < 0 || node >= size) {
+            throw new IndexOutOfBoundsException("Nodo " + node + ", tamaño " + size);
+        }
+        return node;
+    }
+}
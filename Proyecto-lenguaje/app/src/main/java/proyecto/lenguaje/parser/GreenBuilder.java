@@ -0,0 +1,243 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.Token;
+import proyecto.lenguaje.lexer.TokenSource;
+import java.util.*;
+
+/**
+ * AstBuilder que crea el árbol verde (ver SyntaxTree).
+ *
+ * Cada nodo abarca un tramo de tokens [inicio, fin), que se deduce de los
+ * índices de tokens que le pasa el parser y de los tramos de sus hijos. Sus
+ * hijos verdes son los hijos del AstBuilder intercalados con los tokens del
+ * tramo que ningún hijo cubre. Los elementos con error se guardan como nodos
+ * ERROR y los tokens que no quedan en ningún elemento van directo en el
+ * programa, de modo que ningún carácter se pierde. Todos los nodos pasan por
+ * un Cache: los nodos iguales (del mismo análisis o de una versión anterior
+ * del documento con la que se llenó el caché) son un mismo objeto.
+ */
+class GreenBuilder implements AstBuilder {
+    private final GreenNode[] tokens;
+    private final GreenNode endOfFile;
+    private final Cache cache;
+    private final List<GreenNode> nodes = new ArrayList<>();
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    // Elementos de primer nivel (ids de nodos), en orden
+    private final List<Integer> items = new ArrayList<>();
+
+    /** tokens deben ser los de HaskellLexer.tokenize(text). */
+    GreenBuilder(String text, List<Token> tokens, Cache cache) {
+        this.cache = cache;
+        this.tokens = new GreenNode[tokens.size()];
+        int previousEnd = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            int start = token.getPosition();
+            int end = start + token.getValue().length();
+            this.tokens[i] = cache.intern(GreenNode.token(token.getType(),
+                text.substring(previousEnd, start), text.substring(start, end)));
+            previousEnd = end;
+        }
+        this.endOfFile = cache.intern(GreenNode.endOfFile(text.substring(previousEnd)));
+    }
+
+    /** Registra los tokens [start, end) de un elemento que no se pudo analizar. */
+    void error(int start, int end) {
+        items.add(add(SyntaxKind.ERROR, start, end));
+    }
+
+    /** El programa completo, con los elementos, los tokens sueltos y el final del archivo. */
+    GreenNode finish() {
+        List<GreenNode> children = new ArrayList<>();
+        int pos = 0;
+        for (int item : items) {
+            pos = addChild(children, pos, item);
+        }
+        addTokens(children, pos, tokens.length);
+        children.add(endOfFile);
+        return cache.intern(GreenNode.node(SyntaxKind.PROGRAM, children.toArray(new GreenNode[0])));
+    }
+
+    @Override
+    public void item(int node) {
+        items.add(node);
+    }
+
+    @Override
+    public int decl(String name, int nameToken, int expr) {
+        return add(SyntaxKind.DECL, nameToken, ends[expr], expr);
+    }
+
+    @Override
+    public int identifier(TokenSource source, int token) {
+        return add(SyntaxKind.IDENTIFIER, token, token + 1);
+    }
+
+    @Override
+    public int literal(TokenSource source, int token) {
+        return add(SyntaxKind.LITERAL, token, token + 1);
+    }
+
+    @Override
+    public int ifNode(int ifToken, int cond, int thenBranch, int elseBranch) {
+        return add(SyntaxKind.IF, ifToken, ends[elseBranch], cond, thenBranch, elseBranch);
+    }
+
+    @Override
+    public int let(String name, int letToken, int bound, int body) {
+        return add(SyntaxKind.LET, letToken, ends[body], bound, body);
+    }
+
+    @Override
+    public int binary(String op, int opToken, int left, int right) {
+        return add(SyntaxKind.BINARY_OP, starts[left], ends[right], left, right);
+    }
+
+    @Override
+    public int unary(String op, int opToken, int operand) {
+        return add(SyntaxKind.UNARY_OP, opToken, ends[operand], operand);
+    }
+
+    @Override
+    public int apply(int function, int[] args, int from, int count) {
+        int end = ends[args[from + count - 1]];
+        // Como en TreeBuilder, una aplicación sin paréntesis recibe los argumentos nuevos
+        GreenNode applied = nodes.get(function);
+        if (applied.getKind() == SyntaxKind.APPLY) {
+            List<GreenNode> green = new ArrayList<>(applied.getChildCount() + count * 2);
+            for (int i = 0; i < applied.getChildCount(); i++) {
+                green.add(applied.getChild(i));
+            }
+            int pos = ends[function];
+            for (int i = from; i < from + count; i++) {
+                pos = addChild(green, pos, args[i]);
+            }
+            addTokens(green, pos, end);
+            return store(SyntaxKind.APPLY, starts[function], end, green);
+        }
+        int[] children = new int[count + 1];
+        children[0] = function;
+        System.arraycopy(args, from, children, 1, count);
+        return add(SyntaxKind.APPLY, starts[function], end, children);
+    }
+
+    @Override
+    public int tuple(int open, int end, int[] elements, int from, int count) {
+        return add(SyntaxKind.TUPLE, open, end, Arrays.copyOfRange(elements, from, from + count));
+    }
+
+    @Override
+    public int list(int open, int end, int[] elements, int from, int count) {
+        return add(SyntaxKind.LIST, open, end, Arrays.copyOfRange(elements, from, from + count));
+    }
+
+    @Override
+    public int group(int open, int end, int expr) {
+        return add(SyntaxKind.PAREN, open, end, expr);
+    }
+
+    @Override
+    public int cycle(CycleNode.CycleType type, int keywordToken, int end,
+                     int init, int condition, int update, int[] body, int from, int count) {
+        int[] children = new int[3 + count];
+        int n = 0;
+        for (int part : new int[] { init, condition, update }) {
+            if (part >= 0) {
+                children[n++] = part;
+            }
+        }
+        System.arraycopy(body, from, children, n, count);
+        return add(SyntaxKind.CYCLE, keywordToken, end, Arrays.copyOf(children, n + count));
+    }
+
+    @Override
+    public int mark() {
+        return nodes.size();
+    }
+
+    @Override
+    public void rollback(int mark) {
+        nodes.subList(mark, nodes.size()).clear();
+    }
+
+    // Nodo del tramo [start, end) con los hijos dados (ids, en el orden del texto)
+    private int add(SyntaxKind kind, int start, int end, int... children) {
+        List<GreenNode> green = new ArrayList<>(children.length * 2 + 1);
+        int pos = start;
+        for (int child : children) {
+            pos = addChild(green, pos, child);
+        }
+        addTokens(green, pos, end);
+        return store(kind, start, end, green);
+    }
+
+    private int store(SyntaxKind kind, int start, int end, List<GreenNode> children) {
+        int id = nodes.size();
+        if (id == starts.length) {
+            starts = Arrays.copyOf(starts, id * 2);
+            ends = Arrays.copyOf(ends, id * 2);
+        }
+        starts[id] = start;
+        ends[id] = end;
+        nodes.add(cache.intern(GreenNode.node(kind, children.toArray(new GreenNode[0]))));
+        return id;
+    }
+
+    // Agrega los tokens sueltos antes del hijo y el hijo; devuelve el token siguiente
+    private int addChild(List<GreenNode> green, int pos, int child) {
+        addTokens(green, pos, starts[child]);
+        green.add(nodes.get(child));
+        return ends[child];
+    }
+
+    private void addTokens(List<GreenNode> green, int from, int to) {
+        for (int i = from; i < to; i++) {
+            green.add(tokens[i]);
+        }
+    }
+
+    /**
+     * Tabla de nodos verdes ya creados: devuelve el existente cuando hay uno
+     * con los mismos datos y los mismos hijos (como AstInterner).
+     */
+    static final class Cache {
+        private final Map<Key, GreenNode> nodes = new HashMap<>();
+
+        GreenNode intern(GreenNode node) {
+            return nodes.computeIfAbsent(new Key(node), key -> key.node);
+        }
+
+        /** Agrega todos los nodos del árbol, para reutilizarlos en la próxima versión. */
+        void addAll(GreenNode root) {
+            Deque<GreenNode> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                GreenNode node = pending.pop();
+                if (nodes.putIfAbsent(new Key(node), node) == null) {
+                    for (int i = 0; i < node.getChildCount(); i++) {
+                        pending.push(node.getChild(i));
+                    }
+                }
+            }
+        }
+
+        private static final class Key {
+            final GreenNode node;
+
+            Key(GreenNode node) {
+                this.node = node;
+            }
+
+            @Override
+            public int hashCode() {
+                return node.structuralHash();
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                return o instanceof Key && node.sameShallow(((Key) o).node);
+            }
+        }
+    }
+}
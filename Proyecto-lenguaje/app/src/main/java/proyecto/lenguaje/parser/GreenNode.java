@@ -0,0 +1,134 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.Token;
+import java.util.*;
+
+/**
+ * Nodo "verde" del árbol sintáctico completo: inmutable y sin posición.
+ *
+ * Un token guarda su tipo, su texto y los espacios y comentarios que lo
+ * preceden (trivia); un nodo interno guarda sus hijos en el orden del texto,
+ * incluidos los tokens que no forman parte de ningún hijo (palabras clave,
+ * operadores, paréntesis). El ancho es la cantidad de caracteres que cubre,
+ * trivia incluida, de modo que concatenar las hojas reproduce el texto
+ * exacto. Como no sabe dónde está, un mismo nodo verde puede aparecer en
+ * varios lugares y en varias versiones del documento; las posiciones las
+ * calcula SyntaxNode al recorrerlo.
+ */
+public final class GreenNode {
+    private static final GreenNode[] NO_CHILDREN = new GreenNode[0];
+
+    private final SyntaxKind kind;
+    private final Token.Type tokenType;   // null en los nodos internos y en END_OF_FILE
+    private final String trivia;
+    private final String text;
+    private final GreenNode[] children;
+    private final int width;
+    private final int hash;
+
+    private GreenNode(SyntaxKind kind, Token.Type tokenType, String trivia, String text, GreenNode[] children) {
+        this.kind = kind;
+        this.tokenType = tokenType;
+        this.trivia = trivia;
+        this.text = text;
+        this.children = children;
+        int w = trivia.length() + text.length();
+        int h = Objects.hash(kind, tokenType, trivia, text);
+        for (GreenNode child : children) {
+            w += child.width;
+            h = 31 * h + child.hash;
+        }
+        this.width = w;
+        this.hash = h;
+    }
+
+    static GreenNode token(Token.Type type, String trivia, String text) {
+        return new GreenNode(SyntaxKind.TOKEN, type, trivia, text, NO_CHILDREN);
+    }
+
+    static GreenNode endOfFile(String trivia) {
+        return new GreenNode(SyntaxKind.END_OF_FILE, null, trivia, "", NO_CHILDREN);
+    }
+
+    static GreenNode node(SyntaxKind kind, GreenNode[] children) {
+        return new GreenNode(kind, null, "", "", children);
+    }
+
+    /** Copia de este nodo con otro hijo en la posición index (los demás se comparten). */
+    GreenNode withChild(int index, GreenNode child) {
+        GreenNode[] copy = children.clone();
+        copy[index] = child;
+        return new GreenNode(kind, tokenType, trivia, text, copy);
+    }
+
+    public SyntaxKind getKind() {
+        return kind;
+    }
+
+    public boolean isToken() {
+        return kind.isToken();
+    }
+
+    /** Tipo del token (null si no es un token o es END_OF_FILE). */
+    public Token.Type getTokenType() {
+        return tokenType;
+    }
+
+    /** Espacios y comentarios antes del token ("" en los nodos internos). */
+    public String getLeadingTrivia() {
+        return trivia;
+    }
+
+    /** Texto del token, sin la trivia ("" en los nodos internos). */
+    public String getTokenText() {
+        return text;
+    }
+
+    /** Caracteres que cubre el nodo, trivia incluida. */
+    public int getWidth() {
+        return width;
+    }
+
+    public int getChildCount() {
+        return children.length;
+    }
+
+    public GreenNode getChild(int index) {
+        return children[index];
+    }
+
+    /** Hash de la estructura y el texto, calculado al crear el nodo. */
+    int structuralHash() {
+        return hash;
+    }
+
+    /** Mismos datos propios y los mismos objetos como hijos. */
+    boolean sameShallow(GreenNode other) {
+        if (kind != other.kind || tokenType != other.tokenType || children.length != other.children.length
+            || !trivia.equals(other.trivia) || !text.equals(other.text)) {
+            return false;
+        }
+        for (int i = 0; i < children.length; i++) {
+            if (children[i] != other.children[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** El texto exacto que cubre el nodo (sin recursión). */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(width);
+        Deque<GreenNode> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            GreenNode node = pending.pop();
+            sb.append(node.trivia).append(node.text);
+            for (int i = node.children.length - 1; i >= 0; i--) {
+                pending.push(node.children[i]);
+            }
+        }
+        return sb.toString();
+    }
+}
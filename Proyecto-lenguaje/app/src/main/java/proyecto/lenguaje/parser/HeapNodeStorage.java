@@ -0,0 +1,27 @@
+package proyecto.lenguaje.parser;
+
+import java.util.Arrays;
+
+// Un arreglo de enteros por campo, indexado por nodo (el almacenamiento por defecto de FlatAst)
+final class HeapNodeStorage implements NodeStorage {
+    private final int[][] fields;
+
+    HeapNodeStorage(int fieldCount, int capacity) {
+        fields = new int[fieldCount][capacity];
+    }
+
+    @Override
+    public int capacity() {
+        return fields[0].length;
+    }
+
+    @Override
+    public void grow(int capacity, int size) {
+        for (int f = 0; f < fields.length; f++) {
+            fields[f] = Arrays.copyOf(fields[f], capacity);
+        }
+    }
+
+    @Override public int get(int node, int field) { return fields[field][node]; }
+    @Override public void set(int node, int field, int value) { fields[field][node] = value; }
+}
@@ -0,0 +1,19 @@
+package proyecto.lenguaje.parser;
+
+// Identificador
+public class IdentifierNode extends AstNode {
+	public final String name;
+	public final int line; // línea del token (0 si no se conoce)
+	public IdentifierNode(String name) { this(name, 0); }
+	public IdentifierNode(String name, int line) { this.name = name; this.line = line; }
+	@Override void buildTree(TreePrinter out, int indent) {
+		out.line(indent, "Ident: " + name);
+	}
+	@Override public <R> R accept(AstVisitor<R> visitor) { return visitor.visitIdentifier(this); }
+	@Override int dataHash() { return name.hashCode(); }
+	@Override boolean sameData(AstNode other) { return super.sameData(other) && name.equals(((IdentifierNode) other).name); }
+	
+	// Método de acceso para otras clases del paquete
+	public String getName() { return name; }
+	public int getLine() { return line; }
+}
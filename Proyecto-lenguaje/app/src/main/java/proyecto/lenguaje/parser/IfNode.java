@@ -0,0 +1,19 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+
+// If expression
+public class IfNode extends AstNode {
+	public final AstNode cond, thenBranch, elseBranch;
+	public IfNode(AstNode c, AstNode t, AstNode e) { cond = c; thenBranch = t; elseBranch = e; }
+	@Override void buildTree(TreePrinter out, int indent) {
+		out.line(indent, "If");
+		out.child(cond, indent + 1);
+		out.line(indent + 1, "Then");
+		out.child(thenBranch, indent + 2);
+		out.line(indent + 1, "Else");
+		out.child(elseBranch, indent + 2);
+	}
+	@Override public <R> R accept(AstVisitor<R> visitor) { return visitor.visitIf(this); }
+	@Override public List<AstNode> children() { return Arrays.asList(cond, thenBranch, elseBranch); }
+}
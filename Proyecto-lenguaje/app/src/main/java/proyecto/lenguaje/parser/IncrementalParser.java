@@ -0,0 +1,250 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.IncrementalLexer;
+import proyecto.lenguaje.lexer.LineIndex;
+import proyecto.lenguaje.lexer.Token;
+import proyecto.lenguaje.lexer.TokenSource;
+import java.util.*;
+
+/**
+ * Parser incremental por elementos de primer nivel, para el editor del IDE.
+ *
+ * El programa es una secuencia de declaraciones y expresiones independientes:
+ * entre dos elementos el parser no guarda más estado que la posición en los
+ * tokens. Por eso, para cada elemento se recuerda su tramo de tokens, su tramo
+ * en el texto y hasta dónde se leyó (incluida la anticipación del parser y
+ * el alcance del IncrementalLexer), y ante una edición:
+ * - Se conservan los elementos iniciales que no leyeron nada de la región
+ *   editada.
+ * - Se analiza de nuevo desde ahí, hasta que un elemento nuevo comienza,
+ *   después de la edición, en la misma posición (desplazada) que un elemento
+ *   anterior. Como el lexer tampoco guarda estado entre tokens, desde ese
+ *   punto los tokens y los elementos son los mismos, y se reutilizan los
+ *   mismos objetos AstNode.
+ * Los elementos con error se analizan siempre de nuevo, porque su mensaje
+ * incluye la línea y la columna. El resultado (árbol o ParseException con los
+ * errores numerados) es el mismo que el de Parser.parseProgram. Los Token de
+ * los literales reutilizados conservan la posición que tenían cuando se
+ * crearon; el tramo actual de cada elemento se obtiene con getItemStart y
+ * getItemEnd.
+ */
+public class IncrementalParser {
+    // Un elemento de primer nivel (o un tramo con error) del último análisis
+    private static final class Segment {
+        final int startToken;
+        final int endToken;     // índice siguiente al último token
+        final int startOffset;
+        final int endOffset;
+        final int reach;        // último carácter leído (Integer.MAX_VALUE si llegó al final)
+        final AstNode item;     // null si hubo error
+        final String error;
+
+        Segment(int startToken, int endToken, int startOffset, int endOffset, int reach, AstNode item, String error) {
+            this.startToken = startToken;
+            this.endToken = endToken;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.reach = reach;
+            this.item = item;
+            this.error = error;
+        }
+    }
+
+    private List<Segment> segments;
+    // Región editada desde el último análisis: [editFrom, editOldTo) en el texto
+    // anterior, que ahora ocupa [editFrom, editOldTo + editDelta)
+    private boolean edited;
+    private int editFrom;
+    private int editOldTo;
+    private int editDelta;
+    private int reused;
+
+    /** Registra una edición del texto (en coordenadas del texto actual). */
+    public void applyEdit(int offset, int removedLength, int insertedLength) {
+        if (segments == null) {
+            return;
+        }
+        if (!edited) {
+            edited = true;
+            editFrom = offset;
+            editOldTo = offset + removedLength;
+            editDelta = insertedLength - removedLength;
+            return;
+        }
+        // Unir con la región anterior: lo que está después de ella ya estaba desplazado
+        int editEnd = offset + removedLength;
+        if (editEnd > editOldTo + editDelta) {
+            editOldTo = editEnd - editDelta;
+        }
+        editFrom = Math.min(editFrom, offset);
+        editDelta += insertedLength - removedLength;
+    }
+
+    /** Olvida el análisis anterior (el próximo parse analiza todo). */
+    public void reset() {
+        segments = null;
+        edited = false;
+    }
+
+    /**
+     * Analiza los tokens actuales del lexer (que debe haber recibido las
+     * mismas ediciones), reutilizando lo posible del análisis anterior.
+     * @throws Parser.ParseException con todos los errores, como parseProgram
+     */
+    public AstNode parse(IncrementalLexer lexer) {
+        List<Token> tokens = lexer.getTokens();
+        List<Segment> old = segments;
+        reused = 0;
+        if (old != null && !edited) {
+            // Sin ediciones: el mismo resultado
+            for (Segment s : old) {
+                if (s.item != null) {
+                    reused++;
+                }
+            }
+            return finish(old);
+        }
+        List<Segment> result = new ArrayList<>();
+        int next = 0;   // índice del segmento anterior que sigue
+        int token = 0;  // índice del token nuevo desde el que se analiza
+
+        if (old != null) {
+            // Prefijo intacto: no leyó nada a partir de la edición
+            while (next < old.size() && old.get(next).reach < editFrom) {
+                result.add(old.get(next));
+                if (old.get(next).item != null) {
+                    reused++;
+                }
+                next++;
+            }
+            token = result.isEmpty() ? 0 : result.get(result.size() - 1).endToken;
+        }
+
+        TreeBuilder tree = new TreeBuilder();
+        while (token < tokens.size()) {
+            if (old != null && next < old.size()) {
+                // ¿Comienza aquí, después de la edición, un elemento anterior?
+                int oldStart = tokens.get(token).getPosition() - editDelta;
+                while (next < old.size() && old.get(next).startOffset < oldStart) {
+                    next++;
+                }
+                if (next < old.size() && old.get(next).startOffset == oldStart && oldStart >= editOldTo) {
+                    reuseTail(old, next, token - old.get(next).startToken, lexer, tree, result);
+                    break;
+                }
+            }
+            result.add(parseSegment(lexer, token, tree));
+            token = result.get(result.size() - 1).endToken;
+        }
+        return finish(result);
+    }
+
+    /** Cantidad de elementos del último análisis reutilizados del anterior. */
+    public int getReusedCount() {
+        return reused;
+    }
+
+    /** Desplazamiento donde comienza el elemento i del último programa analizado. */
+    public int getItemStart(int i) {
+        return itemSegment(i).startOffset;
+    }
+
+    /** Desplazamiento siguiente al último carácter del elemento i. */
+    public int getItemEnd(int i) {
+        return itemSegment(i).endOffset;
+    }
+
+    // Agrega los segmentos anteriores desde first, desplazados en tokenDelta y editDelta
+    private void reuseTail(List<Segment> old, int first, int tokenDelta, IncrementalLexer lexer,
+                           TreeBuilder tree, List<Segment> result) {
+        for (int i = first; i < old.size(); i++) {
+            Segment s = old.get(i);
+            if (s.item == null) {
+                // El mensaje incluye la posición: se analiza de nuevo (los tokens son los mismos)
+                result.add(parseSegment(lexer, s.startToken + tokenDelta, tree));
+                continue;
+            }
+            result.add(new Segment(s.startToken + tokenDelta, s.endToken + tokenDelta,
+                s.startOffset + editDelta, s.endOffset + editDelta,
+                s.reach == Integer.MAX_VALUE ? s.reach : s.reach + editDelta, s.item, null));
+            reused++;
+        }
+    }
+
+    private Segment parseSegment(IncrementalLexer lexer, int start, TreeBuilder tree) {
+        List<Token> tokens = lexer.getTokens();
+        Parser parser = new Parser(new ListSource(tokens, start, lexer.getLineIndex()));
+        String error = parser.parseItem(tree);
+        int end = start + parser.getTokenIndex();
+        AstNode item = null;
+        if (error == null) {
+            List<AstNode> items = tree.program().items;
+            item = items.get(items.size() - 1);
+        }
+        Token first = tokens.get(start);
+        Token last = tokens.get(end - 1);
+        // El parser mira a lo sumo hasta el segundo token del elemento siguiente
+        int reach = end + 1 < tokens.size() ? lexer.getReach(end + 1) : Integer.MAX_VALUE;
+        return new Segment(start, end, first.getPosition(), last.getPosition() + last.getValue().length(),
+            reach, item, error);
+    }
+
+    private AstNode finish(List<Segment> result) {
+        segments = result;
+        edited = false;
+        editDelta = 0;
+        List<AstNode> items = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (Segment s : result) {
+            if (s.item != null) {
+                items.add(s.item);
+            } else {
+                errors.add(s.error);
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw Parser.errorsException(errors);
+        }
+        return new ProgramNode(items);
+    }
+
+    private Segment itemSegment(int i) {
+        if (segments != null && i >= 0) {
+            for (Segment s : segments) {
+                if (s.item != null && i-- == 0) {
+                    return s;
+                }
+            }
+        }
+        throw new IndexOutOfBoundsException("Elemento " + i);
+    }
+
+    // Los tokens de la lista a partir de start, sin copiarlos
+    private static final class ListSource implements TokenSource {
+        private final List<Token> tokens;
+        private final LineIndex lineIndex;
+        private int pos;
+
+        ListSource(List<Token> tokens, int start, LineIndex lineIndex) {
+            this.tokens = tokens;
+            this.pos = start;
+            this.lineIndex = lineIndex;
+        }
+
+        @Override public Token.Type peekType(int k) { return pos + k < tokens.size() ? tokens.get(pos + k).getType() : null; }
+        @Override public String peekValue(int k) { return tokens.get(pos + k).getValue(); }
+        @Override public boolean peekValueEquals(int k, String value) { return pos + k < tokens.size() && tokens.get(pos + k).getValue().equals(value); }
+        @Override public int peekPosition(int k) { return tokens.get(pos + k).getPosition(); }
+        @Override public int peekLine(int k) { return tokens.get(pos + k).getLine(); }
+        @Override public Token peekToken(int k) { return tokens.get(pos + k); }
+        @Override public LineIndex getLineIndex() { return lineIndex; }
+
+        @Override
+        public void advance() {
+            if (pos >= tokens.size()) {
+                throw new NoSuchElementException("No hay más tokens");
+            }
+            pos++;
+        }
+    }
+}
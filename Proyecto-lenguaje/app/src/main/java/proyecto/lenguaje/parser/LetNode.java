@@ -0,0 +1,20 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+
+// Let expression: let name = bound in body
+public class LetNode extends AstNode {
+	public final String name;
+	public final AstNode bound, body;
+	public LetNode(String name, AstNode bound, AstNode body) { this.name = name; this.bound = bound; this.body = body; }
+	@Override void buildTree(TreePrinter out, int indent) {
+		out.line(indent, "Let " + name);
+		out.child(bound, indent + 1);
+		out.line(indent + 1, "In");
+		out.child(body, indent + 2);
+	}
+	@Override public <R> R accept(AstVisitor<R> visitor) { return visitor.visitLet(this); }
+	@Override int dataHash() { return name.hashCode(); }
+	@Override boolean sameData(AstNode other) { return super.sameData(other) && name.equals(((LetNode) other).name); }
+	@Override public List<AstNode> children() { return Arrays.asList(bound, body); }
+}
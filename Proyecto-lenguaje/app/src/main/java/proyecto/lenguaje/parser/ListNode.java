@@ -0,0 +1,15 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+
+// List node
+public class ListNode extends AstNode {
+	public final List<AstNode> elements;
+	public ListNode(List<AstNode> elements) { this.elements = elements; }
+	@Override void buildTree(TreePrinter out, int indent) {
+		out.line(indent, "List");
+		for (AstNode e : elements) out.child(e, indent + 1);
+	}
+	@Override public <R> R accept(AstVisitor<R> visitor) { return visitor.visitList(this); }
+	@Override public List<AstNode> children() { return elements; }
+}
@@ -0,0 +1,22 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.Token;
+
+// Literales (string, int, float, char, bool)
+public class LiteralNode extends AstNode {
+	public final Token token;
+	public LiteralNode(Token token) { this.token = token; }
+	@Override void buildTree(TreePrinter out, int indent) {
+		out.line(indent, "Literal(" + token.getType() + "): " + token.getValue());
+	}
+	@Override public <R> R accept(AstVisitor<R> visitor) { return visitor.visitLiteral(this); }
+	@Override int dataHash() { return token.getType().hashCode() * 31 + token.getValue().hashCode(); }
+	@Override boolean sameData(AstNode other) {
+		if (!super.sameData(other)) return false;
+		Token t = ((LiteralNode) other).token;
+		return token.getType() == t.getType() && token.getValue().equals(t.getValue());
+	}
+	
+	// Método de acceso para otras clases del paquete
+	public Token getToken() { return token; }
+}
@@ -0,0 +1,16 @@
+package proyecto.lenguaje.parser;
+
+/**
+ * Campos enteros de los nodos de un FlatAst: en arreglos del heap
+ * (HeapNodeStorage) o en memoria fuera del heap (OffHeapNodeStorage).
+ */
+interface NodeStorage {
+    int capacity();
+
+    /** Amplía la capacidad conservando los primeros size nodos. */
+    void grow(int capacity, int size);
+
+    int get(int node, int field);
+
+    void set(int node, int field, int value);
+}
@@ -0,0 +1,38 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.OffHeapStore;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+// Un registro de enteros por nodo en un bloque de un OffHeapStore
+final class OffHeapNodeStorage implements NodeStorage {
+    private final OffHeapStore store;
+    private final long record;
+    private MemorySegment segment;
+
+    OffHeapNodeStorage(OffHeapStore store, int fieldCount, int capacity) {
+        this.store = store;
+        this.record = (long) fieldCount * Integer.BYTES;
+        this.segment = store.allocate(capacity * record);
+    }
+
+    @Override
+    public int capacity() {
+        return (int) (segment.byteSize() / record);
+    }
+
+    @Override
+    public void grow(int capacity, int size) {
+        segment = store.reallocate(segment, size * record, capacity * record);
+    }
+
+    @Override
+    public int get(int node, int field) {
+        return segment.get(ValueLayout.JAVA_INT, node * record + (long) field * Integer.BYTES);
+    }
+
+    @Override
+    public void set(int node, int field, int value) {
+        segment.set(ValueLayout.JAVA_INT, node * record + (long) field * Integer.BYTES, value);
+    }
+}
@@ -0,0 +1,192 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.Token;
+import proyecto.lenguaje.lexer.TokenBuffer;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parser en paralelo para programas grandes.
+ *
+ * Los elementos de primer nivel son independientes: entre dos elementos el
+ * Parser no guarda más estado que la posición en los tokens. Por eso se
+ * divide el buffer en fragmentos que comienzan en un posible inicio de
+ * declaración (IDENTIFIER_VAR seguido de '=', fuera de paréntesis, corchetes
+ * y llaves, como en la recuperación de errores del Parser) y se analizan a la
+ * vez en un ForkJoinPool, cada uno con su propio Parser y TreeBuilder. Luego
+ * se unen los resultados en orden, como en ParallelLexer:
+ * - Si el fragmento tiene un elemento que empieza donde terminó el último
+ *   elemento aceptado, desde ahí el análisis especulativo es correcto y se
+ *   aceptan el resto de sus elementos.
+ * - Si no (el elemento anterior se extendió dentro del fragmento), se sigue
+ *   elemento por elemento de forma secuencial hasta volver a coincidir.
+ * El resultado (árbol o ParseException con los errores numerados) es el mismo
+ * que el de Parser.parseProgram. Si el buffer guarda sus tokens fuera del
+ * heap, el OffHeapStore debe ser shared() para que otros hilos los lean.
+ */
+public class ParallelParser {
+    // Por debajo de esta cantidad de tokens no compensa repartir el trabajo
+    private static final int DEFAULT_MIN_CHUNK = 16 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int minChunk;
+
+    public ParallelParser() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelParser(ForkJoinPool pool) {
+        this(pool, DEFAULT_MIN_CHUNK);
+    }
+
+    ParallelParser(ForkJoinPool pool, int minChunk) {
+        this.pool = pool;
+        this.minChunk = Math.max(1, minChunk);
+    }
+
+    /**
+     * Analiza todos los tokens del buffer.
+     * @throws Parser.ParseException con todos los errores, como parseProgram
+     */
+    public AstNode parseProgram(TokenBuffer tokens) {
+        int[] starts = chunkStarts(tokens);
+        if (starts.length == 1) {
+            return new Parser(tokens).parseProgram();
+        }
+        // El índice de líneas se crea una sola vez, antes de compartir el buffer entre hilos
+        tokens.getLineIndex();
+
+        // Análisis especulativo de cada fragmento
+        List<ForkJoinTask<List<Segment>>> tasks = new ArrayList<>(starts.length);
+        for (int c = 0; c < starts.length; c++) {
+            int start = starts[c];
+            int end = c + 1 < starts.length ? starts[c + 1] : tokens.size();
+            tasks.add(pool.submit(() -> parseChunk(tokens, start, end)));
+        }
+        List<List<Segment>> chunks = new ArrayList<>(starts.length);
+        for (ForkJoinTask<List<Segment>> task : tasks) {
+            chunks.add(task.join());
+        }
+
+        // Unión secuencial, en el orden del texto
+        List<AstNode> items = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        int pos = 0;
+        while (pos < tokens.size()) {
+            List<Segment> chunk = chunks.get(chunkOf(starts, pos));
+            int match = indexOfStart(chunk, pos);
+            List<Segment> accepted;
+            if (match == -1) {
+                // Fragmento mal especulado: se analiza secuencialmente un elemento
+                accepted = parseChunk(tokens, pos, pos + 1);
+            } else {
+                accepted = chunk.subList(match, chunk.size());
+            }
+            for (Segment s : accepted) {
+                if (s.item != null) {
+                    items.add(s.item);
+                } else if (s.error != null) {
+                    errors.add(s.error);
+                }
+            }
+            pos = accepted.get(accepted.size() - 1).endToken;
+        }
+        if (!errors.isEmpty()) {
+            throw Parser.errorsException(errors);
+        }
+        return new ProgramNode(items);
+    }
+
+    // Un elemento de primer nivel (o un tramo con error) de un fragmento
+    private static final class Segment {
+        final int startToken;
+        final int endToken;     // índice siguiente al último token
+        final AstNode item;     // null si hubo error
+        final String error;
+
+        Segment(int startToken, int endToken, AstNode item, String error) {
+            this.startToken = startToken;
+            this.endToken = endToken;
+            this.item = item;
+            this.error = error;
+        }
+    }
+
+    // Elementos que comienzan en [start, end), analizando desde start como si fuera el inicio
+    private static List<Segment> parseChunk(TokenBuffer tokens, int start, int end) {
+        Parser parser = new Parser(tokens.toSource(start));
+        TreeBuilder tree = new TreeBuilder();
+        List<AstNode> items = tree.program().items;
+        List<Segment> segments = new ArrayList<>();
+        int pos = start;
+        while (pos < end && pos < tokens.size()) {
+            int count = items.size();
+            String error = parser.parseItem(tree);
+            int next = start + parser.getTokenIndex();
+            AstNode item = error == null && items.size() > count ? items.get(items.size() - 1) : null;
+            segments.add(new Segment(pos, next, item, error));
+            pos = next;
+        }
+        return segments;
+    }
+
+    // Inicios de fragmento: el primero es 0 y los demás, posibles inicios de declaración
+    private int[] chunkStarts(TokenBuffer tokens) {
+        int size = tokens.size();
+        int count = Math.min(pool.getParallelism() * 4, size / minChunk);
+        if (count <= 1) {
+            return new int[] { 0 };
+        }
+        int[] starts = new int[count];
+        int n = 1;
+        int depth = 0;
+        for (int i = 0; i < size - 1 && n < count; i++) {
+            if (depth == 0 && i >= (long) size * n / count && isDeclarationStart(tokens, i)) {
+                starts[n++] = i;
+            }
+            if (isOpen(tokens, i)) {
+                depth++;
+            } else if (isClose(tokens, i) && depth > 0) {
+                depth--;
+            }
+        }
+        return Arrays.copyOf(starts, n);
+    }
+
+    // ident = ..., salvo el nombre de un let (que es parte de la expresión anterior)
+    private static boolean isDeclarationStart(TokenBuffer tokens, int i) {
+        return tokens.getType(i) == Token.Type.IDENTIFIER_VAR && tokens.valueEquals(i + 1, "=")
+            && !(i > 0 && tokens.getType(i - 1) == Token.Type.KEYWORD && tokens.valueEquals(i - 1, "let"));
+    }
+
+    private static boolean isOpen(TokenBuffer tokens, int i) {
+        return tokens.valueEquals(i, "(") || tokens.valueEquals(i, "[") || tokens.valueEquals(i, "{");
+    }
+
+    private static boolean isClose(TokenBuffer tokens, int i) {
+        return tokens.valueEquals(i, ")") || tokens.valueEquals(i, "]") || tokens.valueEquals(i, "}");
+    }
+
+    private static int chunkOf(int[] starts, int position) {
+        int index = Arrays.binarySearch(starts, position);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private static int indexOfStart(List<Segment> segments, int token) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int p = segments.get(mid).startToken;
+            if (p < token) {
+                low = mid + 1;
+            } else if (p > token) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,71 +1,187 @@
 package proyecto.lenguaje.parser;
 
 import proyecto.lenguaje.lexer.Token;
+import proyecto.lenguaje.lexer.LineIndex;
+import proyecto.lenguaje.lexer.TokenBuffer;
+import proyecto.lenguaje.lexer.TokenSource;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
- * Parser simple por descenso recursivo.
+ * Parser simple por descenso recursivo, con pilas explícitas en lugar de la
+ * pila de llamadas (el anidamiento solo está limitado por el heap).
  * No cubre toda la sintaxis Haskell, pero permite analizar los ejemplos comunes:
  * - declaraciones simples: name = expr
  * - if ... then ... else ...
  * - let name = expr in expr
  * - llamadas (aplicación) y operadores binarios (asociación izquierda)
  * - listas y tuplas
+ *
+ * Lee los tokens de un TokenSource, mirando a lo sumo dos tokens hacia
+ * adelante; solo crea objetos Token para las hojas LiteralNode del árbol. Con
+ * un LazyTokenSource los tokens se reconocen a medida que el parser los pide,
+ * sin construir antes la lista completa.
+ *
+ * Los nodos se crean a través de un AstBuilder: parseProgram construye el
+ * árbol de objetos AstNode y parseInto escribe un FlatAst (un arena de
+ * enteros, en el heap o fuera de él) sin crear un objeto por nodo.
+ * parseProgram(items, errors) entrega cada elemento de primer nivel apenas se
+ * termina, sin guardar el programa completo; parseProgram(AstInterner)
+ * comparte los subárboles repetidos.
  */
 public class Parser {
-    private final List<Token> tokens;
-    private int pos = 0;
+    private final TokenSource tokens;
     private List<String> errors = new ArrayList<>();
+    private AstBuilder builder;
+    // Índice del token actual (cantidad de tokens consumidos)
+    private int tokenIndex;
+    // Ids de los hijos de las listas, tuplas y bloques en construcción
+    private int[] stack = new int[16];
+    private int stackSize;
 
     public Parser(List<Token> tokens) {
+        this(TokenBuffer.of(tokens));
+    }
+
+    /** Con el índice de líneas del texto; sin él, la columna de los errores se deduce de los tokens. */
+    public Parser(List<Token> tokens, LineIndex lineIndex) {
+        this(TokenBuffer.of(tokens, lineIndex));
+    }
+
+    public Parser(TokenBuffer tokens) {
+        this(tokens.toSource());
+    }
+
+    public Parser(TokenSource tokens) {
         this.tokens = tokens;
     }
 
     public AstNode parseProgram() {
-        List<AstNode> items = new ArrayList<>();
+        return parseProgram((AstInterner) null);
+    }
+
+    /**
+     * Igual que parseProgram, pero cada nodo pasa por interner: los subárboles
+     * estructuralmente iguales (en este programa o en otros analizados con la
+     * misma tabla) son un mismo objeto. Con interner null equivale a parseProgram().
+     */
+    public AstNode parseProgram(AstInterner interner) {
+        TreeBuilder tree = new TreeBuilder(interner);
+        parseItems(tree);
+        return tree.program();
+    }
+
+    /**
+     * Versión en flujo de parseProgram: entrega cada declaración o expresión
+     * de primer nivel a items apenas se termina de analizar, y cada error a
+     * errors apenas ocurre, con el mismo texto numerado ("Error n: ...") que
+     * la ParseException de parseProgram. No guarda los elementos ya
+     * entregados; con un LazyTokenSource tampoco guarda los tokens ya
+     * consumidos, de modo que la memoria no crece con el tamaño del archivo.
+     * Para pasar los elementos a otro hilo, items puede ser el put de una
+     * BlockingQueue acotada.
+     * @return la cantidad de errores
+     */
+    public int parseProgram(Consumer<AstNode> items, Consumer<String> errors) {
+        int count = 0;
+        while (!isAtEnd()) {
+            // Un TreeBuilder por elemento: sus nodos se liberan al entregarlo
+            TreeBuilder tree = new TreeBuilder();
+            String error = parseItem(tree);
+            if (error != null) {
+                errors.accept(numberedError(++count, error));
+            } else if (!tree.program().items.isEmpty()) {
+                items.accept(tree.program().items.get(0));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Igual que parseProgram, pero escribe el árbol en ast (que debe estar
+     * vacío) en lugar de crear objetos AstNode.
+     */
+    public void parseInto(FlatAst ast) {
+        if (ast.size() != 1) {
+            throw new IllegalArgumentException("El árbol ya tiene nodos");
+        }
+        parseItems(ast.builder());
+    }
+
+    private void parseItems(AstBuilder target) {
         errors.clear(); // Limpiar errores anteriores
         
         while (!isAtEnd()) {
-            try {
-                // intentar parsear declaración (ident = expr) o expresión
-                AstNode item = parseTopLevel();
-                if (item != null) {
-                    items.add(item);
-                } else {
-                    // Si no se puede parsear, avanzar para evitar bucle infinito
-                    advance();
-                }
-            } catch (ParseException ex) {
-                // Capturar error y continuar
-                errors.add(ex.getMessage());
-                // Intentar recuperarse avanzando hasta el siguiente token potencial
-                recoverFromError();
+            String error = parseItem(target);
+            if (error != null) {
+                errors.add(error);
             }
         }
         
         // Si hay errores, lanzar excepción con todos los errores
         if (!errors.isEmpty()) {
-            StringBuilder allErrors = new StringBuilder();
-            for (int i = 0; i < errors.size(); i++) {
-                allErrors.append("Error ").append(i + 1).append(": ").append(errors.get(i));
-                if (i < errors.size() - 1) {
-                    allErrors.append("\n");
-                }
+            throw errorsException(errors);
+        }
+    }
+
+    /**
+     * Analiza un elemento de primer nivel a partir del token actual y lo
+     * agrega a target. Si falla, descarta sus nodos, avanza hasta la próxima
+     * declaración posible y devuelve el mensaje de error (null si no hubo).
+     */
+    String parseItem(AstBuilder target) {
+        builder = target;
+        stackSize = 0;
+        int mark = builder.mark();
+        try {
+            // intentar parsear declaración (ident = expr) o expresión
+            int item = parseTopLevel();
+            if (item >= 0) {
+                builder.item(item);
+            } else {
+                // Si no se puede parsear, avanzar para evitar bucle infinito
+                advance();
             }
-            throw new ParseException(allErrors.toString());
+            return null;
+        } catch (ParseException ex) {
+            // Capturar error y continuar
+            builder.rollback(mark);
+            stackSize = 0;
+            frameSize = 0;
+            nameSize = 0;
+            // Intentar recuperarse avanzando hasta el siguiente token potencial
+            recoverFromError();
+            return ex.getMessage();
         }
-        
-        return new ProgramNode(items);
+    }
+
+    /** Cantidad de tokens consumidos hasta ahora. */
+    int getTokenIndex() {
+        return tokenIndex;
+    }
+
+    // Una sola excepción con todos los errores, numerados desde 1
+    static ParseException errorsException(List<String> errors) {
+        StringBuilder allErrors = new StringBuilder();
+        for (int i = 0; i < errors.size(); i++) {
+            allErrors.append(numberedError(i + 1, errors.get(i)));
+            if (i < errors.size() - 1) {
+                allErrors.append("\n");
+            }
+        }
+        return new ParseException(allErrors.toString());
+    }
+
+    private static String numberedError(int number, String error) {
+        return "Error " + number + ": " + error;
     }
     
     private void recoverFromError() {
         // Estrategia de recuperación: avanzar hasta encontrar un token que podría iniciar una nueva declaración
         while (!isAtEnd()) {
-            Token current = peek();
-            if (current.getType() == Token.Type.IDENTIFIER_VAR) {
+            if (tokens.peekType(0) == Token.Type.IDENTIFIER_VAR) {
                 // Verificar si el siguiente es '=' para una posible declaración
-                Token next = (pos + 1) < tokens.size() ? tokens.get(pos + 1) : null;
-                if (next != null && "=".equals(next.getValue())) {
+                if (peekNextValueEquals("=")) {
                     break; // Posible inicio de nueva declaración
                 }
             }
@@ -73,105 +189,153 @@ public class Parser {
         }
     }
 
-    private AstNode parseTopLevel() {
-        if (isAtEnd()) return null;
-        
+    // --- análisis con pilas explícitas ---
+    //
+    // En lugar de un método recursivo por regla, cada regla en curso es un
+    // marco de la pila frames (tipo, estado y campos enteros). Los textos que
+    // necesita un marco (nombre de la declaración o del let, operador
+    // pendiente) van en la pila names, y los hijos de aplicaciones, tuplas,
+    // listas y bloques en stack. El bucle de parseTopLevel comienza reglas
+    // (START_*) o entrega el nodo terminado (result) al marco de arriba, de
+    // modo que la profundidad del anidamiento (paréntesis, - unario, cadenas
+    // de if/let) solo está limitada por el heap. Los nodos se crean en el
+    // mismo orden y con los mismos errores que con el descenso recursivo.
+
+    // Acciones del bucle
+    private static final int RETURN = 0;
+    private static final int START_STATEMENT = 1;
+    private static final int START_EXPRESSION = 2;
+    private static final int START_PRIMARY = 3;
+
+    // Tipos de marco
+    private static final int DECL_STATEMENT = 0;  // name = expr (a: índice del nombre en names)
+    private static final int EXPR_STATEMENT = 1;
+    private static final int IF = 2;              // a: condición, b: rama then
+    private static final int LET = 3;             // a: valor ligado (nombre arriba de names)
+    private static final int OPERATORS = 4;       // a: operando izquierdo, b: token del operador pendiente (arriba de names)
+    private static final int APPLICATION = 5;     // a: función, b: base de los argumentos en stack
+    private static final int UNARY = 6;
+    private static final int PAREN = 7;           // b: base de los elementos en stack
+    private static final int LIST = 8;            // b: base de los elementos en stack
+    private static final int CYCLE = 9;           // a, b, c: init, condición, actualización; d: tipo; e: base del cuerpo
+
+    // Campos de cada marco
+    private static final int KIND = 0;
+    private static final int STATE = 1;
+    private static final int START = 2;  // token del nombre, if, let, operador, paréntesis o palabra clave
+    private static final int A = 3;
+    private static final int B = 4;
+    private static final int C = 5;
+    private static final int D = 6;
+    private static final int E = 7;
+    private static final int FRAME = 8;
+
+    // Estados de CYCLE (lo que se está analizando)
+    private static final int CYCLE_INIT = 0;
+    private static final int CYCLE_CONDITION = 1;
+    private static final int CYCLE_UPDATE = 2;
+    private static final int CYCLE_BODY = 3;
+
+    private static final CycleNode.CycleType[] CYCLE_TYPES = CycleNode.CycleType.values();
+
+    private int[] frames = new int[FRAME * 16];
+    private int frameSize;
+    private String[] names = new String[16];
+    private int nameSize;
+    // Nodo que entrega la acción RETURN
+    private int result;
+
+    // Id del nodo de la declaración o expresión, o -1 al final de la entrada
+    private int parseTopLevel() {
+        if (isAtEnd()) return -1;
+        frameSize = 0;
+        nameSize = 0;
+        int action = START_STATEMENT;
+        try {
+            while (true) {
+                switch (action) {
+                    case START_STATEMENT: action = startStatement(); break;
+                    case START_EXPRESSION: action = startExpression(); break;
+                    case START_PRIMARY: action = startPrimary(); break;
+                    default:
+                        if (frameSize == 0) return result;
+                        action = resume();
+                }
+            }
+        } catch (ParseException ex) {
+            throw withContext(ex);
+        }
+    }
+
+    // Agrega al mensaje, de la más interna a la más externa, la sentencia en curso
+    private ParseException withContext(ParseException ex) {
+        String message = ex.getMessage();
+        for (int f = frameSize - FRAME; f >= 0; f -= FRAME) {
+            if (frames[f + KIND] == DECL_STATEMENT) {
+                message = "En declaración de '" + names[frames[f + A]] + "': " + message;
+            } else if (frames[f + KIND] == EXPR_STATEMENT) {
+                message = "En expresión: " + message;
+            }
+        }
+        frameSize = 0;
+        nameSize = 0;
+        return new ParseException(message);
+    }
+
+    // Declaración (ident = expr) o expresión; al final de un programa o de un bloque
+    private int startStatement() {
         // if next is identifier and following token is '=', parse decl
         if (peekTypeIs(Token.Type.IDENTIFIER_VAR) && peekNextValueEquals("=")) {
-            Token id = advance();
+            int nameToken = tokenIndex;
+            String id = advanceValue();
             consumeValue("="); // skip =
-            try {
-                AstNode expr = parseExpression();
-                return new DeclNode(id.getValue(), expr);
-            } catch (ParseException ex) {
-                // Re-lanzar con contexto de la declaración
-                throw new ParseException("En declaración de '" + id.getValue() + "': " + ex.getMessage());
-            }
-        }
-        
-        // otherwise parse expression
-        try {
-            return parseExpression();
-        } catch (ParseException ex) {
-            // Re-lanzar con contexto
-            throw new ParseException("En expresión: " + ex.getMessage());
+            int f = pushFrame(DECL_STATEMENT, nameToken);
+            frames[f + A] = pushName(id);
+        } else {
+            pushFrame(EXPR_STATEMENT, tokenIndex);
         }
+        return START_EXPRESSION;
     }
 
-    private AstNode parseExpression() {
+    private int startExpression() {
         // handle if / let / cycles specially
+        int start = tokenIndex;
         if (matchKeyword("if")) {
-            AstNode cond = parseExpression();
-            if (!matchKeyword("then")) throw error("expected 'then' after if condition");
-            AstNode thenB = parseExpression();
-            if (!matchKeyword("else")) throw error("expected 'else' after then-branch");
-            AstNode elseB = parseExpression();
-            return new IfNode(cond, thenB, elseB);
+            pushFrame(IF, start);
+            return START_EXPRESSION;
         }
         if (matchKeyword("let")) {
             // let name = expr in expr
             if (!peekTypeIs(Token.Type.IDENTIFIER_VAR)) throw error("expected identifier after let");
-            String name = advance().getValue();
+            String name = advanceValue();
             consumeValue("=");
-            AstNode bound = parseExpression();
-            if (!matchKeyword("in")) throw error("expected 'in' after let binding");
-            AstNode body = parseExpression();
-            return new LetNode(name, bound, body);
+            pushFrame(LET, start);
+            pushName(name);
+            return START_EXPRESSION;
         }
         
         // Handle cycle structures (while/for/loop)
-        if (matchKeyword("while")) {
-            return parseCycle(CycleNode.CycleType.WHILE);
+        if (peekTypeIs(Token.Type.KEYWORD) && isCycleKeyword()) {
+            return startCycle();
         }
-        if (matchKeyword("for")) {
-            return parseCycle(CycleNode.CycleType.FOR);
-        }
-        if (matchKeyword("loop") || matchKeyword("ciclo")) {
-            return parseCycle(CycleNode.CycleType.LOOP);
-        }
-        // binary operators with left-assoc simple precedence
-        AstNode left = parseApplication();
-        while (peekTypeIs(Token.Type.OPERATOR)) {
-            String op = advance().getValue();
-            AstNode right = parseApplication();
-            left = new BinaryOpNode(op, left, right);
-        }
-        return left;
-    }
-
-    // parse function application: left-assoc: primary { primary }
-    private AstNode parseApplication() {
-        AstNode expr = parsePrimary();
-        while (startsPrimary(peek())) {
-            AstNode arg = parsePrimary();
-            // if expr already an Apply, append arg; else create new Apply
-            if (expr instanceof ApplyNode) {
-                ApplyNode a = (ApplyNode) expr;
-                List<AstNode> newArgs = new ArrayList<>(a.args);
-                newArgs.add(arg);
-                expr = new ApplyNode(a.function, newArgs);
-            } else {
-                expr = new ApplyNode(expr, Collections.singletonList(arg));
-            }
-        }
-        return expr;
+        // binary operators with left-assoc simple precedence, between applications
+        pushFrame(OPERATORS, start);
+        pushFrame(APPLICATION, start);
+        return START_PRIMARY;
     }
 
-    private boolean startsPrimary(Token t) {
-        if (t == null) return false;
-        Token.Type ty = t.getType();
+    private boolean startsPrimary() {
+        Token.Type ty = tokens.peekType(0);
+        if (ty == null) return false;
         
         // cycle keywords count as primaries as they start a cycle expression
         if (ty == Token.Type.KEYWORD) {
-            String keyword = t.getValue();
-            return keyword.equals("while") || keyword.equals("for") ||
-                   keyword.equals("loop") || keyword.equals("ciclo");
+            return isCycleKeyword();
         }
         
         // Allow unary - to start a primary (unary negation)
         if (ty == Token.Type.OPERATOR) {
-            String v = t.getValue();
-            if ("-".equals(v)) return true;
+            if (tokens.peekValueEquals(0, "-")) return true;
         }
 
      return ty == Token.Type.IDENTIFIER_VAR || ty == Token.Type.IDENTIFIER_TYPE ||
@@ -181,106 +345,225 @@ public class Parser {
          ty == Token.Type.TUPLE_START || ty == Token.Type.LIST_START;
     }
 
-    private AstNode parsePrimary() {
+    private int startPrimary() {
         if (isAtEnd()) throw error("unexpected end of input");
-        Token t = peek();
+        Token.Type type = tokens.peekType(0);
         
-        // NUEVO: Manejo de operadores unarios (negación con -)
-        if (t.getType() == Token.Type.OPERATOR && t.getValue().equals("-")) {
+        // Operador unario (negación con -): el operando es otro primario
+        if (type == Token.Type.OPERATOR && tokens.peekValueEquals(0, "-")) {
+            pushFrame(UNARY, tokenIndex);
             advance(); // consumir el operador -
-            AstNode operand = parsePrimary(); // parsear recursivamente el operando
-            // Crear un nodo de operación unaria (negación)
-            return new UnaryOpNode("-", operand);
+            return START_PRIMARY;
         }
         
         // Check for cycle keywords first
-        if (t.getType() == Token.Type.KEYWORD) {
-            String keyword = t.getValue();
-            if (keyword.equals("while") || keyword.equals("for") || keyword.equals("loop") || keyword.equals("ciclo")) {
-                // consume the keyword and delegate to parseCycle
-                Token kw = advance();
-                CycleNode.CycleType type;
-                if ("while".equals(kw.getValue())) type = CycleNode.CycleType.WHILE;
-                else if ("for".equals(kw.getValue())) type = CycleNode.CycleType.FOR;
-                else type = CycleNode.CycleType.LOOP;
-                return parseCycle(type, kw);
+        if (type == Token.Type.KEYWORD) {
+            if (isCycleKeyword()) {
+                return startCycle();
             }
         }
         
         // literals and identifiers
-        switch (t.getType()) {
+        switch (type) {
             case INTEGER: case FLOAT: case STRING: case CHAR: case BOOLEAN:
+                result = builder.literal(tokens, tokenIndex);
                 advance();
-                return new LiteralNode(t);
+                return RETURN;
             case IDENTIFIER_VAR:
             case IDENTIFIER_TYPE:
+                result = builder.identifier(tokens, tokenIndex);
                 advance();
-                return new IdentifierNode(t.getValue());
+                return RETURN;
             case TUPLE_START:
-                return parseTupleOrParenExpr();
-            case LIST_START:
-                return parseList();
+            case LIST_START: {
+                // (expr), tupla o lista: los elementos se acumulan en stack
+                boolean paren = type == Token.Type.TUPLE_START;
+                int f = pushFrame(paren ? PAREN : LIST, tokenIndex);
+                advance();
+                frames[f + B] = stackSize;
+                if (peekTypeIs(paren ? Token.Type.TUPLE_END : Token.Type.LIST_END)) {
+                    return finishSequence(f);
+                }
+                return START_EXPRESSION;
+            }
             default:
-                throw error("unexpected token in primary: " + t.getValue() + " (" + t.getType() + ")");
+                throw error("unexpected token in primary: " + tokens.peekValue(0) + " (" + type + ")");
         }
     }
 
-    private AstNode parseTupleOrParenExpr() {
-        consumeType(Token.Type.TUPLE_START);
-        // if next is ')' -> empty tuple? treat as empty list/tuple not used; attempt expr parsing
-        List<AstNode> elems = new ArrayList<>();
-        if (!peekTypeIs(Token.Type.TUPLE_END)) {
-            elems.add(parseExpression());
-            while (matchValue(",")) {
-                elems.add(parseExpression());
+    // Entrega result al marco de arriba y devuelve la acción siguiente
+    private int resume() {
+        int f = frameSize - FRAME;
+        int value = result;
+        int state = frames[f + STATE];
+        switch (frames[f + KIND]) {
+            case DECL_STATEMENT: {
+                String id = names[frames[f + A]];
+                nameSize--;
+                popFrame();
+                result = builder.decl(id, frames[f + START], value);
+                return RETURN;
+            }
+            case EXPR_STATEMENT:
+                popFrame();
+                return RETURN;
+            case IF:
+                if (state == 0) {
+                    frames[f + A] = value;
+                    frames[f + STATE] = 1;
+                    if (!matchKeyword("then")) throw error("expected 'then' after if condition");
+                    return START_EXPRESSION;
+                }
+                if (state == 1) {
+                    frames[f + B] = value;
+                    frames[f + STATE] = 2;
+                    if (!matchKeyword("else")) throw error("expected 'else' after then-branch");
+                    return START_EXPRESSION;
+                }
+                popFrame();
+                result = builder.ifNode(frames[f + START], frames[f + A], frames[f + B], value);
+                return RETURN;
+            case LET:
+                if (state == 0) {
+                    frames[f + A] = value;
+                    frames[f + STATE] = 1;
+                    if (!matchKeyword("in")) throw error("expected 'in' after let binding");
+                    return START_EXPRESSION;
+                }
+                String name = names[--nameSize];
+                popFrame();
+                result = builder.let(name, frames[f + START], frames[f + A], value);
+                return RETURN;
+            case OPERATORS: {
+                int left = value;
+                if (state == 1) {
+                    left = builder.binary(names[--nameSize], frames[f + B], frames[f + A], value);
+                }
+                if (peekTypeIs(Token.Type.OPERATOR)) {
+                    frames[f + A] = left;
+                    frames[f + B] = tokenIndex;
+                    frames[f + STATE] = 1;
+                    pushName(advanceValue());
+                    pushFrame(APPLICATION, tokenIndex);
+                    return START_PRIMARY;
+                }
+                popFrame();
+                result = left;
+                return RETURN;
             }
+            case APPLICATION:
+                // function application: left-assoc: primary { primary }
+                if (state == 0) {
+                    if (!startsPrimary()) {
+                        popFrame();
+                        return RETURN;
+                    }
+                    frames[f + A] = value;
+                    frames[f + B] = stackSize;
+                    frames[f + STATE] = 1;
+                    return START_PRIMARY;
+                }
+                push(value);
+                if (startsPrimary()) {
+                    return START_PRIMARY;
+                }
+                // (all args are collected first, so a long application is built once)
+                int base = frames[f + B];
+                int count = stackSize - base;
+                stackSize = base;
+                popFrame();
+                // if the function is already an Apply, the builder appends the args; else creates new Apply
+                result = builder.apply(frames[f + A], stack, base, count);
+                return RETURN;
+            case UNARY:
+                popFrame();
+                // Crear un nodo de operación unaria (negación)
+                result = builder.unary("-", frames[f + START], value);
+                return RETURN;
+            case PAREN:
+            case LIST:
+                push(value);
+                if (matchValue(",")) {
+                    return START_EXPRESSION;
+                }
+                return finishSequence(f);
+            default:
+                if (state == CYCLE_INIT) {
+                    frames[f + A] = value;
+                    return afterCycleInit(f);
+                }
+                if (state == CYCLE_CONDITION) {
+                    frames[f + B] = value;
+                    return afterCycleCondition(f);
+                }
+                if (state == CYCLE_UPDATE) {
+                    frames[f + C] = value;
+                    return startCycleBody(f);
+                }
+                if (value >= 0) {
+                    push(value);
+                }
+                return nextCycleStatement(f);
         }
-        consumeType(Token.Type.TUPLE_END);
-        if (elems.size() == 1) {
+    }
+
+    // Cierra la tupla, expresión entre paréntesis o lista del marco f (el de arriba)
+    private int finishSequence(int f) {
+        boolean paren = frames[f + KIND] == PAREN;
+        consumeType(paren ? Token.Type.TUPLE_END : Token.Type.LIST_END);
+        int open = frames[f + START];
+        int base = frames[f + B];
+        int count = stackSize - base;
+        stackSize = base;
+        popFrame();
+        if (!paren) {
+            result = builder.list(open, tokenIndex, stack, base, count);
+        } else if (count == 1) {
             // just (expr)
-            return elems.get(0);
+            result = builder.group(open, tokenIndex, stack[base]);
         } else {
-            return new TupleNode(elems);
+            result = builder.tuple(open, tokenIndex, stack, base, count);
         }
+        return RETURN;
     }
 
-    private AstNode parseList() {
-        consumeType(Token.Type.LIST_START);
-        List<AstNode> elems = new ArrayList<>();
-        if (!peekTypeIs(Token.Type.LIST_END)) {
-            elems.add(parseExpression());
-            while (matchValue(",")) {
-                elems.add(parseExpression());
-            }
-        }
-        consumeType(Token.Type.LIST_END);
-        return new ListNode(elems);
+    private void push(int node) {
+        if (stackSize == stack.length) stack = Arrays.copyOf(stack, stackSize * 2);
+        stack[stackSize++] = node;
     }
 
-    // --- token helpers ---
-    private Token peek() { return pos < tokens.size() ? tokens.get(pos) : null; }
-    private boolean isAtEnd() { return pos >= tokens.size(); }
-    private Token advance() { return tokens.get(pos++); }
-    private boolean peekTypeIs(Token.Type type) { Token p = peek(); return p != null && p.getType() == type; }
+    // --- token helpers (anticipación sobre el TokenSource) ---
+    private boolean isAtEnd() { return tokens.peekType(0) == null; }
+    private void advance() {
+        tokens.advance();
+        tokenIndex++;
+    }
+    // Consume el token actual y devuelve su texto
+    private String advanceValue() {
+        String value = tokens.peekValue(0);
+        advance();
+        return value;
+    }
+    private boolean peekTypeIs(Token.Type type) { return tokens.peekType(0) == type; }
     private boolean peekNextValueEquals(String v) {
-        Token p = (pos + 1) < tokens.size() ? tokens.get(pos + 1) : null;
-        return p != null && v.equals(p.getValue());
+        return tokens.peekValueEquals(1, v);
+    }
+    private boolean isCycleKeyword() {
+        return tokens.peekValueEquals(0, "while") || tokens.peekValueEquals(0, "for") ||
+               tokens.peekValueEquals(0, "loop") || tokens.peekValueEquals(0, "ciclo");
     }
     private boolean matchKeyword(String kw) {
-        Token p = peek();
-        if (p != null && p.getType() == Token.Type.KEYWORD && p.getValue().equals(kw)) {
+        if (peekTypeIs(Token.Type.KEYWORD) && tokens.peekValueEquals(0, kw)) {
             advance(); return true;
         }
         return false;
     }
     private boolean matchValue(String v) {
-        Token p = peek();
-        if (p != null && v.equals(p.getValue())) { advance(); return true; }
+        if (tokens.peekValueEquals(0, v)) { advance(); return true; }
         return false;
     }
     private boolean matchType(Token.Type t) {
-        Token p = peek();
-        if (p != null && p.getType() == t) { advance(); return true; }
+        if (peekTypeIs(t)) { advance(); return true; }
         return false;
     }
     private void consumeType(Token.Type t) {
@@ -290,98 +573,140 @@ public class Parser {
         if (!matchValue(v)) throw error("expected '" + v + "'");
     }
     private ParseException error(String msg) {
-        Token p = peek();
-        String where = (p == null) ? "EOF" : ("line " + p.getLine() + " pos " + p.getPosition());
-        return new ParseException(msg + " at " + where);
+        if (isAtEnd()) {
+            return new ParseException(msg + " at EOF");
+        }
+        // Línea y columna del índice de líneas, no del token: el lexer no cuenta los saltos de un string
+        LineIndex lines = tokens.getLineIndex();
+        int offset = tokens.peekPosition(0);
+        return new ParseException(msg + " at line " + lines.lineOf(offset) + " col " + lines.columnOf(offset));
     }
 
-    // Unified cycle parser producing CycleNode
-    private AstNode parseCycle(CycleNode.CycleType type, Token kw) {
+    // Unified cycle parser producing CycleNode (the current token is the cycle keyword)
+    private int startCycle() {
+        int keywordToken = tokenIndex;
+        String keyword = advanceValue();
+        CycleNode.CycleType type;
+        if (keyword.equals("while")) type = CycleNode.CycleType.WHILE;
+        else if (keyword.equals("for")) type = CycleNode.CycleType.FOR;
+        else type = CycleNode.CycleType.LOOP;
+
         // expect '('
         if (!matchType(Token.Type.TUPLE_START) && !matchSymbol("(")) {
-            throw error("expected '(' after '" + kw.getValue() + "'");
+            throw error("expected '(' after '" + keyword + "'");
         }
 
-        AstNode init = null;
-        AstNode condition = null;
-        AstNode update = null;
-
-    if (type == CycleNode.CycleType.FOR) {
+        int f = pushFrame(CYCLE, keywordToken);
+        frames[f + A] = -1;
+        frames[f + B] = -1;
+        frames[f + C] = -1;
+        frames[f + D] = type.ordinal();
+        if (type == CycleNode.CycleType.FOR) {
             // for ( init ; cond ; update )
             // init (optional)
             if (!peekValueEquals(";") && !peekTypeIs(Token.Type.TUPLE_END)) {
-                init = parseExpression();
+                frames[f + STATE] = CYCLE_INIT;
+                return START_EXPRESSION;
             }
-            // expect ';'
-            consumeValue(";");
+            return afterCycleInit(f);
+        }
+        // while/loop: single condition expression
+        frames[f + STATE] = CYCLE_CONDITION;
+        return START_EXPRESSION;
+    }
 
-            // cond (optional)
-            if (!peekValueEquals(";") && !peekTypeIs(Token.Type.TUPLE_END)) {
-                condition = parseExpression();
-            }
+    private int afterCycleInit(int f) {
+        // expect ';'
+        consumeValue(";");
+
+        // cond (optional)
+        if (!peekValueEquals(";") && !peekTypeIs(Token.Type.TUPLE_END)) {
+            frames[f + STATE] = CYCLE_CONDITION;
+            return START_EXPRESSION;
+        }
+        return afterCycleCondition(f);
+    }
+
+    private int afterCycleCondition(int f) {
+        if (frames[f + D] == CycleNode.CycleType.FOR.ordinal()) {
             consumeValue(";");
 
             // update (optional)
             if (!peekTypeIs(Token.Type.TUPLE_END)) {
-                update = parseExpression();
+                frames[f + STATE] = CYCLE_UPDATE;
+                return START_EXPRESSION;
             }
-        } else {
-            // while/loop: single condition expression
-            condition = parseExpression();
         }
+        return startCycleBody(f);
+    }
 
+    private int startCycleBody(int f) {
         // expect ')'
         if (!matchType(Token.Type.TUPLE_END) && !matchSymbol(")")) {
             throw error("expected ')' to close cycle header");
         }
 
-        List<AstNode> body = parseBlock();
-        return new CycleNode(type, init, condition, update, body);
-    }
-
-    // Overload used when the keyword was already consumed (last token)
-    private AstNode parseCycle(CycleNode.CycleType type) {
-        Token kw = null;
-        if (pos > 0 && pos - 1 < tokens.size()) kw = tokens.get(pos - 1);
-        return parseCycle(type, kw);
-    }
-    
-    private List<AstNode> parseBlock() {
         // Consume opening brace
         if (!matchSymbol("{")) {
             throw error("expected '{' to start block");
         }
-        
-        List<AstNode> statements = new ArrayList<>();
-        
-        while (!peekSymbolEquals("}") && !isAtEnd()) {
-            AstNode stmt = parseTopLevel(); // Parse statement or expression
-            if (stmt != null) {
-                statements.add(stmt);
-            }
+        frames[f + E] = stackSize;
+        frames[f + STATE] = CYCLE_BODY;
+        return nextCycleStatement(f);
+    }
+
+    // Sentencias del bloque: sus ids quedan en la pila hasta la llave de cierre
+    private int nextCycleStatement(int f) {
+        if (!peekSymbolEquals("}") && !isAtEnd()) {
+            return START_STATEMENT; // Parse statement or expression
         }
         
         // Consume closing brace
         if (!matchSymbol("}")) {
             throw error("expected '}' to close block");
         }
-        
-        return statements;
+        int base = frames[f + E];
+        int count = stackSize - base;
+        stackSize = base;
+        popFrame();
+        result = builder.cycle(CYCLE_TYPES[frames[f + D]], frames[f + START], tokenIndex,
+            frames[f + A], frames[f + B], frames[f + C], stack, base, count);
+        return RETURN;
+    }
+
+    // Agrega un marco (con estado 0) y devuelve su posición en frames
+    private int pushFrame(int kind, int start) {
+        if (frameSize + FRAME > frames.length) frames = Arrays.copyOf(frames, frames.length * 2);
+        int f = frameSize;
+        frameSize += FRAME;
+        frames[f + KIND] = kind;
+        frames[f + STATE] = 0;
+        frames[f + START] = start;
+        return f;
+    }
+
+    // Quita el marco de arriba (sus campos siguen legibles hasta el próximo pushFrame)
+    private void popFrame() {
+        frameSize -= FRAME;
+    }
+
+    // Devuelve el índice del nombre en names
+    private int pushName(String name) {
+        if (nameSize == names.length) names = Arrays.copyOf(names, nameSize * 2);
+        names[nameSize] = name;
+        return nameSize++;
     }
     
     private boolean peekValueEquals(String value) {
-        Token p = peek();
-        return p != null && value.equals(p.getValue());
+        return tokens.peekValueEquals(0, value);
     }
     
     private boolean peekSymbolEquals(String symbol) {
-        Token p = peek();
-        return p != null && p.getType() == Token.Type.SYMBOL && symbol.equals(p.getValue());
+        return peekTypeIs(Token.Type.SYMBOL) && tokens.peekValueEquals(0, symbol);
     }
     
     private boolean matchSymbol(String symbol) {
-        Token p = peek();
-        if (p != null && p.getType() == Token.Type.SYMBOL && symbol.equals(p.getValue())) {
+        if (peekSymbolEquals(symbol)) {
             advance();
             return true;
         }
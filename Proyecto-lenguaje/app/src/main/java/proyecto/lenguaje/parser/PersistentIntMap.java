@@ -0,0 +1,120 @@
+package proyecto.lenguaje.parser;
+
+/**
+ * Mapa persistente (inmutable) de claves int, como trie de hash con
+ * bitmaps (HAMT).
+ *
+ * Cada nivel usa 5 bits de la clave: un nodo guarda un bitmap de 32 bits con
+ * las ramas presentes y un arreglo compacto solo con ellas, cada una una hoja
+ * (clave y valor) o un nodo del nivel siguiente. put no modifica el mapa:
+ * copia solo los nodos del camino hasta la clave (a lo sumo 7) y comparte el
+ * resto con la versión anterior, de modo que las versiones viejas siguen
+ * siendo válidas y guardarlas no cuesta nada. get recorre O(log32 n) nodos.
+ * Las claves son ids consecutivos (SymbolTable), que se reparten de forma
+ * pareja entre las ramas sin necesidad de mezclar los bits.
+ */
+public final class PersistentIntMap<V> {
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(new Node(0, new Object[0]), 0);
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node root;
+    private final int size;
+
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) != null;
+    }
+
+    /** Valor de la clave, o null si no está. */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        Leaf leaf = find(key);
+        return leaf == null ? null : (V) leaf.value;
+    }
+
+    /** Mapa con la clave asociada a value (reemplaza el valor anterior, si lo había). */
+    public PersistentIntMap<V> put(int key, V value) {
+        boolean[] added = { false };
+        Node newRoot = root.put(key, value, 0, added);
+        return new PersistentIntMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    private Leaf find(int key) {
+        Node node = root;
+        for (int shift = 0; ; shift += BITS) {
+            int bit = 1 << ((key >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (slot instanceof Leaf) {
+                Leaf leaf = (Leaf) slot;
+                return leaf.key == key ? leaf : null;
+            }
+            node = (Node) slot;
+        }
+    }
+
+    private static final class Leaf {
+        final int key;
+        final Object value;
+
+        Leaf(int key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static final class Node {
+        final int bitmap;
+        final Object[] slots;   // Leaf o Node, en el orden de los bits
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        // Copia del nodo con la clave agregada; added indica si la clave era nueva
+        Node put(int key, Object value, int shift, boolean[] added) {
+            int bit = 1 << ((key >>> shift) & MASK);
+            int index = Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, copy, 0, index);
+                copy[index] = new Leaf(key, value);
+                System.arraycopy(slots, index, copy, index + 1, slots.length - index);
+                added[0] = true;
+                return new Node(bitmap | bit, copy);
+            }
+            Object slot = slots[index];
+            Object replacement;
+            if (slot instanceof Node) {
+                replacement = ((Node) slot).put(key, value, shift + BITS, added);
+            } else if (((Leaf) slot).key == key) {
+                replacement = new Leaf(key, value);
+            } else {
+                // Dos claves en la misma rama: se separan en el nivel siguiente
+                Leaf other = (Leaf) slot;
+                Node split = new Node(1 << ((other.key >>> (shift + BITS)) & MASK), new Object[] { other });
+                replacement = split.put(key, value, shift + BITS, added);
+            }
+            Object[] copy = slots.clone();
+            copy[index] = replacement;
+            return new Node(bitmap, copy);
+        }
+    }
+}
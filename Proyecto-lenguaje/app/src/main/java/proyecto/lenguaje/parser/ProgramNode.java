@@ -0,0 +1,15 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+
+// Programa: lista de declaraciones/expresiones
+public class ProgramNode extends AstNode {
+	public final List<AstNode> items;
+	public ProgramNode(List<AstNode> items) { this.items = items; }
+	@Override void buildTree(TreePrinter out, int indent) {
+		out.line(indent, "Program");
+		for (AstNode it : items) out.child(it, indent + 1);
+	}
+	@Override public <R> R accept(AstVisitor<R> visitor) { return visitor.visitProgram(this); }
+	@Override public List<AstNode> children() { return items; }
+}
@@ -0,0 +1,58 @@
+package proyecto.lenguaje.parser;
+
+/**
+ * Ámbito inmutable: las variables visibles en un punto del programa.
+ *
+ * Las variables se guardan en un PersistentIntMap por id de símbolo, de modo
+ * que cada ámbito comparte con el que lo contiene todo lo que no cambió.
+ * enter crea el ámbito de un let o de un ciclo en O(1) (el mismo mapa, un
+ * nivel más adentro), define agrega una variable copiando solo O(log32 n)
+ * nodos, y salir de un ámbito es simplemente volver a usar el anterior, que
+ * no se modificó. Una variable definida con un nombre ya visible oculta a la
+ * anterior solo en el ámbito nuevo.
+ */
+public final class Scope {
+    private static final Scope GLOBAL = new Scope(PersistentIntMap.empty(), 0);
+
+    private final PersistentIntMap<Binding> bindings;
+    private final int depth;
+
+    private Scope(PersistentIntMap<Binding> bindings, int depth) {
+        this.bindings = bindings;
+        this.depth = depth;
+    }
+
+    /** Ámbito de primer nivel, sin variables. */
+    public static Scope global() {
+        return GLOBAL;
+    }
+
+    /** Ámbito anidado en este, con las mismas variables visibles. */
+    public Scope enter() {
+        return new Scope(bindings, depth + 1);
+    }
+
+    /** Ámbito con binding visible con su símbolo, en el mismo nivel que este. */
+    public Scope define(Binding binding) {
+        return new Scope(bindings.put(binding.getSymbol(), binding), depth);
+    }
+
+    /** Variable visible con el símbolo dado, o null si no hay ninguna. */
+    public Binding lookup(int symbol) {
+        return bindings.get(symbol);
+    }
+
+    public boolean isDefined(int symbol) {
+        return bindings.containsKey(symbol);
+    }
+
+    /** Nivel de anidamiento (0 en el primer nivel). */
+    public int getDepth() {
+        return depth;
+    }
+
+    /** Cantidad de variables visibles. */
+    public int size() {
+        return bindings.size();
+    }
+}
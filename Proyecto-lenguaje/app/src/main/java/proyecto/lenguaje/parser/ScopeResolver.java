@@ -0,0 +1,201 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.SymbolTable;
+import java.util.*;
+
+/**
+ * Resolución de nombres del AST con ámbitos, en una sola pasada.
+ *
+ * Recorre el árbol con una pila explícita de pares (nodo, ámbito). Los
+ * ámbitos son Scope inmutables, así que entrar en un let o en un ciclo es
+ * crear uno nuevo sobre el actual, y al salir los nodos siguientes siguen
+ * usando el que tenían, sin copiar ni deshacer nada. Reglas:
+ * - Las declaraciones de primer nivel son visibles en todo el programa (si un
+ *   nombre se declara dos veces, vale la primera).
+ * - let name = bound in body: name es visible en bound y en body.
+ * - for: si la inicialización es x = ... y x no está declarada, x es una
+ *   variable del ciclo, visible en la condición, la actualización y el cuerpo;
+ *   si ya está declarada, es una asignación.
+ * - En el cuerpo de un ciclo, name = expr declara una variable del bloque,
+ *   visible en las sentencias siguientes, si name no es visible; si lo es,
+ *   es una asignación. expr se resuelve antes de declarar name.
+ * - Los identificadores con mayúscula (constructores y tipos) no se resuelven.
+ *
+ * Los nombres se comparan por su id en la SymbolTable. Los resultados se
+ * guardan por identidad de nodo: en un árbol con nodos compartidos
+ * (AstInterner) un mismo IdentifierNode puede aparecer en varios ámbitos y
+ * queda asociado al último.
+ */
+public final class ScopeResolver {
+    private final SymbolTable symbols;
+
+    public ScopeResolver() {
+        this(new SymbolTable());
+    }
+
+    /** Resolución que usa (y completa) una tabla de símbolos existente. */
+    public ScopeResolver(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    /** Variables declaradas, referencias y nombres sin declarar de program. */
+    public Resolution resolve(AstNode program) {
+        Resolution result = new Resolution();
+        if (program == null) {
+            return result;
+        }
+        Deque<Frame> pending = new ArrayDeque<>();
+        Scope global = Scope.global();
+        if (program instanceof ProgramNode) {
+            for (AstNode item : ((ProgramNode) program).items) {
+                if (item instanceof DeclNode) {
+                    DeclNode decl = (DeclNode) item;
+                    int symbol = symbols.intern(decl.name);
+                    if (!global.isDefined(symbol)) {
+                        global = global.define(result.declare(
+                            new Binding(symbol, decl.name, Binding.Kind.DECLARATION, decl, 0)));
+                    }
+                }
+            }
+        }
+        pending.push(new Frame(program, global));
+
+        List<Frame> children = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            Frame frame = pending.pop();
+            AstNode node = frame.node;
+            Scope scope = frame.scope;
+            children.clear();
+
+            if (node instanceof IdentifierNode) {
+                resolveIdentifier((IdentifierNode) node, scope, result);
+            } else if (node instanceof LetNode) {
+                LetNode let = (LetNode) node;
+                Scope inner = scope.enter();
+                inner = inner.define(result.declare(
+                    new Binding(symbols.intern(let.name), let.name, Binding.Kind.LET, let, inner.getDepth())));
+                children.add(new Frame(let.bound, inner));
+                children.add(new Frame(let.body, inner));
+            } else if (node instanceof CycleNode) {
+                enterCycle((CycleNode) node, scope, result, children);
+            } else {
+                for (AstNode child : node.children()) {
+                    children.add(new Frame(child, scope));
+                }
+            }
+
+            // En orden inverso, para resolver los hijos en el orden del texto
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
+            }
+        }
+        return result;
+    }
+
+    private void enterCycle(CycleNode cycle, Scope outer, Resolution result, List<Frame> children) {
+        Scope scope = outer.enter();
+        AstNode init = cycle.init;
+        if (init instanceof BinaryOpNode && "=".equals(((BinaryOpNode) init).op)
+                && ((BinaryOpNode) init).left instanceof IdentifierNode) {
+            BinaryOpNode assignment = (BinaryOpNode) init;
+            IdentifierNode target = (IdentifierNode) assignment.left;
+            int symbol = symbols.intern(target.name);
+            Binding existing = scope.lookup(symbol);
+            children.add(new Frame(assignment.right, outer));
+            if (existing != null) {
+                result.assignments.put(assignment, existing);
+                result.references.put(target, existing);
+            } else {
+                Binding binding = result.declare(
+                    new Binding(symbol, target.name, Binding.Kind.LOOP_VARIABLE, assignment, scope.getDepth()));
+                result.references.put(target, binding);
+                scope = scope.define(binding);
+            }
+        } else if (init != null) {
+            children.add(new Frame(init, outer));
+        }
+        if (cycle.condition != null) children.add(new Frame(cycle.condition, scope));
+        if (cycle.update != null) children.add(new Frame(cycle.update, scope));
+
+        // Las sentencias del cuerpo ven las variables declaradas antes que ellas
+        for (AstNode statement : cycle.body) {
+            if (statement instanceof DeclNode) {
+                DeclNode decl = (DeclNode) statement;
+                int symbol = symbols.intern(decl.name);
+                children.add(new Frame(decl.expr, scope));
+                Binding existing = scope.lookup(symbol);
+                if (existing != null) {
+                    result.assignments.put(decl, existing);
+                } else {
+                    scope = scope.define(result.declare(
+                        new Binding(symbol, decl.name, Binding.Kind.BLOCK, decl, scope.getDepth())));
+                }
+            } else {
+                children.add(new Frame(statement, scope));
+            }
+        }
+    }
+
+    private void resolveIdentifier(IdentifierNode identifier, Scope scope, Resolution result) {
+        String name = identifier.name;
+        if (name.isEmpty() || Character.isUpperCase(name.charAt(0))) {
+            return;
+        }
+        Binding binding = scope.lookup(symbols.intern(name));
+        if (binding != null) {
+            result.references.put(identifier, binding);
+        } else {
+            result.unresolved.add(identifier);
+        }
+    }
+
+    private static final class Frame {
+        final AstNode node;
+        final Scope scope;
+
+        Frame(AstNode node, Scope scope) {
+            this.node = node;
+            this.scope = scope;
+        }
+    }
+
+    /** Resultado de resolve. */
+    public static final class Resolution {
+        private final List<Binding> bindings = new ArrayList<>();
+        private final Map<IdentifierNode, Binding> references = new IdentityHashMap<>();
+        private final Map<AstNode, Binding> assignments = new IdentityHashMap<>();
+        private final List<IdentifierNode> unresolved = new ArrayList<>();
+
+        private Resolution() {
+        }
+
+        private Binding declare(Binding binding) {
+            bindings.add(binding);
+            return binding;
+        }
+
+        /** Todas las variables declaradas, en el orden en que se encontraron. */
+        public List<Binding> getBindings() {
+            return Collections.unmodifiableList(bindings);
+        }
+
+        /** Variable a la que se refiere identifier, o null si no se resolvió. */
+        public Binding getBinding(IdentifierNode identifier) {
+            return references.get(identifier);
+        }
+
+        /**
+         * Variable que modifica una asignación (DeclNode en el cuerpo de un
+         * ciclo o inicialización de un for sobre una variable ya declarada),
+         * o null si node no es una asignación.
+         */
+        public Binding getAssigned(AstNode node) {
+            return assignments.get(node);
+        }
+
+        /** Identificadores usados sin una declaración visible, en el orden del texto. */
+        public List<IdentifierNode> getUnresolved() {
+            return Collections.unmodifiableList(unresolved);
+        }
+    }
+}
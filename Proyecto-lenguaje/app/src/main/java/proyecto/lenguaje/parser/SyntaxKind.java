@@ -0,0 +1,30 @@
+package proyecto.lenguaje.parser;
+
+/**
+ * Tipos de nodo del árbol sintáctico completo (ver SyntaxTree). Los nodos
+ * son los mismos que los de AstNode, más PAREN (expresión entre paréntesis),
+ * ERROR (tokens de un elemento que no se pudo analizar) y las hojas: TOKEN y
+ * END_OF_FILE, un token vacío que guarda los espacios y comentarios finales.
+ */
+public enum SyntaxKind {
+    PROGRAM,
+    DECL,
+    IDENTIFIER,
+    LITERAL,
+    IF,
+    LET,
+    APPLY,
+    BINARY_OP,
+    UNARY_OP,
+    LIST,
+    TUPLE,
+    PAREN,
+    CYCLE,
+    ERROR,
+    TOKEN,
+    END_OF_FILE;
+
+    public boolean isToken() {
+        return this == TOKEN || this == END_OF_FILE;
+    }
+}
@@ -0,0 +1,148 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.Token;
+import java.util.*;
+
+/**
+ * Nodo "rojo" del árbol sintáctico completo: envuelve un GreenNode con su
+ * padre y su posición en el texto. Es liviano y se crea cuando se lo pide
+ * (getChildren, tokenAt), sumando los anchos de los hermanos anteriores; no
+ * se guarda en el árbol, así que dos versiones del documento comparten los
+ * nodos verdes pero no los rojos.
+ */
+public final class SyntaxNode {
+    private final GreenNode green;
+    private final SyntaxNode parent;
+    private final int index;        // posición entre los hijos de parent
+    private final int fullStart;    // desplazamiento del inicio, trivia incluida
+
+    SyntaxNode(GreenNode green, SyntaxNode parent, int index, int fullStart) {
+        this.green = green;
+        this.parent = parent;
+        this.index = index;
+        this.fullStart = fullStart;
+    }
+
+    public GreenNode getGreen() {
+        return green;
+    }
+
+    public SyntaxKind getKind() {
+        return green.getKind();
+    }
+
+    public boolean isToken() {
+        return green.isToken();
+    }
+
+    /** Tipo del token (null si no es un token o es END_OF_FILE). */
+    public Token.Type getTokenType() {
+        return green.getTokenType();
+    }
+
+    /** Padre del nodo (null en el programa). */
+    public SyntaxNode getParent() {
+        return parent;
+    }
+
+    /** Inicio del nodo incluidos los espacios y comentarios que lo preceden. */
+    public int getFullStart() {
+        return fullStart;
+    }
+
+    /** Inicio del primer token del nodo, después de su trivia. */
+    public int getStart() {
+        return fullStart + getLeadingTrivia().length();
+    }
+
+    public int getEnd() {
+        return fullStart + green.getWidth();
+    }
+
+    /** Trivia del primer token del nodo. */
+    public String getLeadingTrivia() {
+        GreenNode node = green;
+        while (!node.isToken()) {
+            node = node.getChild(0);
+        }
+        return node.getLeadingTrivia();
+    }
+
+    /** Texto del nodo sin la trivia inicial. */
+    public String getText() {
+        if (isToken()) {
+            return green.getTokenText();
+        }
+        return green.toString().substring(getLeadingTrivia().length());
+    }
+
+    public List<SyntaxNode> getChildren() {
+        List<SyntaxNode> children = new ArrayList<>(green.getChildCount());
+        int offset = fullStart;
+        for (int i = 0; i < green.getChildCount(); i++) {
+            GreenNode child = green.getChild(i);
+            children.add(new SyntaxNode(child, this, i, offset));
+            offset += child.getWidth();
+        }
+        return children;
+    }
+
+    /**
+     * Token (hoja) cuyo tramo [getFullStart, getEnd) contiene offset; con
+     * offset igual al final del nodo, su último token.
+     */
+    public SyntaxNode tokenAt(int offset) {
+        if (offset < fullStart || offset > getEnd()) {
+            throw new IndexOutOfBoundsException("Desplazamiento " + offset + " fuera de [" + fullStart + ", " + getEnd() + "]");
+        }
+        SyntaxNode node = this;
+        while (!node.isToken()) {
+            GreenNode g = node.green;
+            int start = node.fullStart;
+            int i = 0;
+            // Avanzar mientras el hijo termine antes de offset (o sea vacío)
+            while (i < g.getChildCount() - 1 && start + g.getChild(i).getWidth() <= offset) {
+                start += g.getChild(i).getWidth();
+                i++;
+            }
+            node = new SyntaxNode(g.getChild(i), node, i, start);
+        }
+        return node;
+    }
+
+    /** Token anterior a este nodo en el texto (null si es el primero). */
+    public SyntaxNode previousToken() {
+        SyntaxNode node = this;
+        while (node.parent != null && node.index == 0) {
+            node = node.parent;
+        }
+        if (node.parent == null) {
+            return null;
+        }
+        GreenNode sibling = node.parent.green.getChild(node.index - 1);
+        node = new SyntaxNode(sibling, node.parent, node.index - 1, node.fullStart - sibling.getWidth());
+        while (!node.isToken()) {
+            int last = node.green.getChildCount() - 1;
+            GreenNode child = node.green.getChild(last);
+            node = new SyntaxNode(child, node, last, node.getEnd() - child.getWidth());
+        }
+        return node;
+    }
+
+    /**
+     * Raíz de una nueva versión del árbol, igual a esta salvo que este nodo
+     * se reemplaza por replacement: solo se crean de nuevo sus ancestros.
+     */
+    GreenNode replaceWith(GreenNode replacement) {
+        GreenNode green = replacement;
+        for (SyntaxNode node = this; node.parent != null; node = node.parent) {
+            green = node.parent.green.withChild(node.index, green);
+        }
+        return green;
+    }
+
+    @Override
+    public String toString() {
+        return getKind() + "@" + fullStart + ".." + getEnd();
+    }
+}
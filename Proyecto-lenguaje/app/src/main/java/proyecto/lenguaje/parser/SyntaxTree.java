@@ -0,0 +1,162 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.HaskellLexer;
+import proyecto.lenguaje.lexer.LineIndex;
+import proyecto.lenguaje.lexer.Token;
+import java.util.*;
+
+/**
+ * Árbol sintáctico completo (sin pérdida) de una versión del documento.
+ *
+ * A diferencia de AstNode, conserva cada token con sus espacios y
+ * comentarios, los paréntesis y los tramos exactos: getRoot().getGreen()
+ * .toString() es el texto original. Está formado por nodos verdes inmutables
+ * y sin posición (GreenNode), que se comparten entre versiones, y se recorre
+ * con nodos rojos (SyntaxNode) que calculan las posiciones al crearse. Así el
+ * IDE, el optimizador o un formateador pueden usar el mismo árbol de cada
+ * versión sin copiarlo.
+ *
+ * applyEdit crea una versión nueva sin modificar esta:
+ * - Si la edición cae dentro de un token (o de la trivia que lo precede) y,
+ *   vuelto a analizar desde dos tokens antes, el token sigue siendo uno solo,
+ *   del mismo tipo y terminando en el mismo lugar, el resto de los tokens no
+ *   cambia. Si además su texto es el mismo o es un nombre o un literal, el
+ *   parser tomaría las mismas decisiones: solo se crea el token nuevo y sus
+ *   ancestros (O(profundidad) nodos verdes) y el resto se comparte.
+ * - Si no, se analiza el texto completo, pero los nodos iguales a los de esta
+ *   versión se toman de ella, de modo que también se comparten.
+ * Las versiones con errores se analizan siempre completas, porque los
+ * mensajes incluyen la línea y la columna.
+ */
+public final class SyntaxTree {
+    // Tipos de token cuyo texto no cambia el análisis (solo el dato del nodo)
+    private static final Set<Token.Type> NAMES_AND_LITERALS = EnumSet.of(
+        Token.Type.IDENTIFIER_VAR, Token.Type.IDENTIFIER_TYPE, Token.Type.INTEGER,
+        Token.Type.FLOAT, Token.Type.STRING, Token.Type.CHAR);
+
+    private final String text;
+    private final GreenNode root;
+    private final List<String> errors;
+
+    private SyntaxTree(String text, GreenNode root, List<String> errors) {
+        this.text = text;
+        this.root = root;
+        this.errors = errors;
+    }
+
+    /** Analiza el documento completo. */
+    public static SyntaxTree parse(String text) {
+        return parse(text, new GreenBuilder.Cache());
+    }
+
+    private static SyntaxTree parse(String text, GreenBuilder.Cache cache) {
+        List<Token> tokens = new HaskellLexer().tokenize(text);
+        GreenBuilder builder = new GreenBuilder(text, tokens, cache);
+        Parser parser = new Parser(tokens, new LineIndex(text));
+        List<String> errors = new ArrayList<>();
+        while (parser.getTokenIndex() < tokens.size()) {
+            int start = parser.getTokenIndex();
+            String error = parser.parseItem(builder);
+            if (error != null) {
+                errors.add(error);
+                builder.error(start, parser.getTokenIndex());
+            }
+        }
+        return new SyntaxTree(text, builder.finish(), Collections.unmodifiableList(errors));
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /** Raíz (PROGRAM) de esta versión; sus hijos son los elementos de primer nivel. */
+    public SyntaxNode getRoot() {
+        return new SyntaxNode(root, null, 0, 0);
+    }
+
+    /** Mensajes de los elementos que no se pudieron analizar (sin numerar). */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Versión del documento con la edición aplicada.
+     * @param offset desplazamiento donde comienza la edición
+     * @param removedLength cantidad de caracteres eliminados
+     * @param insertedText texto insertado (vacío si solo se eliminó)
+     */
+    public SyntaxTree applyEdit(int offset, int removedLength, String insertedText) {
+        if (offset < 0 || removedLength < 0 || offset + removedLength > text.length()) {
+            throw new IllegalArgumentException("Edición fuera del documento: offset " + offset
+                + ", eliminados " + removedLength + ", longitud " + text.length());
+        }
+        String newText = text.substring(0, offset) + insertedText + text.substring(offset + removedLength);
+        if (errors.isEmpty()) {
+            SyntaxNode token = getRoot().tokenAt(offset);
+            SyntaxTree edited = editToken(token, newText, offset, removedLength);
+            // Una inserción al final de un token cae en la trivia del siguiente
+            if (edited == null && offset == token.getFullStart() && token.previousToken() != null) {
+                edited = editToken(token.previousToken(), newText, offset, removedLength);
+            }
+            if (edited != null) {
+                return edited;
+            }
+        }
+        GreenBuilder.Cache cache = new GreenBuilder.Cache();
+        cache.addAll(root);
+        return parse(newText, cache);
+    }
+
+    // Nueva versión con solo token reemplazado, o null si la edición afecta a más
+    private SyntaxTree editToken(SyntaxNode token, String newText, int offset, int removedLength) {
+        int end = token.getEnd();
+        if (offset < token.getFullStart() || offset + removedLength > end) {
+            return null;
+        }
+        int newEnd = end + newText.length() - text.length();
+        SyntaxNode previous = token.previousToken();
+        SyntaxNode beforePrevious = previous != null ? previous.previousToken() : null;
+
+        // Los dos tokens anteriores (que el lexer pudo leer más allá) deben ser los mismos.
+        // Sin un token antes de previous se empieza en su trivia, que puede abrir un {- sin cerrar.
+        HaskellLexer lexer = new HaskellLexer();
+        HaskellLexer.Cursor cursor = new HaskellLexer.Cursor(
+            beforePrevious != null ? beforePrevious.getStart() : previous != null ? previous.getFullStart() : 0, 1);
+        if (beforePrevious != null) {
+            if (!sameToken(lexer.nextToken(newText, cursor), beforePrevious) || cursor.getReach() >= offset) {
+                return null;
+            }
+        }
+        if (previous != null) {
+            if (!sameToken(lexer.nextToken(newText, cursor), previous) || cursor.getReach() >= offset) {
+                return null;
+            }
+        }
+
+        Token relexed = lexer.nextToken(newText, cursor);
+        int triviaStart = previous != null ? previous.getEnd() : 0;
+        GreenNode replacement;
+        if (token.getKind() == SyntaxKind.END_OF_FILE) {
+            if (relexed != null) {
+                return null;
+            }
+            replacement = GreenNode.endOfFile(newText.substring(triviaStart));
+        } else {
+            if (relexed == null || relexed.getType() != token.getTokenType()
+                || relexed.getPosition() + relexed.getValue().length() != newEnd) {
+                return null;
+            }
+            String tokenText = newText.substring(relexed.getPosition(), newEnd);
+            if (!tokenText.equals(token.getText()) && !NAMES_AND_LITERALS.contains(relexed.getType())) {
+                return null;
+            }
+            replacement = GreenNode.token(relexed.getType(), newText.substring(triviaStart, relexed.getPosition()), tokenText);
+        }
+        return new SyntaxTree(newText, token.replaceWith(replacement), errors);
+    }
+
+    private static boolean sameToken(Token token, SyntaxNode node) {
+        return token != null && token.getPosition() == node.getStart()
+            && token.getType() == node.getTokenType() && token.getValue().equals(node.getText());
+    }
+}
@@ -0,0 +1,121 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.TokenSource;
+import java.util.*;
+
+// AstBuilder que crea el árbol de objetos AstNode (el id de un nodo es su índice en nodes)
+class TreeBuilder implements AstBuilder {
+    private final List<AstNode> nodes = new ArrayList<>();
+    private final List<AstNode> items = new ArrayList<>();
+    // Si no es null, los nodos estructuralmente iguales se comparten
+    private final AstInterner interner;
+
+    TreeBuilder() {
+        this(null);
+    }
+
+    TreeBuilder(AstInterner interner) {
+        this.interner = interner;
+    }
+
+    ProgramNode program() {
+        return new ProgramNode(items);
+    }
+
+    @Override
+    public void item(int node) {
+        items.add(nodes.get(node));
+    }
+
+    @Override
+    public int decl(String name, int nameToken, int expr) {
+        return add(new DeclNode(name, nodes.get(expr)));
+    }
+
+    @Override
+    public int identifier(TokenSource tokens, int token) {
+        return add(new IdentifierNode(tokens.peekValue(0), tokens.peekLine(0)));
+    }
+
+    @Override
+    public int literal(TokenSource tokens, int token) {
+        return add(new LiteralNode(tokens.peekToken(0)));
+    }
+
+    @Override
+    public int ifNode(int ifToken, int cond, int thenBranch, int elseBranch) {
+        return add(new IfNode(nodes.get(cond), nodes.get(thenBranch), nodes.get(elseBranch)));
+    }
+
+    @Override
+    public int let(String name, int letToken, int bound, int body) {
+        return add(new LetNode(name, nodes.get(bound), nodes.get(body)));
+    }
+
+    @Override
+    public int binary(String op, int opToken, int left, int right) {
+        return add(new BinaryOpNode(op, nodes.get(left), nodes.get(right)));
+    }
+
+    @Override
+    public int unary(String op, int opToken, int operand) {
+        return add(new UnaryOpNode(op, nodes.get(operand)));
+    }
+
+    @Override
+    public int apply(int function, int[] args, int from, int count) {
+        AstNode expr = nodes.get(function);
+        // if expr already an Apply (p. ej. "(f x) y"), its args go first
+        if (expr instanceof ApplyNode) {
+            ApplyNode a = (ApplyNode) expr;
+            List<AstNode> newArgs = new ArrayList<>(a.args.size() + count);
+            newArgs.addAll(a.args);
+            newArgs.addAll(collect(args, from, count));
+            return add(new ApplyNode(a.function, newArgs));
+        }
+        return add(new ApplyNode(expr, collect(args, from, count)));
+    }
+
+    @Override
+    public int tuple(int open, int end, int[] elements, int from, int count) {
+        return add(new TupleNode(collect(elements, from, count)));
+    }
+
+    @Override
+    public int list(int open, int end, int[] elements, int from, int count) {
+        return add(new ListNode(collect(elements, from, count)));
+    }
+
+    @Override
+    public int cycle(CycleNode.CycleType type, int keywordToken, int end,
+                     int init, int condition, int update, int[] body, int from, int count) {
+        return add(new CycleNode(type, get(init), get(condition), get(update), collect(body, from, count)));
+    }
+
+    @Override
+    public int mark() {
+        return nodes.size();
+    }
+
+    @Override
+    public void rollback(int mark) {
+        nodes.subList(mark, nodes.size()).clear();
+    }
+
+    private int add(AstNode node) {
+        nodes.add(interner != null ? interner.intern(node) : node);
+        return nodes.size() - 1;
+    }
+
+    private AstNode get(int node) {
+        return node < 0 ? null : nodes.get(node);
+    }
+
+    private List<AstNode> collect(int[] ids, int from, int count) {
+        List<AstNode> list = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            list.add(nodes.get(ids[i]));
+        }
+        return list;
+    }
+}
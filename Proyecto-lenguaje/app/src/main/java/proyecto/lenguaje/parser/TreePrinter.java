@@ -0,0 +1,69 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+
+/**
+ * Impresión de AstNode.toTreeString sin recursión.
+ *
+ * En buildTree cada nodo describe sus líneas y sus hijos en el orden en que
+ * se imprimen. Los hijos no se imprimen en ese momento: quedan en una pila
+ * explícita junto con las líneas que les siguen, de modo que la profundidad
+ * del árbol solo está limitada por el heap.
+ */
+final class TreePrinter {
+    private final StringBuilder sb = new StringBuilder();
+    // Pendientes: String (línea ya indentada) o Child
+    private final Deque<Object> pending = new ArrayDeque<>();
+    // Lo que describió el nodo que se está expandiendo, después de lo ya impreso
+    private final List<Object> current = new ArrayList<>();
+
+    private static final class Child {
+        final AstNode node;
+        final int indent;
+
+        Child(AstNode node, int indent) {
+            this.node = node;
+            this.indent = indent;
+        }
+    }
+
+    String print(AstNode root) {
+        pending.push(new Child(root, 0));
+        while (!pending.isEmpty()) {
+            Object next = pending.pop();
+            if (next instanceof String) {
+                sb.append((String) next);
+                continue;
+            }
+            Child child = (Child) next;
+            current.clear();
+            child.node.buildTree(this, child.indent);
+            for (int i = current.size() - 1; i >= 0; i--) {
+                pending.push(current.get(i));
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Línea de texto con la indentación dada. */
+    void line(int indent, String text) {
+        if (current.isEmpty()) {
+            // Todavía no hay hijos pendientes antes que ella: se imprime ya
+            appendLine(sb, indent, text);
+        } else {
+            StringBuilder line = new StringBuilder(indent * 2 + text.length() + 1);
+            appendLine(line, indent, text);
+            current.add(line.toString());
+        }
+    }
+
+    /** Subárbol a imprimir en este punto, con la indentación dada. */
+    void child(AstNode node, int indent) {
+        current.add(new Child(node, indent));
+    }
+
+    private static void appendLine(StringBuilder sb, int indent, String text) {
+        for (int i = 0; i < indent; i++) sb.append("  ");
+        sb.append(text).append('\n');
+    }
+}
@@ -0,0 +1,15 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+
+// Tuple node
+public class TupleNode extends AstNode {
+	public final List<AstNode> elements;
+	public TupleNode(List<AstNode> elements) { this.elements = elements; }
+	@Override void buildTree(TreePrinter out, int indent) {
+		out.line(indent, "Tuple");
+		for (AstNode e : elements) out.child(e, indent + 1);
+	}
+	@Override public <R> R accept(AstVisitor<R> visitor) { return visitor.visitTuple(this); }
+	@Override public List<AstNode> children() { return elements; }
+}
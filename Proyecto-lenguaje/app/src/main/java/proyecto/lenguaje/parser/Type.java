@@ -0,0 +1,260 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+
+/**
+ * Tipos del lenguaje para TypeInference: Int, Float, Bool, Char, String,
+ * listas [a], tuplas (a, b, ...) y variables de tipo.
+ *
+ * Una variable de tipo representa un tipo todavía desconocido. Durante la
+ * inferencia se unifica con otro tipo (se "instancia") y desde entonces
+ * resolve la reemplaza por ese tipo. Una variable puede llevar una
+ * restricción: NUMERIC solo admite Int o Float (operandos de + - * /) y
+ * CONCAT solo String o una lista (operandos de ++). Los tipos que devuelve
+ * TypeInference ya están resueltos, sin variables instanciadas.
+ *
+ * Una lista anidada puede ser tan profunda como el programa, así que
+ * resolve, equals y toString recorren el tipo con una pila explícita, sin
+ * recursión, y el hash de cada tipo se calcula al crearlo.
+ */
+public abstract class Type {
+    public static final Type INT = new Base("Int");
+    public static final Type FLOAT = new Base("Float");
+    public static final Type BOOL = new Base("Bool");
+    public static final Type CHAR = new Base("Char");
+    public static final Type STRING = new Base("String");
+    /** Tupla vacía, el tipo de las sentencias (ciclos). */
+    public static final Type UNIT = new Tuple(Collections.emptyList());
+
+    public enum Constraint { NONE, NUMERIC, CONCAT }
+
+    private Type() {
+    }
+
+    public static Type list(Type element) {
+        return new ListType(element);
+    }
+
+    public static Type tuple(List<Type> elements) {
+        return elements.isEmpty() ? UNIT : new Tuple(new ArrayList<>(elements));
+    }
+
+    /** Este tipo con cada variable instanciada reemplazada por su tipo. */
+    public Type resolve() {
+        return new Resolver().resolve(this);
+    }
+
+    /**
+     * Resuelve tipos recordando el resultado de cada uno, de modo que resolver
+     * muchos tipos que comparten partes recorre cada parte una sola vez. Solo
+     * es válido mientras no se instancien más variables.
+     */
+    static final class Resolver {
+        private final Map<Type, Type> resolved = new IdentityHashMap<>();
+
+        Type resolve(Type type) {
+            Deque<Type> pending = new ArrayDeque<>();
+            pending.push(type);
+            while (!pending.isEmpty()) {
+                Type current = pending.peek();
+                if (resolved.containsKey(current)) {
+                    pending.pop();
+                } else if (current instanceof Variable) {
+                    Type pruned = ((Variable) current).prune();
+                    if (pruned == current || resolved.containsKey(pruned)) {
+                        resolved.put(current, pruned == current ? current : resolved.get(pruned));
+                        pending.pop();
+                    } else {
+                        pending.push(pruned);
+                    }
+                } else if (current instanceof ListType) {
+                    Type element = ((ListType) current).element;
+                    Type result = resolved.get(element);
+                    if (result == null) {
+                        pending.push(element);
+                    } else {
+                        resolved.put(current, result == element ? current : new ListType(result));
+                        pending.pop();
+                    }
+                } else if (current instanceof Tuple) {
+                    List<Type> elements = ((Tuple) current).elements;
+                    boolean ready = true;
+                    for (Type element : elements) {
+                        if (!resolved.containsKey(element)) {
+                            pending.push(element);
+                            ready = false;
+                        }
+                    }
+                    if (ready) {
+                        List<Type> result = new ArrayList<>(elements.size());
+                        boolean changed = false;
+                        for (Type element : elements) {
+                            Type r = resolved.get(element);
+                            changed |= r != element;
+                            result.add(r);
+                        }
+                        resolved.put(current, changed ? new Tuple(result) : current);
+                        pending.pop();
+                    }
+                } else {
+                    resolved.put(current, current);
+                    pending.pop();
+                }
+            }
+            return resolved.get(type);
+        }
+    }
+
+    // Igualdad estructural de listas y tuplas; las demás se comparan por identidad
+    private static boolean structurallyEqual(Type a, Type b) {
+        Deque<Type> pending = new ArrayDeque<>();
+        pending.push(b);
+        pending.push(a);
+        while (!pending.isEmpty()) {
+            Type left = pending.pop();
+            Type right = pending.pop();
+            if (left == right) {
+                continue;
+            }
+            if (left.hashCode() != right.hashCode()) {
+                return false;
+            }
+            if (left instanceof ListType && right instanceof ListType) {
+                pending.push(((ListType) right).element);
+                pending.push(((ListType) left).element);
+            } else if (left instanceof Tuple && right instanceof Tuple) {
+                List<Type> leftElements = ((Tuple) left).elements;
+                List<Type> rightElements = ((Tuple) right).elements;
+                if (leftElements.size() != rightElements.size()) {
+                    return false;
+                }
+                for (int i = leftElements.size() - 1; i >= 0; i--) {
+                    pending.push(rightElements.get(i));
+                    pending.push(leftElements.get(i));
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Texto de una lista o tupla; los demás tipos no tienen partes
+    private static String format(Type type) {
+        StringBuilder out = new StringBuilder();
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(type);
+        while (!pending.isEmpty()) {
+            Object item = pending.pop();
+            if (item instanceof String) {
+                out.append((String) item);
+            } else if (item instanceof ListType) {
+                out.append('[');
+                pending.push("]");
+                pending.push(((ListType) item).element);
+            } else if (item instanceof Tuple) {
+                List<Type> elements = ((Tuple) item).elements;
+                out.append('(');
+                pending.push(")");
+                for (int i = elements.size() - 1; i >= 0; i--) {
+                    pending.push(elements.get(i));
+                    if (i > 0) {
+                        pending.push(", ");
+                    }
+                }
+            } else {
+                out.append(item);
+            }
+        }
+        return out.toString();
+    }
+
+    /** Int, Float, Bool, Char o String. */
+    public static final class Base extends Type {
+        private final String name;
+
+        private Base(String name) {
+            this.name = name;
+        }
+
+        @Override public String toString() { return name; }
+    }
+
+    /** [element] */
+    public static final class ListType extends Type {
+        private final Type element;
+        private final int hash;
+
+        private ListType(Type element) {
+            this.element = element;
+            this.hash = element.hashCode() * 31 + 1;
+        }
+
+        public Type getElement() {
+            return element;
+        }
+
+        @Override public boolean equals(Object other) {
+            return other instanceof ListType && structurallyEqual(this, (ListType) other);
+        }
+        @Override public int hashCode() { return hash; }
+        @Override public String toString() { return format(this); }
+    }
+
+    /** (a, b, ...) */
+    public static final class Tuple extends Type {
+        private final List<Type> elements;
+        private final int hash;
+
+        private Tuple(List<Type> elements) {
+            this.elements = elements;
+            this.hash = elements.hashCode();
+        }
+
+        public List<Type> getElements() {
+            return Collections.unmodifiableList(elements);
+        }
+
+        @Override public boolean equals(Object other) {
+            return other instanceof Tuple && structurallyEqual(this, (Tuple) other);
+        }
+        @Override public int hashCode() { return hash; }
+        @Override public String toString() { return format(this); }
+    }
+
+    /** Tipo desconocido; instance es el tipo con el que se unificó (null si ninguno). */
+    public static final class Variable extends Type {
+        private final int id;
+        Constraint constraint;
+        Type instance;
+
+        Variable(int id, Constraint constraint) {
+            this.id = id;
+            this.constraint = constraint;
+        }
+
+        public Constraint getConstraint() {
+            return constraint;
+        }
+
+        // Sigue la cadena de variables instanciadas y la acorta
+        Type prune() {
+            Type end = this;
+            while (end instanceof Variable && ((Variable) end).instance != null) {
+                end = ((Variable) end).instance;
+            }
+            Variable variable = this;
+            while (variable.instance != null && variable.instance != end) {
+                Type next = variable.instance;
+                variable.instance = end;
+                variable = (Variable) next;
+            }
+            return end;
+        }
+
+        @Override public String toString() {
+            // Las restringidas sin instanciar solo aparecen en los mensajes de error
+            return constraint == Constraint.NUMERIC ? "Num" : constraint == Constraint.CONCAT ? "Seq" : "t" + id;
+        }
+    }
+}
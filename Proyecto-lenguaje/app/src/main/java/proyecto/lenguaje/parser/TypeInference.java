@@ -0,0 +1,351 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.Token;
+import java.util.*;
+
+/**
+ * Inferencia de tipos sobre el AST, por unificación.
+ *
+ * Primero resuelve los nombres con ScopeResolver: cada variable declarada
+ * (Binding) recibe una variable de tipo, y cada identificador toma la de su
+ * declaración. Luego recorre el árbol en postorden (AstWalker) y calcula el
+ * tipo de cada nodo a partir de los de sus hijos, unificando donde el
+ * lenguaje exige tipos iguales:
+ * - Literales: Float, Char, String o Bool según el token. Un entero es de
+ *   cualquier tipo numérico, como en Haskell, para que 1 + 2.5 sea Float.
+ *   El lexer divide un decimal "1.5" en 1, '.' y 5, y el parser lo agrupa
+ *   con lo anterior ((x + 1) . 5): un '.' seguido de un entero es Float y
+ *   hace Float a la expresión de su izquierda.
+ * - + - * / y el - unario: operandos del mismo tipo numérico (Int o Float).
+ *   ++: operandos del mismo tipo, String o lista. == /= < <= > >=: operandos
+ *   del mismo tipo, resultado Bool. && ||: Bool. ':' agrega un elemento a una
+ *   lista. '=' iguala el tipo de la variable con el del valor.
+ * - If: condición Bool, ramas del mismo tipo. Let: el nombre tiene el tipo
+ *   del valor y la expresión el del cuerpo. Listas: elementos del mismo tipo.
+ *   Tuplas: el de cada elemento. Ciclos: condición Bool; son sentencias, de
+ *   tipo (). Declaraciones: el tipo de su expresión.
+ * - Aplicaciones, constructores y operadores desconocidos: un tipo nuevo.
+ *
+ * Los tipos son monomórficos (un let no se generaliza). Al terminar, las
+ * variables numéricas sin instanciar pasan a Int y las de ++ a String, como
+ * con los valores por defecto de Haskell, y todos los tipos de la tabla se
+ * guardan ya resueltos, de modo que consultarlos es O(1). Si dos tipos no se
+ * pueden unificar se agrega un error y el nodo queda con un tipo nuevo, para
+ * seguir con el resto del programa. Los tipos se guardan por identidad de
+ * nodo, igual que en ScopeResolver.
+ */
+public final class TypeInference {
+    private final List<Type.Variable> variables = new ArrayList<>();
+    private final Map<AstNode, Type> types = new IdentityHashMap<>();
+    private final Map<Binding, Type> bindingTypes = new IdentityHashMap<>();
+    private final List<String> errors = new ArrayList<>();
+    private ScopeResolver.Resolution resolution;
+    private Map<AstNode, Binding> declarations;
+
+    private TypeInference() {
+    }
+
+    /** Tipos de todos los nodos de program. */
+    public static TypeTable infer(AstNode program) {
+        return new TypeInference().run(program);
+    }
+
+    private TypeTable run(AstNode program) {
+        resolution = new ScopeResolver().resolve(program);
+        declarations = new IdentityHashMap<>();
+        for (Binding binding : resolution.getBindings()) {
+            declarations.put(binding.getDeclaration(), binding);
+        }
+        AstWalker.postOrder(program, node -> types.put(node, typeOf(node)));
+
+        // Valores por defecto de las variables restringidas que quedaron libres
+        for (Type.Variable variable : variables) {
+            if (variable.prune() == variable) {
+                if (variable.constraint == Type.Constraint.NUMERIC) variable.instance = Type.INT;
+                else if (variable.constraint == Type.Constraint.CONCAT) variable.instance = Type.STRING;
+            }
+        }
+        // Con un solo Resolver, cada parte compartida de los tipos se resuelve una vez
+        Type.Resolver resolver = new Type.Resolver();
+        types.replaceAll((node, type) -> resolver.resolve(type));
+        bindingTypes.replaceAll((binding, type) -> resolver.resolve(type));
+        return new TypeTable(types, bindingTypes, errors);
+    }
+
+    // Tipo de node; los de sus hijos ya están en la tabla
+    private Type typeOf(AstNode node) {
+        if (node instanceof LiteralNode) {
+            switch (((LiteralNode) node).token.getType()) {
+                case INTEGER: return fresh(Type.Constraint.NUMERIC);
+                case FLOAT: return Type.FLOAT;
+                case CHAR: return Type.CHAR;
+                case STRING: return Type.STRING;
+                case BOOLEAN: return Type.BOOL;
+                default: return fresh(Type.Constraint.NONE);
+            }
+        }
+        if (node instanceof IdentifierNode) {
+            Binding binding = resolution.getBinding((IdentifierNode) node);
+            return binding != null ? bindingType(binding) : fresh(Type.Constraint.NONE);
+        }
+        if (node instanceof BinaryOpNode) {
+            return binaryType((BinaryOpNode) node);
+        }
+        if (node instanceof UnaryOpNode) {
+            UnaryOpNode unary = (UnaryOpNode) node;
+            if (unary.op.equals("-")) {
+                return expect(node, types.get(unary.operand), fresh(Type.Constraint.NUMERIC));
+            }
+            return fresh(Type.Constraint.NONE);
+        }
+        if (node instanceof IfNode) {
+            IfNode ifNode = (IfNode) node;
+            expect(node, types.get(ifNode.cond), Type.BOOL);
+            return expect(node, types.get(ifNode.elseBranch), types.get(ifNode.thenBranch));
+        }
+        if (node instanceof LetNode) {
+            LetNode let = (LetNode) node;
+            define(let, types.get(let.bound));
+            return types.get(let.body);
+        }
+        if (node instanceof ListNode) {
+            Type element = fresh(Type.Constraint.NONE);
+            for (AstNode child : ((ListNode) node).elements) {
+                element = expect(child, types.get(child), element);
+            }
+            return Type.list(element);
+        }
+        if (node instanceof TupleNode) {
+            List<Type> elements = new ArrayList<>();
+            for (AstNode child : ((TupleNode) node).elements) {
+                elements.add(types.get(child));
+            }
+            return Type.tuple(elements);
+        }
+        if (node instanceof CycleNode) {
+            CycleNode cycle = (CycleNode) node;
+            if (cycle.condition != null) {
+                expect(node, types.get(cycle.condition), Type.BOOL);
+            }
+            return Type.UNIT;
+        }
+        if (node instanceof DeclNode) {
+            Type type = types.get(((DeclNode) node).expr);
+            define(node, type);
+            return type;
+        }
+        if (node instanceof ProgramNode) {
+            return Type.UNIT;
+        }
+        return fresh(Type.Constraint.NONE);
+    }
+
+    private Type binaryType(BinaryOpNode node) {
+        Type left = types.get(node.left);
+        Type right = types.get(node.right);
+        switch (node.op) {
+            case "+": case "-": case "*": case "/":
+                return expect(node, right, expect(node, left, fresh(Type.Constraint.NUMERIC)));
+            case "++":
+                return expect(node, right, expect(node, left, fresh(Type.Constraint.CONCAT)));
+            case "==": case "/=": case "<": case "<=": case ">": case ">=":
+                expect(node, right, left);
+                return Type.BOOL;
+            case "&&": case "||":
+                expect(node, left, Type.BOOL);
+                expect(node, right, Type.BOOL);
+                return Type.BOOL;
+            case ":":
+                return expect(node, right, Type.list(left));
+            case "=":
+                // Inicialización de un for o asignación dentro de una expresión
+                Type type = expect(node, right, left);
+                define(node, type);
+                return type;
+            case ".":
+                if (isDecimalPart(node.right)) {
+                    expect(node, left, Type.FLOAT);
+                    return Type.FLOAT;
+                }
+                return fresh(Type.Constraint.NONE);
+            default:
+                return fresh(Type.Constraint.NONE);
+        }
+    }
+
+    // Parte decimal de un número que el lexer separó en INTEGER, '.' e INTEGER
+    private static boolean isDecimalPart(AstNode node) {
+        return node instanceof LiteralNode && ((LiteralNode) node).token.getType() == Token.Type.INTEGER
+            && !((LiteralNode) node).token.getValue().startsWith("-");
+    }
+
+    // Iguala el tipo de la variable que declara o asigna node con type
+    private void define(AstNode node, Type type) {
+        Binding binding = declarations.get(node);
+        if (binding == null) {
+            binding = resolution.getAssigned(node);
+        }
+        if (binding != null) {
+            expect(node, type, bindingType(binding));
+        }
+    }
+
+    private Type bindingType(Binding binding) {
+        return bindingTypes.computeIfAbsent(binding, b -> fresh(Type.Constraint.NONE));
+    }
+
+    private Type.Variable fresh(Type.Constraint constraint) {
+        Type.Variable variable = new Type.Variable(variables.size(), constraint);
+        variables.add(variable);
+        return variable;
+    }
+
+    // Unifica actual con expected; si no se puede, registra el error y devuelve un tipo nuevo
+    private Type expect(AstNode node, Type actual, Type expected) {
+        if (unify(actual, expected)) {
+            return expected;
+        }
+        errors.add("Tipos incompatibles en " + describe(node) + ": se esperaba "
+            + expected.resolve() + " y se encontró " + actual.resolve());
+        return fresh(Type.Constraint.NONE);
+    }
+
+    // Unifica los pares pendientes con una pila explícita, en el mismo orden que la recursión
+    private boolean unify(Type first, Type second) {
+        Deque<Type> pending = new ArrayDeque<>();
+        pending.push(second);
+        pending.push(first);
+        while (!pending.isEmpty()) {
+            Type a = prune(pending.pop());
+            Type b = prune(pending.pop());
+            if (a == b) {
+                continue;
+            }
+            if (a instanceof Type.Variable) {
+                if (!bind((Type.Variable) a, b)) {
+                    return false;
+                }
+            } else if (b instanceof Type.Variable) {
+                if (!bind((Type.Variable) b, a)) {
+                    return false;
+                }
+            } else if (a instanceof Type.ListType && b instanceof Type.ListType) {
+                pending.push(((Type.ListType) b).getElement());
+                pending.push(((Type.ListType) a).getElement());
+            } else if (a instanceof Type.Tuple && b instanceof Type.Tuple) {
+                List<Type> left = ((Type.Tuple) a).getElements();
+                List<Type> right = ((Type.Tuple) b).getElements();
+                if (left.size() != right.size()) {
+                    return false;
+                }
+                for (int i = left.size() - 1; i >= 0; i--) {
+                    pending.push(right.get(i));
+                    pending.push(left.get(i));
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean bind(Type.Variable variable, Type type) {
+        if (type instanceof Type.Variable) {
+            Type.Variable other = (Type.Variable) type;
+            Type.Constraint merged = merge(variable.constraint, other.constraint);
+            if (merged == null) {
+                return false;
+            }
+            other.constraint = merged;
+            variable.instance = other;
+            return true;
+        }
+        if (!satisfies(type, variable.constraint) || occurs(variable, type)) {
+            return false;
+        }
+        variable.instance = type;
+        return true;
+    }
+
+    // true si variable aparece en type; recorre las partes ya podadas, sin construir el tipo resuelto
+    private static boolean occurs(Type.Variable variable, Type type) {
+        Deque<Type> pending = new ArrayDeque<>();
+        pending.push(type);
+        while (!pending.isEmpty()) {
+            Type current = prune(pending.pop());
+            if (current == variable) {
+                return true;
+            }
+            if (current instanceof Type.ListType) {
+                pending.push(((Type.ListType) current).getElement());
+            } else if (current instanceof Type.Tuple) {
+                for (Type element : ((Type.Tuple) current).getElements()) {
+                    pending.push(element);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Type.Constraint merge(Type.Constraint a, Type.Constraint b) {
+        if (a == Type.Constraint.NONE) return b;
+        if (b == Type.Constraint.NONE || a == b) return a;
+        return null;
+    }
+
+    private static boolean satisfies(Type type, Type.Constraint constraint) {
+        switch (constraint) {
+            case NUMERIC: return type == Type.INT || type == Type.FLOAT;
+            case CONCAT: return type == Type.STRING || type instanceof Type.ListType;
+            default: return true;
+        }
+    }
+
+    private static Type prune(Type type) {
+        return type instanceof Type.Variable ? ((Type.Variable) type).prune() : type;
+    }
+
+    private static String describe(AstNode node) {
+        if (node instanceof BinaryOpNode) return "'" + ((BinaryOpNode) node).op + "'";
+        if (node instanceof UnaryOpNode) return "'" + ((UnaryOpNode) node).op + "' unario";
+        if (node instanceof DeclNode) return "la declaración de '" + ((DeclNode) node).name + "'";
+        if (node instanceof LetNode) return "let " + ((LetNode) node).name;
+        if (node instanceof LiteralNode) {
+            return "el literal " + ((LiteralNode) node).token.getValue()
+                + " (línea " + ((LiteralNode) node).token.getLine() + ")";
+        }
+        if (node instanceof IdentifierNode) return "'" + ((IdentifierNode) node).name + "'";
+        if (node instanceof IfNode) return "if";
+        if (node instanceof ListNode) return "un elemento de lista";
+        if (node instanceof CycleNode) return "la condición del ciclo";
+        return node.getClass().getSimpleName();
+    }
+
+    /** Resultado de infer: el tipo de cada nodo y de cada variable. */
+    public static final class TypeTable {
+        private final Map<AstNode, Type> types;
+        private final Map<Binding, Type> bindingTypes;
+        private final List<String> errors;
+
+        private TypeTable(Map<AstNode, Type> types, Map<Binding, Type> bindingTypes, List<String> errors) {
+            this.types = types;
+            this.bindingTypes = bindingTypes;
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        /** Tipo de node, o null si node no es parte del programa analizado. */
+        public Type getType(AstNode node) {
+            return types.get(node);
+        }
+
+        /** Tipo de una variable declarada, o null si el programa no la usa. */
+        public Type getType(Binding binding) {
+            return bindingTypes.get(binding);
+        }
+
+        /** Mensajes de los tipos que no se pudieron unificar, en el orden del recorrido. */
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package proyecto.lenguaje.parser;
+
+import java.util.*;
+
+// Unary operator: op operand (e.g. -x)
+public class UnaryOpNode extends AstNode {
+	public final String op;
+	public final AstNode operand;
+	public UnaryOpNode(String op, AstNode operand) { this.op = op; this.operand = operand; }
+	@Override void buildTree(TreePrinter out, int indent) {
+		out.line(indent, "UnaryOp(" + op + ")");
+		out.child(operand, indent + 1);
+	}
+	@Override public <R> R accept(AstVisitor<R> visitor) { return visitor.visitUnaryOp(this); }
+	@Override int dataHash() { return op.hashCode(); }
+	@Override boolean sameData(AstNode other) { return super.sameData(other) && op.equals(((UnaryOpNode) other).op); }
+	@Override public List<AstNode> children() { return Collections.singletonList(operand); }
+
+	// Métodos de acceso para otras clases del paquete
+	public String getOp() { return op; }
+	public AstNode getOperand() { return operand; }
+}
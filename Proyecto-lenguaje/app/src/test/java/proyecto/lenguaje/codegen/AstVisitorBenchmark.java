@@ -0,0 +1,134 @@
+package proyecto.lenguaje.codegen;
+
+import proyecto.lenguaje.lexer.HaskellLexer;
+import proyecto.lenguaje.parser.AstNode;
+import proyecto.lenguaje.parser.AstWalker;
+import proyecto.lenguaje.parser.BinaryOpNode;
+import proyecto.lenguaje.parser.Parser;
+import proyecto.lenguaje.parser.ProgramNode;
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * Benchmark del recorrido con AstVisitor frente al recorrido por reflexión.
+ *
+ * Genera un programa con muchas declaraciones aritméticas y mide el tiempo
+ * (nodos por segundo) de:
+ * - La conversión a prefijo de cada expresión: convertToPrefix (visitante)
+ *   contra la versión anterior, que comparaba getSimpleName y leía los campos
+ *   con getField(...).get y getMethod("getValue").invoke.
+ * - La búsqueda de todas las BinaryOpNode: AstWalker contra el recorrido de
+ *   los campos públicos de cada nodo con reflexión.
+ */
+public class AstVisitorBenchmark {
+    private static final int DECLARATIONS = 20_000;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        System.out.println("=== BENCHMARK DE ASTVISITOR ===");
+
+        // Cada declaración se analiza por separado (el parser no corta en los saltos de línea)
+        HaskellLexer lexer = new HaskellLexer();
+        List<AstNode> declarations = new ArrayList<>();
+        List<AstNode> expressions = new ArrayList<>();
+        for (int n = 0; n < DECLARATIONS; n++) {
+            AstNode decl = new Parser(lexer.tokenize(generateDeclaration(n))).parseProgram().children().get(0);
+            declarations.add(decl);
+            expressions.add(decl.children().get(0));
+        }
+        AstNode program = new ProgramNode(declarations);
+        List<AstNode> nodes = new ArrayList<>();
+        AstWalker.preOrder(program, nodes::add);
+        System.out.println("Nodos del árbol: " + nodes.size() + "\n");
+
+        ArithmeticExpressionConverter converter = new ArithmeticExpressionConverter();
+        measure("Prefijo con reflexión      ", nodes.size(), () -> {
+            int length = 0;
+            for (AstNode expr : expressions) {
+                length += reflectivePrefix(expr).length();
+            }
+            return length;
+        });
+        measure("Prefijo con AstVisitor     ", nodes.size(), () -> {
+            int length = 0;
+            for (AstNode expr : expressions) {
+                length += converter.convertToPrefix(expr).length();
+            }
+            return length;
+        });
+
+        measure("Búsqueda con reflexión     ", nodes.size(), () -> reflectiveCount(program));
+        measure("Búsqueda con AstWalker     ", nodes.size(), () -> {
+            int[] count = { 0 };
+            AstWalker.preOrder(program, n -> {
+                if (n instanceof BinaryOpNode) count[0]++;
+            });
+            return count[0];
+        });
+    }
+
+    // Ejecuta la tarea varias veces (las primeras como calentamiento) y muestra el mejor tiempo
+    private static void measure(String name, int nodes, java.util.function.IntSupplier task) {
+        long best = Long.MAX_VALUE;
+        int result = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            result = task.getAsInt();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double seconds = best / 1e9;
+        System.out.printf("%s %8.2f ms  %8.1f M nodos/s  (resultado: %d)%n",
+            name, best / 1e6, nodes / seconds / 1e6, result);
+    }
+
+    // La conversión a prefijo tal como se hacía antes de AstVisitor
+    private static String reflectivePrefix(AstNode node) {
+        if (node == null) return "";
+        String className = node.getClass().getSimpleName();
+        try {
+            if ("LiteralNode".equals(className)) {
+                Object token = node.getClass().getField("token").get(node);
+                return token.getClass().getMethod("getValue").invoke(token).toString();
+            }
+            if ("IdentifierNode".equals(className)) {
+                return (String) node.getClass().getField("name").get(node);
+            }
+            if ("BinaryOpNode".equals(className)) {
+                String op = (String) node.getClass().getField("op").get(node);
+                AstNode left = (AstNode) node.getClass().getField("left").get(node);
+                AstNode right = (AstNode) node.getClass().getField("right").get(node);
+                return op + reflectivePrefix(left) + reflectivePrefix(right);
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        return "";
+    }
+
+    // La búsqueda de operaciones binarias tal como se hacía antes de AstWalker
+    private static int reflectiveCount(AstNode node) {
+        if (node == null) return 0;
+        int count = "BinaryOpNode".equals(node.getClass().getSimpleName()) ? 1 : 0;
+        try {
+            for (Field field : node.getClass().getFields()) {
+                if (AstNode.class.isAssignableFrom(field.getType())) {
+                    count += reflectiveCount((AstNode) field.get(node));
+                } else if (List.class.isAssignableFrom(field.getType())) {
+                    for (Object item : (List<?>) field.get(node)) {
+                        if (item instanceof AstNode) {
+                            count += reflectiveCount((AstNode) item);
+                        }
+                    }
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        return count;
+    }
+
+    // Declaración con una expresión aritmética de varios niveles
+    private static String generateDeclaration(int n) {
+        return "valor" + n + " = a * " + n + " + (b - c) * d / " + (n % 7 + 1) + " - e";
+    }
+}
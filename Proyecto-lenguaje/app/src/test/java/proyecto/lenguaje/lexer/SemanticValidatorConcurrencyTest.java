@@ -0,0 +1,86 @@
+package proyecto.lenguaje.lexer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Prueba de carga de SemanticValidator desde varios hilos.
+ *
+ * Genera muchos archivos con ciclos y variables de nombres compartidos pero
+ * de tipos distintos en cada archivo (de modo que una tabla de variables
+ * compartida entre ejecuciones daría otros resultados), los valida uno por
+ * uno y luego varias veces a la vez en un pool de hilos con una sola
+ * instancia del validador, y comprueba que cada resultado sea idéntico al
+ * secuencial.
+ */
+class SemanticValidatorConcurrencyTest {
+    private static final int FILES = 400;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void concurrentResultsMatchSequentialValidation() throws Exception {
+        HaskellLexer lexer = new HaskellLexer();
+        List<TokenBuffer> files = new ArrayList<>();
+        Random random = new Random(23);
+        for (int n = 0; n < FILES; n++) {
+            files.add(lexer.tokenizeToBuffer(generateFile(random)));
+        }
+
+        SemanticValidator validator = new SemanticValidator();
+        List<String> expected = new ArrayList<>();
+        for (TokenBuffer file : files) {
+            expected.add(validator.validateCycles(file));
+        }
+        // Si todos los archivos dieran el mismo resultado, la prueba no detectaría una tabla compartida
+        assertTrue(new HashSet<>(expected).size() > 1, "Los archivos generados no se distinguen entre sí");
+
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                // Orden distinto en cada ronda, para mezclar los archivos entre hilos
+                List<Integer> order = new ArrayList<>();
+                for (int n = 0; n < FILES; n++) order.add(n);
+                Collections.shuffle(order, random);
+
+                Map<Integer, Future<String>> results = new HashMap<>();
+                for (int n : order) {
+                    TokenBuffer file = files.get(n);
+                    results.put(n, pool.submit(() -> validator.validateCycles(file)));
+                }
+                for (Map.Entry<Integer, Future<String>> entry : results.entrySet()) {
+                    assertEquals(expected.get(entry.getKey()), entry.getValue().get(),
+                        "Archivo " + entry.getKey() + ", ronda " + round);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Declaraciones de tipos al azar y ciclos que las usan
+    private static String generateFile(Random random) {
+        String[] values = { "0", "2.5", "\"texto\"", "True", "'c'" };
+        StringBuilder sb = new StringBuilder();
+        for (String name : new String[] { "x", "i", "n", "s" }) {
+            sb.append(name).append(" = ").append(values[random.nextInt(values.length)]).append("\n");
+        }
+        int cycles = 5 + random.nextInt(20);
+        for (int c = 0; c < cycles; c++) {
+            switch (random.nextInt(3)) {
+                case 0 -> sb.append("while (x < n) {\n  x = x + 1\n}\n");
+                case 1 -> sb.append("for (i = 0; i < n; i = i + 1) {\n  s = s + ").append(values[random.nextInt(values.length)])
+                    .append("\n}\n");
+                default -> sb.append("ciclo (s == ").append(values[random.nextInt(values.length)])
+                    .append(") {\n  n = ").append(values[random.nextInt(values.length)]).append("\n}\n");
+            }
+        }
+        return sb.toString();
+    }
+}
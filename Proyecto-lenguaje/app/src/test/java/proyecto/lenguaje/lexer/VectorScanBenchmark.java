@@ -0,0 +1,97 @@
+package proyecto.lenguaje.lexer;
+
+/**
+ * Benchmark de la ruta vectorizada (VectorScan) frente a la escalar.
+ *
+ * Genera un programa con mucho espacio en blanco, comentarios -- y bloques
+ * {- -} largos, y mide el rendimiento (MB/s de caracteres) de:
+ * - La búsqueda de '{' o '-': VectorScan contra un bucle escalar.
+ * - El lexer completo: nextToken sobre el String (escalar) contra tokenize,
+ *   que copia la entrada a un arreglo y usa VectorScan.
+ *
+ * Ejecutar con --add-modules jdk.incubator.vector (sin el módulo ambas
+ * columnas usan la ruta escalar).
+ */
+public class VectorScanBenchmark {
+    private static final int SIZE = 8 * 1024 * 1024;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        System.out.println("=== BENCHMARK DE VECTORSCAN ===");
+        System.out.println("Vector API habilitada: " + VectorScan.isEnabled());
+
+        String code = generateCode(SIZE);
+        char[] chars = code.toCharArray();
+        System.out.println("Tamaño de la entrada: " + code.length() + " caracteres\n");
+
+        // Búsqueda de los delimitadores de comentario ('{' o '-'): tramos largos sin coincidencias
+        measure("Búsqueda escalar (bucle)   ", code.length(), () -> {
+            int found = 0;
+            int i = 0;
+            while (true) {
+                while (i < chars.length && chars[i] != '{' && chars[i] != '-') {
+                    i++;
+                }
+                if (i == chars.length) {
+                    return found;
+                }
+                found++;
+                i++;
+            }
+        });
+        measure("Búsqueda con VectorScan    ", code.length(), () -> {
+            int found = 0;
+            int i = VectorScan.indexOfAny(chars, '{', '-', 0, chars.length);
+            while (i < chars.length) {
+                found++;
+                i = VectorScan.indexOfAny(chars, '{', '-', i + 1, chars.length);
+            }
+            return found;
+        });
+
+        // Lexer completo
+        HaskellLexer lexer = new HaskellLexer();
+        measure("Lexer escalar (String)     ", code.length(), () -> {
+            HaskellLexer.Cursor cursor = new HaskellLexer.Cursor(0, 1);
+            int count = 0;
+            while (lexer.nextToken(code, cursor) != null) {
+                count++;
+            }
+            return count;
+        });
+        measure("Lexer con VectorScan       ", code.length(), () -> lexer.tokenize(code).size());
+    }
+
+    // Ejecuta la tarea varias veces (las primeras como calentamiento) y muestra el mejor tiempo
+    private static void measure(String name, int chars, java.util.function.IntSupplier task) {
+        long best = Long.MAX_VALUE;
+        int result = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            result = task.getAsInt();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double seconds = best / 1e9;
+        System.out.printf("%s %8.2f ms  %8.1f MB/s  (resultado: %d)%n",
+            name, best / 1e6, chars / seconds / (1024 * 1024), result);
+    }
+
+    // Código con la proporción típica de nuestras entradas: sobre todo espacios y comentarios
+    private static String generateCode(int size) {
+        StringBuilder sb = new StringBuilder(size + 256);
+        int n = 0;
+        while (sb.length() < size) {
+            sb.append("{- Bloque de documentación ").append(n).append("\n");
+            for (int i = 0; i < 6; i++) {
+                sb.append("   Esta función calcula el valor acumulado de la serie sin efectos secundarios.\n");
+            }
+            sb.append("   {- comentario anidado -}\n-}\n");
+            sb.append("-- Comentario de línea que explica la siguiente declaración\n");
+            sb.append("valor").append(n).append(" = if x > ").append(n).append("\n");
+            sb.append("                then x + 1\n");
+            sb.append("                else x * 2\n\n\n");
+            n++;
+        }
+        return sb.toString();
+    }
+}
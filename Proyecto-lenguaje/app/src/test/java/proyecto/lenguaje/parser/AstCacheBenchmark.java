@@ -0,0 +1,81 @@
+package proyecto.lenguaje.parser;
+
+import proyecto.lenguaje.lexer.HaskellLexer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Benchmark de AstCache: análisis completo frente a carga desde el caché.
+ *
+ * Escribe en un directorio temporal un programa grande (una declaración con
+ * una lista de tuplas con expresiones, literales, if y let) y mide el tiempo
+ * (MB/s de código fuente) de:
+ * - Leer el archivo y pasarlo por el lexer y el parser.
+ * - AstCache.load con el árbol ya guardado: hash del archivo mapeado y
+ *   decodificación del .ast mapeado.
+ * También muestra el tamaño del .ast frente al del código fuente.
+ */
+public class AstCacheBenchmark {
+    private static final int ELEMENTS = 50_000;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("=== BENCHMARK DE ASTCACHE ===");
+
+        Path directory = Files.createTempDirectory("ast-cache");
+        Path source = directory.resolve("programa.hs");
+        Files.writeString(source, generateCode(ELEMENTS));
+        int size = (int) Files.size(source);
+        AstCache cache = new AstCache(directory.resolve("cache"));
+        AstNode program = cache.load(source);
+        System.out.println("Tamaño del código: " + size + " bytes");
+        System.out.println("Tamaño del .ast:   " + AstCodec.encode(program).length + " bytes\n");
+
+        HaskellLexer lexer = new HaskellLexer();
+        measure("Análisis completo          ", size, () -> {
+            try {
+                return new Parser(lexer.tokenizeToBuffer(Files.readString(source))).parseProgram().children().size();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        measure("Carga desde AstCache       ", size, () -> {
+            try {
+                return cache.load(source).children().size();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        System.out.println("\nAciertos: " + cache.getHits() + ", fallos: " + cache.getMisses());
+    }
+
+    // Ejecuta la tarea varias veces (las primeras como calentamiento) y muestra el mejor tiempo
+    private static void measure(String name, int bytes, java.util.function.IntSupplier task) {
+        long best = Long.MAX_VALUE;
+        int result = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            result = task.getAsInt();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double seconds = best / 1e9;
+        System.out.printf("%s %8.2f ms  %8.1f MB/s  (resultado: %d)%n",
+            name, best / 1e6, bytes / seconds / (1024 * 1024), result);
+    }
+
+    // Una sola declaración (el parser no corta en los saltos de línea) con muchos elementos
+    private static String generateCode(int elements) {
+        StringBuilder sb = new StringBuilder("datos = [\n");
+        for (int n = 0; n < elements; n++) {
+            if (n > 0) sb.append(",\n");
+            switch (n % 3) {
+                case 0 -> sb.append("  (").append(n).append(", \"texto").append(n).append("\", x").append(n % 50)
+                    .append(" + 2 * y)");
+                case 1 -> sb.append("  (2.5, 'c', if a").append(n % 20).append(" then f b else -c)");
+                default -> sb.append("  (let q = ").append(n).append(" in q * 2, [], g 1 2)");
+            }
+        }
+        return sb.append("\n]\n").toString();
+    }
+}